@@ -0,0 +1,185 @@
+package com.craftify.bff.config;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tuning options for data stores, loaded from properties prefixed with {@code data-stores}. Also
+ * provides the executor building and dropping record indexes.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "data-stores")
+public class DataStoreConfig {
+
+  /** Number of records sent in one unordered bulk insert during imports. */
+  private int importBatchSize = 1000;
+
+  /** Maximum number of row errors listed in an import report; further errors are only counted. */
+  private int importMaxReportedErrors = 1000;
+
+  /** Records fetched per cursor round trip during exports. */
+  private int exportBatchSize = 1000;
+
+  /** Data store metadata entries kept in memory for ownership checks; 0 disables the cache. */
+  private int metadataCacheSize = 10000;
+
+  /** How long cached data store metadata is served before it is read again. */
+  private Duration metadataCacheTtl = Duration.ofSeconds(10);
+
+  /** Records removed by one delete request while a deleted data store is cleaned up. */
+  private int deleteChunkSize = 1000;
+
+  /** Pause between two delete chunks, throttling cleanup in favor of live traffic. */
+  private Duration deleteChunkPause = Duration.ofMillis(200);
+
+  /** How long an instance owns a deletion job without progress before another may resume it. */
+  private Duration deleteLease = Duration.ofMinutes(1);
+
+  /** Record counters kept in memory; 0 disables the cache. */
+  private int countCacheSize = 10000;
+
+  /** How long a cached record counter is served before it is read again. */
+  private Duration countCacheTtl = Duration.ofSeconds(5);
+
+  /** Secondary indexes a single data store may declare on record paths. */
+  private int maxIndexesPerStore = 5;
+
+  /** Distinct record paths a single user may index across all of their data stores. */
+  private int maxIndexedPathsPerUser = 5;
+
+  /** Distinct record paths indexed across all data stores; each is one collection index. */
+  private int maxIndexedPaths = 40;
+
+  /** How long an instance owns the build or drop of a record index before another may take over. */
+  private Duration indexBuildLease = Duration.ofHours(1);
+
+  public int getImportBatchSize() {
+    return importBatchSize;
+  }
+
+  public void setImportBatchSize(int importBatchSize) {
+    this.importBatchSize = importBatchSize;
+  }
+
+  public int getImportMaxReportedErrors() {
+    return importMaxReportedErrors;
+  }
+
+  public void setImportMaxReportedErrors(int importMaxReportedErrors) {
+    this.importMaxReportedErrors = importMaxReportedErrors;
+  }
+
+  public int getExportBatchSize() {
+    return exportBatchSize;
+  }
+
+  public void setExportBatchSize(int exportBatchSize) {
+    this.exportBatchSize = exportBatchSize;
+  }
+
+  public int getMetadataCacheSize() {
+    return metadataCacheSize;
+  }
+
+  public void setMetadataCacheSize(int metadataCacheSize) {
+    this.metadataCacheSize = metadataCacheSize;
+  }
+
+  public Duration getMetadataCacheTtl() {
+    return metadataCacheTtl;
+  }
+
+  public void setMetadataCacheTtl(Duration metadataCacheTtl) {
+    this.metadataCacheTtl = metadataCacheTtl;
+  }
+
+  public int getDeleteChunkSize() {
+    return deleteChunkSize;
+  }
+
+  public void setDeleteChunkSize(int deleteChunkSize) {
+    this.deleteChunkSize = deleteChunkSize;
+  }
+
+  public Duration getDeleteChunkPause() {
+    return deleteChunkPause;
+  }
+
+  public void setDeleteChunkPause(Duration deleteChunkPause) {
+    this.deleteChunkPause = deleteChunkPause;
+  }
+
+  public Duration getDeleteLease() {
+    return deleteLease;
+  }
+
+  public void setDeleteLease(Duration deleteLease) {
+    this.deleteLease = deleteLease;
+  }
+
+  public int getCountCacheSize() {
+    return countCacheSize;
+  }
+
+  public void setCountCacheSize(int countCacheSize) {
+    this.countCacheSize = countCacheSize;
+  }
+
+  public Duration getCountCacheTtl() {
+    return countCacheTtl;
+  }
+
+  public void setCountCacheTtl(Duration countCacheTtl) {
+    this.countCacheTtl = countCacheTtl;
+  }
+
+  public int getMaxIndexesPerStore() {
+    return maxIndexesPerStore;
+  }
+
+  public void setMaxIndexesPerStore(int maxIndexesPerStore) {
+    this.maxIndexesPerStore = maxIndexesPerStore;
+  }
+
+  public int getMaxIndexedPaths() {
+    return maxIndexedPaths;
+  }
+
+  public void setMaxIndexedPaths(int maxIndexedPaths) {
+    this.maxIndexedPaths = maxIndexedPaths;
+  }
+
+  public int getMaxIndexedPathsPerUser() {
+    return maxIndexedPathsPerUser;
+  }
+
+  public void setMaxIndexedPathsPerUser(int maxIndexedPathsPerUser) {
+    this.maxIndexedPathsPerUser = maxIndexedPathsPerUser;
+  }
+
+  public Duration getIndexBuildLease() {
+    return indexBuildLease;
+  }
+
+  public void setIndexBuildLease(Duration indexBuildLease) {
+    this.indexBuildLease = indexBuildLease;
+  }
+
+  /**
+   * Creates the single thread building and dropping record indexes, so index changes of this
+   * instance run one at a time and off the request threads.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ScheduledExecutorService indexBuildExecutor() {
+    return Executors.newSingleThreadScheduledExecutor(
+        runnable -> {
+          var thread = new Thread(runnable, "index-build");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+}
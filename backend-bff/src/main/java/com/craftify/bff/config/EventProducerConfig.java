@@ -1,14 +1,40 @@
 package com.craftify.bff.config;
 
+import java.time.Duration;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+/**
+ * Location of the events producer API and tuning options for event submission, loaded from
+ * properties prefixed with {@code events-producer-api}.
+ */
 @Configuration
 @ConfigurationProperties(prefix = "events-producer-api")
 public class EventProducerConfig {
   private String host;
   private String path;
 
+  /** Events buffered in memory before submissions are rejected. */
+  private int bufferCapacity = 10000;
+
+  /** Maximum number of events flushed together. */
+  private int batchSize = 100;
+
+  /** How long a flush waits for more events before sending a batch that is not full. */
+  private Duration linger = Duration.ofMillis(10);
+
+  /** Batch requests to the producer in flight at the same time. */
+  private int maxInFlight = 8;
+
+  /** Timeout of a single request to the producer; longer than the producer waits for acks. */
+  private Duration requestTimeout = Duration.ofSeconds(40);
+
+  /** Attempts to submit an event, including the first, before it is dropped. */
+  private int maxAttempts = 5;
+
+  /** Delay before the first retry of a failed event; doubles with every further attempt. */
+  private Duration retryBackoff = Duration.ofMillis(500);
+
   public String getHost() {
     return host;
   }
@@ -24,4 +50,60 @@ public class EventProducerConfig {
   public void setPath(String path) {
     this.path = path;
   }
+
+  public int getBufferCapacity() {
+    return bufferCapacity;
+  }
+
+  public void setBufferCapacity(int bufferCapacity) {
+    this.bufferCapacity = bufferCapacity;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public Duration getLinger() {
+    return linger;
+  }
+
+  public void setLinger(Duration linger) {
+    this.linger = linger;
+  }
+
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  public void setMaxInFlight(int maxInFlight) {
+    this.maxInFlight = maxInFlight;
+  }
+
+  public Duration getRequestTimeout() {
+    return requestTimeout;
+  }
+
+  public void setRequestTimeout(Duration requestTimeout) {
+    this.requestTimeout = requestTimeout;
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public void setMaxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+  }
+
+  public Duration getRetryBackoff() {
+    return retryBackoff;
+  }
+
+  public void setRetryBackoff(Duration retryBackoff) {
+    this.retryBackoff = retryBackoff;
+  }
 }
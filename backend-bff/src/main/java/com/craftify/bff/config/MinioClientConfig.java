@@ -1,9 +1,11 @@
 package com.craftify.bff.config;
 
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 /**
  * Configuration class for initializing and providing a MinIO client bean. This class loads
@@ -26,6 +28,15 @@ public class MinioClientConfig {
   /** The name of the default bucket to be used. */
   private String bucket;
 
+  /**
+   * The URL under which clients reach MinIO directly. Presigned URLs are signed for this host;
+   * defaults to {@link #url} when not set.
+   */
+  private String publicUrl;
+
+  /** The region used when signing requests; avoids a region lookup call before presigning. */
+  private String region = "us-east-1";
+
   public String getUrl() {
     return url;
   }
@@ -58,13 +69,58 @@ public class MinioClientConfig {
     this.bucket = bucket;
   }
 
+  public String getPublicUrl() {
+    return publicUrl;
+  }
+
+  public void setPublicUrl(String publicUrl) {
+    this.publicUrl = publicUrl;
+  }
+
+  public String getRegion() {
+    return region;
+  }
+
+  public void setRegion(String region) {
+    this.region = region;
+  }
+
   /**
    * Creates and returns a {@link MinioClient} bean using the configured URL and credentials.
    *
    * @return a configured {@link MinioClient} instance
    */
   @Bean
+  @Primary
   public MinioClient minioClient() {
     return MinioClient.builder().endpoint(url).credentials(accessKey, secretKey).build();
   }
+
+  /**
+   * Creates a {@link MinioAsyncClient} bean for the low-level multipart upload and paged listing
+   * calls that the blocking client does not expose.
+   *
+   * @return a configured {@link MinioPagingClient} instance
+   */
+  @Bean
+  public MinioPagingClient minioAsyncClient() {
+    return new MinioPagingClient(
+        MinioAsyncClient.builder().endpoint(url).credentials(accessKey, secretKey).build());
+  }
+
+  /**
+   * Creates a {@link MinioClient} bean used only to sign URLs handed out to clients. It targets the
+   * public URL so the signature matches the host clients connect to.
+   *
+   * @return a configured {@link MinioClient} instance for presigning
+   */
+  @Bean
+  public MinioClient minioPresignClient() {
+    var endpoint = publicUrl != null && !publicUrl.isBlank() ? publicUrl : url;
+    return MinioClient.builder()
+        .endpoint(endpoint)
+        .region(region)
+        .credentials(accessKey, secretKey)
+        .build();
+  }
 }
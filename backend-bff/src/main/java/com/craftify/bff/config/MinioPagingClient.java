@@ -0,0 +1,46 @@
+package com.craftify.bff.config;
+
+import io.minio.ListObjectsV2Response;
+import io.minio.MinioAsyncClient;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link MinioAsyncClient} that exposes single-page ListObjectsV2 requests. The public listing API
+ * hides the S3 continuation token behind an iterator, which makes it unusable for stateless,
+ * cursor-based pagination.
+ */
+public class MinioPagingClient extends MinioAsyncClient {
+
+  public MinioPagingClient(MinioAsyncClient client) {
+    super(client);
+  }
+
+  /**
+   * Lists a single page of objects under a prefix, including user metadata.
+   *
+   * @param bucket Bucket to list.
+   * @param prefix Object name prefix.
+   * @param delimiter Delimiter used to group keys into common prefixes, or null.
+   * @param continuationToken Token returned by the previous page, or null for the first page.
+   * @param maxKeys Maximum number of keys and common prefixes to return.
+   * @return Future completing with the listed page.
+   * @throws Exception if the request cannot be built or sent.
+   */
+  public CompletableFuture<ListObjectsV2Response> listObjectsPage(
+      String bucket, String prefix, String delimiter, String continuationToken, int maxKeys)
+      throws Exception {
+    return listObjectsV2Async(
+        bucket,
+        null,
+        delimiter,
+        null,
+        null,
+        maxKeys,
+        prefix,
+        continuationToken,
+        false,
+        true,
+        null,
+        null);
+  }
+}
@@ -0,0 +1,303 @@
+package com.craftify.bff.config;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Tuning options for user storage operations, loaded from properties prefixed with {@code storage}.
+ * Also provides the bounded executors used to run bulk object operations and file uploads against
+ * MinIO.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "storage")
+public class StorageConfig {
+
+  /** Number of threads available for parallel bulk object operations. */
+  private int executorThreads = 8;
+
+  /** Maximum number of object keys sent in a single multi-object delete request. */
+  private int deleteBatchSize = 1000;
+
+  /** Maximum number of delete batches in flight at the same time for one operation. */
+  private int deleteParallelism = 4;
+
+  /** Maximum number of server-side object copies in flight at the same time for one operation. */
+  private int copyParallelism = 8;
+
+  /** Whether clients may request presigned URLs to transfer file content directly with MinIO. */
+  private boolean presignedEnabled = false;
+
+  /** Lifetime of presigned URLs handed out to clients. */
+  private Duration presignedExpiry = Duration.ofMinutes(15);
+
+  /** Maximum number of folder listing pages kept in memory; 0 disables the cache. */
+  private int listingCacheSize = 1000;
+
+  /**
+   * How long a cached folder listing page is served before it is reloaded. Bounds staleness for
+   * changes that bypass the BFF, such as presigned uploads.
+   */
+  private Duration listingCacheTtl = Duration.ofSeconds(30);
+
+  /** Maximum number of bytes returned by one text file window. */
+  private long textWindowMaxBytes = 1024 * 1024;
+
+  /** Part size of multipart uploads; files up to this size are uploaded in a single request. */
+  private DataSize uploadPartSize = DataSize.ofMegabytes(16);
+
+  /** Maximum number of parts of one file uploaded at the same time. */
+  private int uploadParallelism = 4;
+
+  /** Number of threads uploading the files of multi-file uploads. */
+  private int uploadThreads = 4;
+
+  /** Maximum size of the part buffers held in memory by all uploads together. */
+  private DataSize uploadBufferSize = DataSize.ofMegabytes(256);
+
+  /** Number of upcoming objects fetched in parallel while a folder archive is written. */
+  private int archivePrefetchCount = 4;
+
+  /**
+   * Objects up to this size are buffered whole when prefetched for a folder archive; larger ones
+   * are held as open streams.
+   */
+  private DataSize archivePrefetchBytes = DataSize.ofMegabytes(1);
+
+  /** Storage quota per user; 0 disables quota checks. */
+  private DataSize userQuota = DataSize.ofBytes(0);
+
+  /** Whether the storage usage index is periodically rebuilt from object storage. */
+  private boolean usageReconcileEnabled = true;
+
+  /** Interval between two rebuilds of the storage usage index, on one instance of the cluster. */
+  private Duration usageReconcileInterval = Duration.ofHours(6);
+
+  /** Maximum number of objects listed per second while rebuilding the storage usage index. */
+  private int usageReconcileRate = 1000;
+
+  /** Whether uploaded and text files are stored once per distinct content and shared by hash. */
+  private boolean dedupEnabled = false;
+
+  /** How long a deduplicated blob is kept after its last reference was released. */
+  private Duration dedupReleaseGrace = Duration.ofHours(1);
+
+  /** Interval between two recounts of blob references, on one instance of the cluster. */
+  private Duration dedupReconcileInterval = Duration.ofHours(24);
+
+  public int getExecutorThreads() {
+    return executorThreads;
+  }
+
+  public void setExecutorThreads(int executorThreads) {
+    this.executorThreads = executorThreads;
+  }
+
+  public int getDeleteBatchSize() {
+    return deleteBatchSize;
+  }
+
+  public void setDeleteBatchSize(int deleteBatchSize) {
+    this.deleteBatchSize = deleteBatchSize;
+  }
+
+  public int getDeleteParallelism() {
+    return deleteParallelism;
+  }
+
+  public void setDeleteParallelism(int deleteParallelism) {
+    this.deleteParallelism = deleteParallelism;
+  }
+
+  public int getCopyParallelism() {
+    return copyParallelism;
+  }
+
+  public void setCopyParallelism(int copyParallelism) {
+    this.copyParallelism = copyParallelism;
+  }
+
+  public boolean isPresignedEnabled() {
+    return presignedEnabled;
+  }
+
+  public void setPresignedEnabled(boolean presignedEnabled) {
+    this.presignedEnabled = presignedEnabled;
+  }
+
+  public Duration getPresignedExpiry() {
+    return presignedExpiry;
+  }
+
+  public void setPresignedExpiry(Duration presignedExpiry) {
+    this.presignedExpiry = presignedExpiry;
+  }
+
+  public int getListingCacheSize() {
+    return listingCacheSize;
+  }
+
+  public void setListingCacheSize(int listingCacheSize) {
+    this.listingCacheSize = listingCacheSize;
+  }
+
+  public Duration getListingCacheTtl() {
+    return listingCacheTtl;
+  }
+
+  public void setListingCacheTtl(Duration listingCacheTtl) {
+    this.listingCacheTtl = listingCacheTtl;
+  }
+
+  public long getTextWindowMaxBytes() {
+    return textWindowMaxBytes;
+  }
+
+  public void setTextWindowMaxBytes(long textWindowMaxBytes) {
+    this.textWindowMaxBytes = textWindowMaxBytes;
+  }
+
+  public DataSize getUploadPartSize() {
+    return uploadPartSize;
+  }
+
+  public void setUploadPartSize(DataSize uploadPartSize) {
+    this.uploadPartSize = uploadPartSize;
+  }
+
+  public int getUploadParallelism() {
+    return uploadParallelism;
+  }
+
+  public void setUploadParallelism(int uploadParallelism) {
+    this.uploadParallelism = uploadParallelism;
+  }
+
+  public int getUploadThreads() {
+    return uploadThreads;
+  }
+
+  public void setUploadThreads(int uploadThreads) {
+    this.uploadThreads = uploadThreads;
+  }
+
+  public DataSize getUploadBufferSize() {
+    return uploadBufferSize;
+  }
+
+  public void setUploadBufferSize(DataSize uploadBufferSize) {
+    this.uploadBufferSize = uploadBufferSize;
+  }
+
+  /**
+   * Creates the executor used for bulk storage operations. The pool is shut down together with the
+   * Spring context.
+   *
+   * @return a fixed-size {@link ExecutorService}
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService storageExecutor() {
+    var counter = new AtomicInteger();
+    ThreadFactory threadFactory =
+        runnable -> {
+          var thread = new Thread(runnable, "storage-" + counter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        };
+    return Executors.newFixedThreadPool(executorThreads, threadFactory);
+  }
+
+  /**
+   * Executor uploading the files of multi-file uploads, kept apart from {@link #storageExecutor()}
+   * so long uploads do not hold up deletes, copies and archives.
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService uploadExecutor() {
+    var counter = new AtomicInteger();
+    ThreadFactory threadFactory =
+        runnable -> {
+          var thread = new Thread(runnable, "upload-" + counter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        };
+    return Executors.newFixedThreadPool(Math.max(1, uploadThreads), threadFactory);
+  }
+
+  public int getArchivePrefetchCount() {
+    return archivePrefetchCount;
+  }
+
+  public void setArchivePrefetchCount(int archivePrefetchCount) {
+    this.archivePrefetchCount = archivePrefetchCount;
+  }
+
+  public DataSize getArchivePrefetchBytes() {
+    return archivePrefetchBytes;
+  }
+
+  public void setArchivePrefetchBytes(DataSize archivePrefetchBytes) {
+    this.archivePrefetchBytes = archivePrefetchBytes;
+  }
+
+  public DataSize getUserQuota() {
+    return userQuota;
+  }
+
+  public void setUserQuota(DataSize userQuota) {
+    this.userQuota = userQuota;
+  }
+
+  public boolean isUsageReconcileEnabled() {
+    return usageReconcileEnabled;
+  }
+
+  public void setUsageReconcileEnabled(boolean usageReconcileEnabled) {
+    this.usageReconcileEnabled = usageReconcileEnabled;
+  }
+
+  public Duration getUsageReconcileInterval() {
+    return usageReconcileInterval;
+  }
+
+  public void setUsageReconcileInterval(Duration usageReconcileInterval) {
+    this.usageReconcileInterval = usageReconcileInterval;
+  }
+
+  public int getUsageReconcileRate() {
+    return usageReconcileRate;
+  }
+
+  public void setUsageReconcileRate(int usageReconcileRate) {
+    this.usageReconcileRate = usageReconcileRate;
+  }
+
+  public boolean isDedupEnabled() {
+    return dedupEnabled;
+  }
+
+  public void setDedupEnabled(boolean dedupEnabled) {
+    this.dedupEnabled = dedupEnabled;
+  }
+
+  public Duration getDedupReleaseGrace() {
+    return dedupReleaseGrace;
+  }
+
+  public void setDedupReleaseGrace(Duration dedupReleaseGrace) {
+    this.dedupReleaseGrace = dedupReleaseGrace;
+  }
+
+  public Duration getDedupReconcileInterval() {
+    return dedupReconcileInterval;
+  }
+
+  public void setDedupReconcileInterval(Duration dedupReconcileInterval) {
+    this.dedupReconcileInterval = dedupReconcileInterval;
+  }
+}
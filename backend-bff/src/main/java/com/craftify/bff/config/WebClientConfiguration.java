@@ -1,6 +1,6 @@
 package com.craftify.bff.config;
 
-import static java.net.http.HttpClient.Version.HTTP_1_1;
+import static java.net.http.HttpClient.Version.HTTP_2;
 
 import java.net.http.HttpClient;
 import org.springframework.context.annotation.Bean;
@@ -10,12 +10,13 @@ import org.springframework.context.annotation.Configuration;
 public class WebClientConfiguration {
 
   /**
-   * HTTP client bean.
+   * HTTP client bean. Prefers HTTP/2 so concurrent requests to the same host share one connection,
+   * and falls back to HTTP/1.1 for servers without HTTP/2 support.
    *
    * @return HTTP client.
    */
   @Bean
   public HttpClient getHttpClient() {
-    return HttpClient.newBuilder().version(HTTP_1_1).build();
+    return HttpClient.newBuilder().version(HTTP_2).build();
   }
 }
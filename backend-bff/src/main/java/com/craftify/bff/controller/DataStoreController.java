@@ -1,30 +1,80 @@
 package com.craftify.bff.controller;
 
+import com.craftify.bff.dto.DataStoreDeletionDto;
 import com.craftify.bff.dto.DataStoreDto;
 import com.craftify.bff.dto.DataStoreRecordDto;
+import com.craftify.bff.dto.DataStoreRecordPageDto;
+import com.craftify.bff.dto.RecordImportResultDto;
+import com.craftify.bff.dto.RecordQueryDto;
+import com.craftify.bff.dto.RecordQueryPageDto;
+import com.craftify.bff.exception.OperationRestrictionException;
 import com.craftify.bff.model.DataStore;
 import com.craftify.bff.model.DataStoreRecord;
 import com.craftify.bff.model.DataStoreRecordDetails;
+import com.craftify.bff.service.DataStoreIndexService;
+import com.craftify.bff.service.DataStoreRecordExporter;
+import com.craftify.bff.service.DataStoreRecordImporter;
+import com.craftify.bff.service.DataStoreRecordQueryService;
+import com.craftify.bff.service.DataStoreRecordSearchService;
 import com.craftify.bff.service.DataStoreService;
+import com.craftify.bff.service.RecordExport;
+import com.craftify.bff.service.RecordPatch;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import org.springframework.data.domain.Page;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/data-stores")
 @Tag(name = "Data Store Management", description = "CRUD operations for managing data stores")
 public class DataStoreController {
 
+  private static final String NDJSON_VALUE = "application/x-ndjson";
+  private static final String TEXT_CSV_VALUE = "text/csv";
+  private static final MediaType TEXT_CSV = MediaType.parseMediaType(TEXT_CSV_VALUE);
+  private static final String MERGE_PATCH_VALUE = "application/merge-patch+json";
+  private static final String JSON_PATCH_VALUE = "application/json-patch+json";
+  private static final MediaType JSON_PATCH = MediaType.parseMediaType(JSON_PATCH_VALUE);
+
   private final DataStoreService service;
+  private final DataStoreRecordImporter importer;
+  private final DataStoreRecordExporter exporter;
+  private final DataStoreRecordQueryService queryService;
+  private final DataStoreRecordSearchService searchService;
+  private final DataStoreIndexService indexService;
+  private final ObjectMapper objectMapper;
 
-  public DataStoreController(DataStoreService service) {
+  public DataStoreController(
+      DataStoreService service,
+      DataStoreRecordImporter importer,
+      DataStoreRecordExporter exporter,
+      DataStoreRecordQueryService queryService,
+      DataStoreRecordSearchService searchService,
+      DataStoreIndexService indexService,
+      ObjectMapper objectMapper) {
     this.service = service;
+    this.importer = importer;
+    this.exporter = exporter;
+    this.queryService = queryService;
+    this.searchService = searchService;
+    this.indexService = indexService;
+    this.objectMapper = objectMapper;
   }
 
   @Operation(summary = "Create a new data store")
@@ -46,22 +96,140 @@ public class DataStoreController {
   @GetMapping
   public ResponseEntity<Page<DataStoreDto>> list(
       @RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "10") int size) {
-    var paginated = service.list(page, size).map(this::toDto);
-    return ResponseEntity.ok(paginated);
+    var stores = service.list(page, size);
+    var counts = service.recordsCounts(stores.map(DataStore::id).getContent());
+    return ResponseEntity.ok(stores.map(entity -> toDto(entity, counts.get(entity.id()))));
   }
 
-  @Operation(summary = "List all data store records with pagination")
+  @Operation(
+      summary = "List data store records, newest first",
+      description =
+          "Returns one page of records. Pass the returned continuation token to fetch the next"
+              + " page; page latency does not depend on how deep the page is")
   @ApiResponse(
       responseCode = "200",
-      description = "List of records",
-      content = @Content(schema = @Schema(implementation = DataStoreRecordDto.class)))
+      description = "Page of records",
+      content = @Content(schema = @Schema(implementation = DataStoreRecordPageDto.class)))
   @GetMapping("{id}/records")
-  public ResponseEntity<Page<DataStoreRecordDto>> listRecords(
+  public ResponseEntity<DataStoreRecordPageDto> listRecords(
+      @PathVariable String id,
+      @RequestParam(required = false) String continuationToken,
+      @RequestParam(defaultValue = "10") int size) {
+    var page = service.listRecords(id, continuationToken, size);
+    return ResponseEntity.ok(
+        new DataStoreRecordPageDto(
+            page.records().stream().map(this::toRecordDto).toList(),
+            page.nextContinuationToken()));
+  }
+
+  @Operation(
+      summary = "Query data store records",
+      description =
+          "Filters records on name, createdAt, updatedAt or record.* fields, sorts them by any of"
+              + " these fields and optionally returns only the listed record.* fields. Declare an"
+              + " index on the record.* paths used by frequent queries to keep them fast")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "Page of matching records",
+        content = @Content(schema = @Schema(implementation = DataStoreRecordPageDto.class))),
+    @ApiResponse(responseCode = "400", description = "Malformed query or continuation token"),
+    @ApiResponse(responseCode = "404", description = "Data store not found")
+  })
+  @PostMapping("/{id}/records/query")
+  public ResponseEntity<DataStoreRecordPageDto> queryRecords(
+      @PathVariable String id, @RequestBody RecordQueryDto query) {
+    try {
+      var page = queryService.query(id, query);
+      return ResponseEntity.ok(
+          new DataStoreRecordPageDto(
+              page.records().stream().map(this::toRecordDto).toList(),
+              page.nextContinuationToken()));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.notFound().build();
+    }
+  }
+
+  @Operation(
+      summary = "Search data store records",
+      description =
+          "Finds records whose name or field values contain every word of the query, matching"
+              + " words by prefix. Records matching whole words rank first, then newest first")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "Page of matching records",
+        content = @Content(schema = @Schema(implementation = RecordQueryPageDto.class))),
+    @ApiResponse(responseCode = "400", description = "Query without searchable words"),
+    @ApiResponse(responseCode = "404", description = "Data store not found")
+  })
+  @GetMapping("/{id}/records/search")
+  public ResponseEntity<RecordQueryPageDto> searchRecords(
       @PathVariable String id,
+      @RequestParam("q") String text,
       @RequestParam(defaultValue = "0") int page,
       @RequestParam(defaultValue = "10") int size) {
-    var paginated = service.listRecords(id, page, size).map(this::toRecordDto);
-    return ResponseEntity.ok(paginated);
+    try {
+      var result = searchService.search(id, text, page, size);
+      return ResponseEntity.ok(
+          new RecordQueryPageDto(
+              result.records().stream().map(this::toRecordDto).toList(),
+              result.page(),
+              result.size(),
+              result.hasNext()));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.notFound().build();
+    }
+  }
+
+  @Operation(summary = "List the record paths indexed for a data store")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Indexed record paths"),
+    @ApiResponse(responseCode = "404", description = "Data store not found")
+  })
+  @GetMapping("/{id}/indexes")
+  public ResponseEntity<List<String>> listIndexes(@PathVariable String id) {
+    try {
+      return ResponseEntity.ok(indexService.list(id));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.notFound().build();
+    }
+  }
+
+  @Operation(
+      summary = "Declare an index on a record path",
+      description =
+          "Declares a secondary index on a record.* path, such as record.customer.id; the index"
+              + " is built in the background")
+  @ApiResponses({
+    @ApiResponse(responseCode = "202", description = "Index declared"),
+    @ApiResponse(responseCode = "400", description = "Invalid record path"),
+    @ApiResponse(responseCode = "404", description = "Data store not found"),
+    @ApiResponse(responseCode = "409", description = "Index limit reached")
+  })
+  @PutMapping("/{id}/indexes/{path}")
+  public ResponseEntity<Void> declareIndex(@PathVariable String id, @PathVariable String path) {
+    try {
+      indexService.declare(id, path);
+      return ResponseEntity.accepted().build();
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.notFound().build();
+    }
+  }
+
+  @Operation(summary = "Remove an index from a record path")
+  @ApiResponses({
+    @ApiResponse(responseCode = "204", description = "Index removed"),
+    @ApiResponse(responseCode = "404", description = "Data store or index not found")
+  })
+  @DeleteMapping("/{id}/indexes/{path}")
+  public ResponseEntity<Void> removeIndex(@PathVariable String id, @PathVariable String path) {
+    try {
+      indexService.remove(id, path);
+      return ResponseEntity.noContent().build();
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.notFound().build();
+    }
   }
 
   @Operation(summary = "Get record details by data store ID and record ID")
@@ -75,10 +243,14 @@ public class DataStoreController {
   @GetMapping("/{id}/records/{recordId}")
   public ResponseEntity<DataStoreRecordDetails> detail(
       @PathVariable String id, @PathVariable String recordId) {
-    return service
-        .getDetails(id, recordId)
-        .map(ResponseEntity::ok)
-        .orElse(ResponseEntity.notFound().build());
+    try {
+      return service
+          .getDetails(id, recordId)
+          .map(details -> ResponseEntity.ok().eTag(String.valueOf(details.version())).body(details))
+          .orElse(ResponseEntity.notFound().build());
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.notFound().build();
+    }
   }
 
   @Operation(summary = "Create a new record in a data store")
@@ -100,6 +272,131 @@ public class DataStoreController {
     }
   }
 
+  @Operation(
+      summary = "Partially update a record",
+      description =
+          "Applies a JSON merge patch or a JSON Patch to the record fields in one atomic update."
+              + " Send the version from the record's ETag in If-Match to apply the patch only if"
+              + " the record was not changed in the meantime")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "Record updated; the ETag header holds the new version",
+        content = @Content(schema = @Schema(implementation = DataStoreRecordDto.class))),
+    @ApiResponse(responseCode = "400", description = "Malformed or unsupported patch"),
+    @ApiResponse(responseCode = "404", description = "Data store or record not found"),
+    @ApiResponse(
+        responseCode = "412",
+        description = "The record version or a test operation did not match")
+  })
+  @PatchMapping(
+      path = "/{dataStoreId}/records/{recordId}",
+      consumes = {MERGE_PATCH_VALUE, JSON_PATCH_VALUE})
+  public ResponseEntity<?> patchRecord(
+      @PathVariable String dataStoreId,
+      @PathVariable String recordId,
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestBody JsonNode body) {
+    Long expectedVersion = null;
+    if (ifMatch != null && !"*".equals(ifMatch.trim())) {
+      try {
+        expectedVersion = Long.parseLong(ifMatch.replaceAll("^\\s*(W/)?\"|\"\\s*$", ""));
+      } catch (NumberFormatException e) {
+        return ResponseEntity.status(412).body("If-Match must hold a record version.");
+      }
+    }
+    RecordPatch patch =
+        MediaType.parseMediaType(contentType).isCompatibleWith(JSON_PATCH)
+            ? RecordPatch.fromJsonPatch(body, objectMapper)
+            : RecordPatch.fromMergePatch(body, objectMapper);
+    try {
+      var updated = service.patchRecord(dataStoreId, recordId, patch, expectedVersion);
+      return ResponseEntity.ok()
+          .eTag(String.valueOf(updated.version()))
+          .body(toRecordDto(updated));
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.notFound().build();
+    } catch (OperationRestrictionException e) {
+      return ResponseEntity.status(412).body(e.getMessage());
+    }
+  }
+
+  @Operation(
+      summary = "Import records into a data store",
+      description =
+          "Streams records from NDJSON (one {\"name\": ..., \"record\": {...}} object per line)"
+              + " or CSV with a header row and a name column, and inserts them in bulk. Rows that"
+              + " cannot be imported, such as duplicate names, are listed in the report")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "Import finished; see the report for rejected rows",
+        content = @Content(schema = @Schema(implementation = RecordImportResultDto.class))),
+    @ApiResponse(responseCode = "404", description = "Data store not found")
+  })
+  @PostMapping(
+      path = "/{id}/records/import",
+      consumes = {NDJSON_VALUE, TEXT_CSV_VALUE})
+  public ResponseEntity<RecordImportResultDto> importRecords(
+      @PathVariable("id") String dataStoreId,
+      @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+      InputStream body)
+      throws IOException {
+    try {
+      var result =
+          MediaType.parseMediaType(contentType).isCompatibleWith(TEXT_CSV)
+              ? importer.importCsv(dataStoreId, body)
+              : importer.importNdjson(dataStoreId, body);
+      return ResponseEntity.ok(result);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.notFound().build();
+    }
+  }
+
+  @Operation(
+      summary = "Export the records of a data store",
+      description =
+          "Streams every record, newest first, as NDJSON in the import format or as CSV with a"
+              + " header row. Pass record.* paths in fields to export only those fields")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Export stream"),
+    @ApiResponse(responseCode = "400", description = "Invalid format or field path"),
+    @ApiResponse(responseCode = "404", description = "Data store not found")
+  })
+  @GetMapping(
+      path = "/{id}/records/export",
+      produces = {NDJSON_VALUE, TEXT_CSV_VALUE})
+  public ResponseEntity<StreamingResponseBody> exportRecords(
+      @PathVariable("id") String dataStoreId,
+      @RequestParam(defaultValue = "ndjson") String format,
+      @RequestParam(required = false) List<String> fields) {
+    boolean csv = "csv".equalsIgnoreCase(format);
+    if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+      return ResponseEntity.badRequest().build();
+    }
+    RecordExport export;
+    try {
+      export =
+          csv
+              ? exporter.exportCsv(dataStoreId, fields)
+              : exporter.exportNdjson(dataStoreId, fields);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.notFound().build();
+    }
+
+    StreamingResponseBody body = export::writeTo;
+    return ResponseEntity.ok()
+        .header(
+            HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment()
+                .filename(export.fileName(), StandardCharsets.UTF_8)
+                .build()
+                .toString())
+        .contentType(csv ? TEXT_CSV : MediaType.parseMediaType(NDJSON_VALUE))
+        .body(body);
+  }
+
   @Operation(summary = "Update a data store by ID")
   @ApiResponses({
     @ApiResponse(
@@ -117,18 +414,44 @@ public class DataStoreController {
         .orElse(ResponseEntity.notFound().build());
   }
 
-  @Operation(summary = "Delete a data store by ID")
+  @Operation(
+      summary = "Delete a data store by ID",
+      description =
+          "Removes the data store at once and deletes its records in the background. Follow the"
+              + " progress at the returned location")
   @ApiResponses({
-    @ApiResponse(responseCode = "204", description = "Data store deleted"),
-    @ApiResponse(responseCode = "409", description = "Cannot delete due to related records")
+    @ApiResponse(
+        responseCode = "202",
+        description = "Data store deleted; records are being deleted",
+        content = @Content(schema = @Schema(implementation = DataStoreDeletionDto.class))),
+    @ApiResponse(responseCode = "404", description = "Data store not found")
   })
   @DeleteMapping("/{id}")
-  public ResponseEntity<Void> delete(@PathVariable String id) {
-    if (!service.canDelete(id)) {
-      return ResponseEntity.status(409).build();
-    }
-    service.delete(id);
-    return ResponseEntity.noContent().build();
+  public ResponseEntity<DataStoreDeletionDto> delete(@PathVariable String id) {
+    return service
+        .delete(id)
+        .map(
+            deletion ->
+                ResponseEntity.accepted()
+                    .location(URI.create("/data-stores/" + id + "/deletion"))
+                    .body(deletion))
+        .orElse(ResponseEntity.notFound().build());
+  }
+
+  @Operation(summary = "Get the progress of a data store deletion")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "Deletion progress",
+        content = @Content(schema = @Schema(implementation = DataStoreDeletionDto.class))),
+    @ApiResponse(responseCode = "404", description = "No deletion of this data store is known")
+  })
+  @GetMapping("/{id}/deletion")
+  public ResponseEntity<DataStoreDeletionDto> deletion(@PathVariable String id) {
+    return service
+        .getDeletion(id)
+        .map(ResponseEntity::ok)
+        .orElse(ResponseEntity.notFound().build());
   }
 
   @Operation(summary = "Delete a record by ID in a specific data store")
@@ -153,7 +476,10 @@ public class DataStoreController {
   }
 
   private DataStoreDto toDto(DataStore entity) {
-    var records = service.recordsCount(entity.id());
+    return toDto(entity, service.recordsCount(entity.id()));
+  }
+
+  private DataStoreDto toDto(DataStore entity, Long records) {
     return new DataStoreDto(
         entity.id(),
         entity.name(),
@@ -165,6 +491,11 @@ public class DataStoreController {
 
   private DataStoreRecordDto toRecordDto(DataStoreRecord entity) {
     return new DataStoreRecordDto(
-        entity.id(), entity.name(), entity.createdAt(), entity.updatedAt(), entity.record());
+        entity.id(),
+        entity.name(),
+        entity.createdAt(),
+        entity.updatedAt(),
+        entity.record(),
+        entity.version() != null ? entity.version() : 0L);
   }
 }
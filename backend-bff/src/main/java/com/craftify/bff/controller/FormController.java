@@ -1,18 +1,12 @@
 package com.craftify.bff.controller;
 
-import com.craftify.bff.config.EventProducerConfig;
+import com.craftify.bff.dto.EventSubmissionDto;
 import com.craftify.bff.dto.UserFormDto;
-import com.craftify.bff.model.Event;
 import com.craftify.bff.model.Form;
 import com.craftify.bff.service.AuthentificationService;
+import com.craftify.bff.service.EventSubmitter;
 import com.craftify.bff.service.UserFormService;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.util.Map;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
@@ -25,7 +19,6 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.util.UriComponentsBuilder;
 
 @RestController
 @RequestMapping("/forms")
@@ -33,21 +26,15 @@ import org.springframework.web.util.UriComponentsBuilder;
 public class FormController {
   private final AuthentificationService authentificationService;
   private final UserFormService userFormService;
-  private final HttpClient httpClient;
-  private final EventProducerConfig eventProducerConfig;
-  private final ObjectMapper objectMapper;
+  private final EventSubmitter eventSubmitter;
 
   public FormController(
       AuthentificationService authentificationService,
       UserFormService userFormService,
-      HttpClient httpClient,
-      EventProducerConfig eventProducerConfig,
-      ObjectMapper objectMapper) {
+      EventSubmitter eventSubmitter) {
     this.authentificationService = authentificationService;
     this.userFormService = userFormService;
-    this.httpClient = httpClient;
-    this.eventProducerConfig = eventProducerConfig;
-    this.objectMapper = objectMapper;
+    this.eventSubmitter = eventSubmitter;
   }
 
   @GetMapping("/")
@@ -76,12 +63,17 @@ public class FormController {
   }
 
   @PostMapping("/{id}/submit")
-  public ResponseEntity<UserFormDto> submit(
+  public ResponseEntity<EventSubmissionDto> submit(
       @PathVariable String id, @RequestBody Map<String, Object> dto) {
     var currentUserId = authentificationService.getCurrentUserId();
     dto.put("FORM_ID", id);
-    eventProducerRequest(new Event("FORM_SUBMIT", currentUserId, dto));
-    return ResponseEntity.ok().build();
+    return eventSubmitter
+        .submit("FORM_SUBMIT", currentUserId, dto)
+        .map(eventId -> ResponseEntity.accepted().body(new EventSubmissionDto(eventId)))
+        .orElse(
+            ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header("Retry-After", "1")
+                .build());
   }
 
   @DeleteMapping("/{id}")
@@ -101,32 +93,4 @@ public class FormController {
     return new UserFormDto(
         entity.id(), entity.name(), entity.createdAt(), entity.updatedAt(), entity.fields());
   }
-
-  private void eventProducerRequest(Event event) {
-    try {
-      var uri =
-          UriComponentsBuilder.newInstance()
-              .uri(URI.create(eventProducerConfig.getHost()))
-              .pathSegment(eventProducerConfig.getPath())
-              .build()
-              .toUri();
-
-      var json = objectMapper.writeValueAsString(event);
-      final HttpRequest request =
-          HttpRequest.newBuilder()
-              .POST(HttpRequest.BodyPublishers.ofString(json))
-              .uri(uri)
-              .header("Content-Type", "application/json")
-              .build();
-
-      var response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-
-      if (response.statusCode() != 200) {
-        throw new RuntimeException(
-            "An error occurred when trying to submit user form: " + response.body());
-      }
-    } catch (IOException | InterruptedException e) {
-      throw new RuntimeException("Failed to send event: " + e.getMessage(), e);
-    }
-  }
 }
@@ -1,8 +1,20 @@
 package com.craftify.bff.controller;
 
+import com.craftify.bff.dto.CompleteMultipartUploadRequestDto;
 import com.craftify.bff.dto.CreateTextFileRequestDto;
-import com.craftify.bff.dto.FileItemDto;
+import com.craftify.bff.dto.DeletePathResultDto;
+import com.craftify.bff.dto.FileListPageDto;
+import com.craftify.bff.dto.FileMetadataDto;
+import com.craftify.bff.dto.MultipartUploadDto;
+import com.craftify.bff.dto.PresignedUrlDto;
+import com.craftify.bff.dto.StorageUsageDto;
+import com.craftify.bff.dto.TextWindowUnit;
 import com.craftify.bff.dto.UpdateTextFileRequestDto;
+import com.craftify.bff.dto.UploadSessionDto;
+import com.craftify.bff.dto.UploadedPartDto;
+import com.craftify.bff.service.FolderArchive;
+import com.craftify.bff.service.TextViewService;
+import com.craftify.bff.service.TextWindow;
 import com.craftify.bff.service.UserStorageService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,24 +23,33 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Paths;
+import java.time.Instant;
 import java.util.List;
-import org.springframework.core.io.InputStreamResource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** REST controller for user-specific file operations on MinIO. */
 @RestController
@@ -38,28 +59,49 @@ import org.springframework.web.multipart.MultipartFile;
     description = "Operations for managing user-specific files and folders in MinIO")
 public class UserStorageController {
 
+  /** Size of the buffer used to copy file content to the response. */
+  private static final int DOWNLOAD_BUFFER_SIZE = 64 * 1024;
+
+  private static final MediaType TEXT_PLAIN_UTF8 =
+      new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8);
+
+  private static final int DEFAULT_WINDOW_BYTES = 64 * 1024;
+
+  private static final int DEFAULT_WINDOW_LINES = 200;
+
   private final UserStorageService userStorageService;
+  private final TextViewService textViewService;
 
-  public UserStorageController(UserStorageService userStorageService) {
+  public UserStorageController(
+      UserStorageService userStorageService, TextViewService textViewService) {
     this.userStorageService = userStorageService;
+    this.textViewService = textViewService;
   }
 
   @Operation(
       summary = "List user files",
-      description = "Lists files and folders in a user's specified directory")
+      description =
+          "Lists one page of files and folders in a user's specified directory. Pass the returned"
+              + " continuation token to fetch the next page")
   @ApiResponse(
       responseCode = "200",
-      description = "List of files",
+      description = "Page of files",
       content =
           @Content(
               mediaType = "application/json",
-              schema = @Schema(implementation = FileItemDto.class)))
+              schema = @Schema(implementation = FileListPageDto.class)))
   @GetMapping("/list")
-  public ResponseEntity<List<FileItemDto>> listUserFiles(
+  public ResponseEntity<FileListPageDto> listUserFiles(
       @Parameter(description = "Folder path relative to user root", example = "subfolder/")
           @RequestParam(required = false, defaultValue = "")
-          String folder) {
-    var files = userStorageService.listUserFolder(folder);
+          String folder,
+      @Parameter(description = "Continuation token returned with the previous page")
+          @RequestParam(required = false)
+          String continuationToken,
+      @Parameter(description = "Maximum number of entries per page (up to 1000)")
+          @RequestParam(defaultValue = "1000")
+          int pageSize) {
+    var files = userStorageService.listUserFolder(folder, continuationToken, pageSize);
     return ResponseEntity.ok(files);
   }
 
@@ -77,8 +119,10 @@ public class UserStorageController {
   }
 
   @Operation(
-      summary = "Upload file",
-      description = "Uploads a file to the authenticated user's folder")
+      summary = "Upload files",
+      description =
+          "Uploads one or more files to the authenticated user's folder. Large files are sent to"
+              + " storage as parallel multipart uploads")
   @ApiResponses({
     @ApiResponse(responseCode = "200", description = "File uploaded successfully"),
     @ApiResponse(responseCode = "400", description = "Invalid input", content = @Content)
@@ -91,52 +135,224 @@ public class UserStorageController {
       @Parameter(description = "Target folder path", required = true) @RequestParam("folder")
           String folder,
       @Parameter(
-              description = "File to upload",
+              description = "Files to upload",
               required = true,
               content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE))
-          @RequestPart
-          MultipartFile file) {
+          @RequestPart("file")
+          List<MultipartFile> files) {
 
-    userStorageService.uploadUserFile(folder, file);
-    return ResponseEntity.ok("File uploaded successfully: " + file.getOriginalFilename());
+    userStorageService.uploadUserFiles(folder, files);
+    return ResponseEntity.ok(
+        "File uploaded successfully: "
+            + String.join(", ", files.stream().map(MultipartFile::getOriginalFilename).toList()));
   }
 
-  @Operation(summary = "Download file", description = "Downloads a file by its full path")
+  @Operation(
+      summary = "Download file",
+      description =
+          "Downloads a file by its full path. Supports single byte ranges (Range/If-Range) and"
+              + " conditional requests (If-None-Match/If-Modified-Since)")
   @ApiResponses({
     @ApiResponse(
         responseCode = "200",
         description = "File returned as attachment",
         content = @Content(mediaType = MediaType.APPLICATION_OCTET_STREAM_VALUE)),
-    @ApiResponse(responseCode = "404", description = "File not found")
+    @ApiResponse(responseCode = "206", description = "Requested byte range returned"),
+    @ApiResponse(responseCode = "304", description = "File not modified"),
+    @ApiResponse(responseCode = "404", description = "File not found"),
+    @ApiResponse(responseCode = "416", description = "Requested range not satisfiable")
   })
   @GetMapping("/download")
   public ResponseEntity<?> downloadFile(
-      @Parameter(description = "Full file path", required = true) @RequestParam String fullPath) {
+      @Parameter(description = "Full file path", required = true) @RequestParam String fullPath,
+      @RequestHeader HttpHeaders headers) {
+    FileMetadataDto metadata;
     try {
-      var fileStream = userStorageService.downloadUserFile(fullPath);
-      var resource = new InputStreamResource(fileStream);
-      var filename = Paths.get(fullPath).getFileName().toString();
+      metadata = userStorageService.statUserFile(fullPath);
+    } catch (RuntimeException e) {
+      return ResponseEntity.status(404).body("File not found: " + e.getMessage());
+    }
 
-      return ResponseEntity.ok()
-          .header("Content-Disposition", "attachment; filename=\"" + filename + "\"")
-          .contentType(MediaType.APPLICATION_OCTET_STREAM)
-          .body(resource);
+    var etag = "\"" + metadata.etag() + "\"";
+    if (isNotModified(headers, etag, metadata.lastModified())) {
+      var notModified = ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag);
+      if (metadata.lastModified() != null) {
+        notModified.lastModified(metadata.lastModified());
+      }
+      return notModified.build();
+    }
+
+    long size = metadata.size();
+    long start = 0;
+    long end = size - 1;
+    boolean partial = false;
+    try {
+      List<HttpRange> ranges = headers.getRange();
+      if (ranges.size() == 1 && ifRangeMatches(headers, etag, metadata.lastModified())) {
+        start = ranges.get(0).getRangeStart(size);
+        end = ranges.get(0).getRangeEnd(size);
+        partial = true;
+      }
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+          .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+          .build();
+    }
+    long length = end - start + 1;
 
+    InputStream fileStream;
+    try {
+      fileStream =
+          length > 0
+              ? userStorageService.downloadUserFile(fullPath, start, length, metadata.etag())
+              : InputStream.nullInputStream();
     } catch (RuntimeException e) {
       return ResponseEntity.status(404).body("File not found: " + e.getMessage());
     }
+
+    var filename = Paths.get(fullPath).getFileName().toString();
+    var contentType =
+        metadata.contentType() != null
+            ? MediaType.parseMediaType(metadata.contentType())
+            : MediaType.APPLICATION_OCTET_STREAM;
+    var response =
+        ResponseEntity.status(partial ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+            .header(
+                HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment()
+                    .filename(filename, StandardCharsets.UTF_8)
+                    .build()
+                    .toString())
+            .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+            .eTag(etag)
+            .contentType(contentType)
+            .contentLength(length);
+    if (metadata.lastModified() != null) {
+      response.lastModified(metadata.lastModified());
+    }
+    if (partial) {
+      response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+    }
+
+    StreamingResponseBody body =
+        outputStream -> {
+          try (fileStream) {
+            copy(fileStream, outputStream);
+          }
+        };
+    return response.body(body);
+  }
+
+  private static void copy(InputStream in, OutputStream out) throws IOException {
+    byte[] buffer = new byte[DOWNLOAD_BUFFER_SIZE];
+    int read;
+    while ((read = in.read(buffer)) != -1) {
+      out.write(buffer, 0, read);
+    }
+  }
+
+  private static boolean isNotModified(HttpHeaders headers, String etag, Instant lastModified) {
+    List<String> ifNoneMatch = headers.getIfNoneMatch();
+    if (!ifNoneMatch.isEmpty()) {
+      return ifNoneMatch.stream().anyMatch(candidate -> etagMatches(candidate, etag));
+    }
+    long ifModifiedSince = headers.getIfModifiedSince();
+    return ifModifiedSince >= 0
+        && lastModified != null
+        && lastModified.getEpochSecond() <= ifModifiedSince / 1000;
+  }
+
+  private static boolean ifRangeMatches(HttpHeaders headers, String etag, Instant lastModified) {
+    String ifRange = headers.getFirst(HttpHeaders.IF_RANGE);
+    if (ifRange == null) {
+      return true;
+    }
+    if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+      // Weak validators cannot be used for range requests.
+      return ifRange.equals(etag);
+    }
+    try {
+      long since = headers.getFirstDate(HttpHeaders.IF_RANGE);
+      return lastModified != null && lastModified.getEpochSecond() <= since / 1000;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private static boolean etagMatches(String candidate, String etag) {
+    String trimmed = candidate.trim();
+    if (trimmed.equals("*")) {
+      return true;
+    }
+    return (trimmed.startsWith("W/") ? trimmed.substring(2) : trimmed).equals(etag);
+  }
+
+  @Operation(
+      summary = "Get storage usage",
+      description =
+          "Returns the storage used by the authenticated user, in total and per top-level folder,"
+              + " together with the quota")
+  @ApiResponse(responseCode = "200", description = "Storage usage")
+  @GetMapping("/usage")
+  public ResponseEntity<StorageUsageDto> getUsage() {
+    return ResponseEntity.ok(userStorageService.getUserUsage());
+  }
+
+  @Operation(
+      summary = "Download folder",
+      description =
+          "Streams a folder and everything below it as a ZIP archive; a blank path archives the"
+              + " whole namespace")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Archive stream"),
+    @ApiResponse(responseCode = "400", description = "Invalid path", content = @Content),
+    @ApiResponse(responseCode = "404", description = "Folder not found", content = @Content)
+  })
+  @GetMapping("/download-folder")
+  public ResponseEntity<?> downloadFolder(
+      @Parameter(description = "Folder path") @RequestParam(required = false) String path) {
+    FolderArchive archive;
+    try {
+      archive = userStorageService.archiveUserFolder(path);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    } catch (RuntimeException e) {
+      return ResponseEntity.status(404).body("Folder not found: " + e.getMessage());
+    }
+
+    StreamingResponseBody body = archive::writeTo;
+    return ResponseEntity.ok()
+        .header(
+            HttpHeaders.CONTENT_DISPOSITION,
+            ContentDisposition.attachment()
+                .filename(archive.fileName(), StandardCharsets.UTF_8)
+                .build()
+                .toString())
+        .contentType(MediaType.parseMediaType("application/zip"))
+        .body(body);
   }
 
   @Operation(
       summary = "Delete file or folder",
       description = "Deletes a file or folder for the user")
-  @ApiResponse(responseCode = "200", description = "Deleted successfully")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "Deleted successfully",
+        content = @Content(schema = @Schema(implementation = DeletePathResultDto.class))),
+    @ApiResponse(
+        responseCode = "207",
+        description = "Some objects could not be deleted",
+        content = @Content(schema = @Schema(implementation = DeletePathResultDto.class)))
+  })
   @DeleteMapping("/delete")
-  public ResponseEntity<String> deletePath(
+  public ResponseEntity<DeletePathResultDto> deletePath(
       @Parameter(description = "Path of file or folder to delete", required = true) @RequestParam
           String path) {
-    userStorageService.deleteUserPath(path);
-    return ResponseEntity.ok("Deleted successfully: " + path);
+    var result = userStorageService.deleteUserPath(path);
+    return result.failures().isEmpty()
+        ? ResponseEntity.ok(result)
+        : ResponseEntity.status(HttpStatus.MULTI_STATUS).body(result);
   }
 
   @Operation(
@@ -155,14 +371,68 @@ public class UserStorageController {
   @Operation(
       summary = "Get file content",
       description = "Returns the raw content of a file under the given path")
-  public ResponseEntity<String> getFileContent(@RequestParam("path") String path) {
-    try (InputStream stream = userStorageService.downloadUserFile(path)) {
-      String content = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
-      return ResponseEntity.ok(content);
+  public ResponseEntity<?> getFileContent(@RequestParam("path") String path) {
+    InputStream stream;
+    try {
+      stream = userStorageService.downloadUserFile(path);
     } catch (Exception e) {
       return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
           .body("Failed to read file content: " + e.getMessage());
     }
+    StreamingResponseBody body =
+        outputStream -> {
+          try (stream) {
+            copy(stream, outputStream);
+          }
+        };
+    return ResponseEntity.ok().contentType(TEXT_PLAIN_UTF8).body(body);
+  }
+
+  @GetMapping("/text")
+  @Operation(
+      summary = "View text file window",
+      description =
+          "Streams a window of a text file addressed in bytes or lines. In tail mode the window"
+              + " ends at the end of the file; for bytes the offset is then counted from the end."
+              + " Line windows count lines from the start of the file unless a start byte is"
+              + " given; to page through a large file, pass the X-Window-Start of the previous"
+              + " window plus its length as start, with offset 0, so each window is one bounded"
+              + " read. The file size and window start are returned in the X-File-Size and"
+              + " X-Window-Start headers")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "Window content",
+        content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE)),
+    @ApiResponse(responseCode = "400", description = "Invalid window or file not found")
+  })
+  public ResponseEntity<StreamingResponseBody> viewTextFile(
+      @Parameter(description = "File path", required = true) @RequestParam String path,
+      @Parameter(description = "Unit of offset and limit") @RequestParam(defaultValue = "BYTES")
+          TextWindowUnit unit,
+      @Parameter(description = "Bytes or lines to skip") @RequestParam(defaultValue = "0")
+          long offset,
+      @Parameter(description = "Maximum bytes or lines in the window")
+          @RequestParam(required = false)
+          Integer limit,
+      @Parameter(description = "Whether the window ends at the end of the file")
+          @RequestParam(defaultValue = "false")
+          boolean tail,
+      @Parameter(description = "Byte offset of the line that forward line windows count from")
+          @RequestParam(required = false)
+          Long start) {
+    TextWindow window =
+        unit == TextWindowUnit.LINES
+            ? textViewService.openLines(
+                path, offset, limit != null ? limit : DEFAULT_WINDOW_LINES, tail, start)
+            : textViewService.openBytes(
+                path, offset, limit != null ? limit : DEFAULT_WINDOW_BYTES, tail);
+
+    return ResponseEntity.ok()
+        .contentType(TEXT_PLAIN_UTF8)
+        .header("X-File-Size", String.valueOf(window.fileSize()))
+        .header("X-Window-Start", String.valueOf(window.start()))
+        .body(window::writeTo);
   }
 
   @PostMapping("/create-text-file")
@@ -198,4 +468,193 @@ public class UserStorageController {
     userStorageService.putTextFile(request.path(), request.content());
     return ResponseEntity.ok("Text file updated successfully at path: " + request.path());
   }
+
+  @Operation(
+      summary = "Presign file upload",
+      description =
+          "Returns a short-lived URL the client can PUT the file content to directly; the upload"
+              + " is then completed with /presigned/upload/complete. Available only when presigned"
+              + " URL mode is enabled")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "Presigned URL created",
+        content = @Content(schema = @Schema(implementation = PresignedUrlDto.class))),
+    @ApiResponse(responseCode = "409", description = "Presigned URL mode is disabled")
+  })
+  @PostMapping("/presigned/upload")
+  public ResponseEntity<PresignedUrlDto> presignUpload(
+      @Parameter(description = "Target file path", required = true) @RequestParam String path) {
+    return ResponseEntity.ok(userStorageService.presignUpload(path));
+  }
+
+  @Operation(
+      summary = "Complete presigned file upload",
+      description =
+          "Turns the content uploaded to a presigned upload URL into the file, once the quota has"
+              + " been checked. Content over the quota is discarded")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Upload completed"),
+    @ApiResponse(responseCode = "409", description = "Quota exceeded or presigned mode disabled")
+  })
+  @PostMapping("/presigned/upload/complete")
+  public ResponseEntity<String> completePresignedUpload(
+      @Parameter(description = "Target file path", required = true) @RequestParam String path) {
+    userStorageService.completePresignedUpload(path);
+    return ResponseEntity.ok("File uploaded successfully: " + path);
+  }
+
+  @Operation(
+      summary = "Presign file download",
+      description =
+          "Returns a short-lived URL the client can GET the file content from directly. Available"
+              + " only when presigned URL mode is enabled")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "Presigned URL created",
+        content = @Content(schema = @Schema(implementation = PresignedUrlDto.class))),
+    @ApiResponse(responseCode = "409", description = "Presigned URL mode is disabled")
+  })
+  @GetMapping("/presigned/download")
+  public ResponseEntity<PresignedUrlDto> presignDownload(
+      @Parameter(description = "Full file path", required = true) @RequestParam String fullPath) {
+    return ResponseEntity.ok(userStorageService.presignDownload(fullPath));
+  }
+
+  @Operation(
+      summary = "Start presigned multipart upload",
+      description =
+          "Starts a multipart upload and returns presigned URLs for each part, for files larger"
+              + " than the regular upload limit")
+  @ApiResponses({
+    @ApiResponse(
+        responseCode = "200",
+        description = "Multipart upload started",
+        content = @Content(schema = @Schema(implementation = MultipartUploadDto.class))),
+    @ApiResponse(responseCode = "409", description = "Presigned URL mode is disabled")
+  })
+  @PostMapping("/presigned/multipart")
+  public ResponseEntity<MultipartUploadDto> createMultipartUpload(
+      @Parameter(description = "Target file path", required = true) @RequestParam String path,
+      @Parameter(description = "Number of parts", required = true) @RequestParam int partCount,
+      @Parameter(description = "Content type of the file") @RequestParam(required = false)
+          String contentType) {
+    return ResponseEntity.ok(
+        userStorageService.createMultipartUpload(path, contentType, partCount));
+  }
+
+  @Operation(
+      summary = "Refresh presigned part URLs",
+      description = "Issues new presigned part URLs for an unfinished multipart upload")
+  @ApiResponse(
+      responseCode = "200",
+      description = "Part URLs created",
+      content = @Content(schema = @Schema(implementation = MultipartUploadDto.class)))
+  @GetMapping("/presigned/multipart/parts")
+  public ResponseEntity<MultipartUploadDto> presignUploadParts(
+      @Parameter(description = "Target file path", required = true) @RequestParam String path,
+      @Parameter(description = "Multipart upload id", required = true) @RequestParam
+          String uploadId,
+      @Parameter(description = "Number of parts", required = true) @RequestParam int partCount) {
+    return ResponseEntity.ok(userStorageService.presignUploadParts(path, uploadId, partCount));
+  }
+
+  @Operation(
+      summary = "Complete presigned multipart upload",
+      description = "Assembles the uploaded parts into the final file")
+  @ApiResponse(responseCode = "200", description = "Multipart upload completed")
+  @PostMapping("/presigned/multipart/complete")
+  public ResponseEntity<String> completeMultipartUpload(
+      @RequestBody CompleteMultipartUploadRequestDto request) {
+    userStorageService.completeMultipartUpload(request.path(), request.uploadId(), request.parts());
+    return ResponseEntity.ok("File uploaded successfully: " + request.path());
+  }
+
+  @Operation(
+      summary = "Abort presigned multipart upload",
+      description = "Aborts a multipart upload and discards its uploaded parts")
+  @ApiResponse(responseCode = "204", description = "Multipart upload aborted")
+  @DeleteMapping("/presigned/multipart")
+  public ResponseEntity<Void> abortMultipartUpload(
+      @Parameter(description = "Target file path", required = true) @RequestParam String path,
+      @Parameter(description = "Multipart upload id", required = true) @RequestParam
+          String uploadId) {
+    userStorageService.abortMultipartUpload(path, uploadId);
+    return ResponseEntity.noContent().build();
+  }
+
+  @Operation(
+      summary = "Start resumable upload",
+      description =
+          "Starts a resumable upload session. Parts of the returned part size are then uploaded"
+              + " one request at a time and can be retried or resumed after a reconnect")
+  @ApiResponse(responseCode = "200", description = "Upload session started")
+  @PostMapping("/uploads")
+  public ResponseEntity<UploadSessionDto> createUploadSession(
+      @Parameter(description = "Target file path", required = true) @RequestParam String path,
+      @Parameter(description = "Content type of the file") @RequestParam(required = false)
+          String contentType) {
+    return ResponseEntity.ok(userStorageService.createUploadSession(path, contentType));
+  }
+
+  @Operation(
+      summary = "Get resumable upload",
+      description = "Returns the parts already stored for a resumable upload session")
+  @ApiResponse(responseCode = "200", description = "Upload session state")
+  @GetMapping("/uploads/{uploadId}")
+  public ResponseEntity<UploadSessionDto> getUploadSession(
+      @PathVariable String uploadId,
+      @Parameter(description = "Target file path", required = true) @RequestParam String path) {
+    return ResponseEntity.ok(userStorageService.getUploadSession(path, uploadId));
+  }
+
+  @Operation(
+      summary = "Upload part",
+      description =
+          "Uploads one part of a resumable upload session. An optional Content-MD5 header is"
+              + " verified before the part is stored")
+  @ApiResponses({
+    @ApiResponse(responseCode = "200", description = "Part stored"),
+    @ApiResponse(
+        responseCode = "400",
+        description = "Part too large or checksum mismatch",
+        content = @Content)
+  })
+  @PutMapping(
+      path = "/uploads/{uploadId}/parts/{partNumber}",
+      consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  public ResponseEntity<UploadedPartDto> uploadPart(
+      @PathVariable String uploadId,
+      @PathVariable int partNumber,
+      @Parameter(description = "Target file path", required = true) @RequestParam String path,
+      @RequestHeader(value = "Content-MD5", required = false) String contentMd5,
+      InputStream content) {
+    return ResponseEntity.ok(
+        userStorageService.uploadSessionPart(path, uploadId, partNumber, content, contentMd5));
+  }
+
+  @Operation(
+      summary = "Complete resumable upload",
+      description = "Assembles the stored parts of a resumable upload into the final file")
+  @ApiResponse(responseCode = "200", description = "Upload completed")
+  @PostMapping("/uploads/{uploadId}/complete")
+  public ResponseEntity<String> completeUploadSession(
+      @PathVariable String uploadId,
+      @Parameter(description = "Target file path", required = true) @RequestParam String path) {
+    userStorageService.completeUploadSession(path, uploadId);
+    return ResponseEntity.ok("File uploaded successfully: " + path);
+  }
+
+  @Operation(
+      summary = "Abort resumable upload",
+      description = "Aborts a resumable upload session and discards its stored parts")
+  @ApiResponse(responseCode = "204", description = "Upload aborted")
+  @DeleteMapping("/uploads/{uploadId}")
+  public ResponseEntity<Void> abortUploadSession(
+      @PathVariable String uploadId,
+      @Parameter(description = "Target file path", required = true) @RequestParam String path) {
+    userStorageService.abortUploadSession(path, uploadId);
+    return ResponseEntity.noContent().build();
+  }
 }
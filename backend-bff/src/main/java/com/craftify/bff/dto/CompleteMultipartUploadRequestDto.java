@@ -0,0 +1,6 @@
+package com.craftify.bff.dto;
+
+import java.util.List;
+
+public record CompleteMultipartUploadRequestDto(
+    String path, String uploadId, List<UploadedPartDto> parts) {}
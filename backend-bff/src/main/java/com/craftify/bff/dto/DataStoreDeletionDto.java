@@ -0,0 +1,21 @@
+package com.craftify.bff.dto;
+
+import java.time.Instant;
+
+/**
+ * Data Transfer Object reporting the progress of a data store deletion.
+ *
+ * @param dataStoreId id of the deleted data store
+ * @param status {@code pending}, {@code running} or {@code done}
+ * @param deletedRecords number of records deleted so far
+ * @param totalRecords number of records the data store held when its deletion was requested
+ * @param createdAt when the deletion was requested
+ * @param finishedAt when the last record was deleted, or null while the deletion runs
+ */
+public record DataStoreDeletionDto(
+    String dataStoreId,
+    String status,
+    long deletedRecords,
+    long totalRecords,
+    Instant createdAt,
+    Instant finishedAt) {}
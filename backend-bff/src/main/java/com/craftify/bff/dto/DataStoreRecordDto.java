@@ -4,4 +4,9 @@ import java.time.Instant;
 import java.util.Map;
 
 public record DataStoreRecordDto(
-    String id, String name, Instant createdAt, Instant updatedAt, Map<String, Object> record) {}
+    String id,
+    String name,
+    Instant createdAt,
+    Instant updatedAt,
+    Map<String, Object> record,
+    Long version) {}
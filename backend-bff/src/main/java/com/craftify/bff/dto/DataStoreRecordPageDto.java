@@ -0,0 +1,13 @@
+package com.craftify.bff.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object holding one page of data store records, newest first unless a query sorts
+ * them otherwise.
+ *
+ * @param items the records on this page
+ * @param nextContinuationToken opaque token for the next page, or null if this is the last page
+ */
+public record DataStoreRecordPageDto(
+    List<DataStoreRecordDto> items, String nextContinuationToken) {}
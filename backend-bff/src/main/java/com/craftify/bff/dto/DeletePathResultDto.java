@@ -0,0 +1,12 @@
+package com.craftify.bff.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object describing the outcome of a (possibly recursive) delete in user storage.
+ *
+ * @param path the path that was requested for deletion
+ * @param deleted the number of objects removed
+ * @param failures per-object failure messages reported by the delete batches; empty on success
+ */
+public record DeletePathResultDto(String path, long deleted, List<String> failures) {}
@@ -0,0 +1,8 @@
+package com.craftify.bff.dto;
+
+/**
+ * Data Transfer Object acknowledging an accepted event submission.
+ *
+ * @param eventId tracking id of the event, carried with it to the producer
+ */
+public record EventSubmissionDto(String eventId) {}
@@ -0,0 +1,11 @@
+package com.craftify.bff.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object holding one page of a folder listing.
+ *
+ * @param items the files and folders on this page
+ * @param nextContinuationToken opaque token for the next page, or null if this is the last page
+ */
+public record FileListPageDto(List<FileItemDto> items, String nextContinuationToken) {}
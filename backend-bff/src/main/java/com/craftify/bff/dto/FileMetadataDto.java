@@ -0,0 +1,15 @@
+package com.craftify.bff.dto;
+
+import java.time.Instant;
+
+/**
+ * Data Transfer Object describing a stored file without its content.
+ *
+ * @param fullPath the path of the file within the user's namespace
+ * @param size the size of the file in bytes
+ * @param etag the entity tag assigned by the object store, without surrounding quotes
+ * @param lastModified the timestamp of the last modification
+ * @param contentType the stored content type, or null if none was recorded
+ */
+public record FileMetadataDto(
+    String fullPath, long size, String etag, Instant lastModified, String contentType) {}
@@ -0,0 +1,15 @@
+package com.craftify.bff.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Data Transfer Object describing a multipart upload performed directly against object storage.
+ *
+ * @param fullPath the path of the target object within the user's namespace
+ * @param uploadId the identifier of the multipart upload session
+ * @param expiresAt the moment the part URLs stop being accepted
+ * @param parts the presigned URLs for each part
+ */
+public record MultipartUploadDto(
+    String fullPath, String uploadId, Instant expiresAt, List<PresignedPartUrlDto> parts) {}
@@ -0,0 +1,9 @@
+package com.craftify.bff.dto;
+
+/**
+ * Data Transfer Object carrying the presigned PUT URL for one part of a multipart upload.
+ *
+ * @param partNumber the 1-based part number
+ * @param url the presigned URL the part must be uploaded to
+ */
+public record PresignedPartUrlDto(int partNumber, String url) {}
@@ -0,0 +1,13 @@
+package com.craftify.bff.dto;
+
+import java.time.Instant;
+
+/**
+ * Data Transfer Object carrying a presigned URL that grants temporary direct access to one object.
+ *
+ * @param fullPath the path of the object within the user's namespace
+ * @param method the HTTP method the URL is signed for (e.g. GET or PUT)
+ * @param url the presigned URL
+ * @param expiresAt the moment the URL stops being accepted
+ */
+public record PresignedUrlDto(String fullPath, String method, String url, Instant expiresAt) {}
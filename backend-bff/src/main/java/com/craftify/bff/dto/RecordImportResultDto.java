@@ -0,0 +1,25 @@
+package com.craftify.bff.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object reporting the outcome of a bulk record import.
+ *
+ * @param received number of rows read from the input
+ * @param inserted number of records inserted
+ * @param failed number of rows that were rejected
+ * @param errors rejected rows, up to the configured report limit
+ * @param errorsTruncated whether more rows were rejected than listed in {@code errors}
+ */
+public record RecordImportResultDto(
+    long received, long inserted, long failed, List<RowErrorDto> errors, boolean errorsTruncated) {
+
+  /**
+   * A rejected input row.
+   *
+   * @param row 1-based line number for NDJSON, 1-based data row number for CSV
+   * @param name record name of the row, if it could be read
+   * @param message reason the row was rejected
+   */
+  public record RowErrorDto(long row, String name, String message) {}
+}
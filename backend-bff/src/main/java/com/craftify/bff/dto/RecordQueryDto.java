@@ -0,0 +1,40 @@
+package com.craftify.bff.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object describing a query over the records of a data store. Fields are addressed as
+ * {@code name}, {@code createdAt}, {@code updatedAt} or {@code record.<path>}, where the path uses
+ * dots to reach nested values.
+ *
+ * @param filters predicates that every returned record matches; null or empty matches all records
+ * @param sort sort keys in order of precedence; defaults to newest first
+ * @param fields {@code record.*} paths to return; null or empty returns whole records
+ * @param continuationToken token of the page to return, taken from the previous page of the same
+ *     query; null for the first page
+ * @param size maximum number of records on the page; defaults to 50
+ */
+public record RecordQueryDto(
+    List<FilterDto> filters,
+    List<SortDto> sort,
+    List<String> fields,
+    String continuationToken,
+    Integer size) {
+
+  /**
+   * A field predicate.
+   *
+   * @param field field to test
+   * @param op one of {@code eq, ne, gt, gte, lt, lte, in, nin, exists, contains}
+   * @param value operand; a list for {@code in} and {@code nin}, a boolean for {@code exists}
+   */
+  public record FilterDto(String field, String op, Object value) {}
+
+  /**
+   * A sort key.
+   *
+   * @param field field to sort by
+   * @param direction {@code asc} or {@code desc}; defaults to {@code asc}
+   */
+  public record SortDto(String field, String direction) {}
+}
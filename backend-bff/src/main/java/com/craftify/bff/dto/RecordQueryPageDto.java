@@ -0,0 +1,14 @@
+package com.craftify.bff.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object holding one page of records matching a query.
+ *
+ * @param items the records on this page
+ * @param page 0-based page number
+ * @param size requested page size
+ * @param hasNext whether another page follows
+ */
+public record RecordQueryPageDto(
+    List<DataStoreRecordDto> items, int page, int size, boolean hasNext) {}
@@ -0,0 +1,24 @@
+package com.craftify.bff.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object describing the storage used by the current user.
+ *
+ * @param bytes total size of the user's files in bytes
+ * @param objects total number of files
+ * @param quotaBytes storage quota in bytes, or 0 if unlimited
+ * @param folders usage per top-level folder; files in the root are listed under an empty name
+ */
+public record StorageUsageDto(
+    long bytes, long objects, long quotaBytes, List<FolderUsageDto> folders) {
+
+  /**
+   * Storage used within one top-level folder.
+   *
+   * @param folder the folder name
+   * @param bytes total size of the folder's files in bytes
+   * @param objects number of files in the folder
+   */
+  public record FolderUsageDto(String folder, long bytes, long objects) {}
+}
@@ -0,0 +1,11 @@
+package com.craftify.bff.dto;
+
+/** Enum representing the unit in which a text file window is addressed. */
+public enum TextWindowUnit {
+
+  /** Offset and limit are byte counts. */
+  BYTES,
+
+  /** Offset and limit are line counts. */
+  LINES
+}
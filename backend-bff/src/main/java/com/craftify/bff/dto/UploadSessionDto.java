@@ -0,0 +1,14 @@
+package com.craftify.bff.dto;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object describing a resumable upload session.
+ *
+ * @param fullPath the path of the target file within the user's namespace
+ * @param uploadId the identifier of the upload session
+ * @param partSize the size every part except the last must have, in bytes
+ * @param uploadedParts the parts already stored, ordered by part number
+ */
+public record UploadSessionDto(
+    String fullPath, String uploadId, long partSize, List<UploadedPartDto> uploadedParts) {}
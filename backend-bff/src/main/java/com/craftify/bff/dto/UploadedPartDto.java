@@ -0,0 +1,9 @@
+package com.craftify.bff.dto;
+
+/**
+ * Data Transfer Object identifying an uploaded part of a multipart upload.
+ *
+ * @param partNumber the 1-based part number
+ * @param etag the entity tag returned by object storage for the part
+ */
+public record UploadedPartDto(int partNumber, String etag) {}
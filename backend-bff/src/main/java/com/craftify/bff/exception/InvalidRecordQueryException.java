@@ -0,0 +1,12 @@
+package com.craftify.bff.exception;
+
+/** Exception raised when a data store record query or index declaration is malformed. */
+public class InvalidRecordQueryException extends RuntimeException {
+  public InvalidRecordQueryException(String message) {
+    super(message);
+  }
+
+  public InvalidRecordQueryException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
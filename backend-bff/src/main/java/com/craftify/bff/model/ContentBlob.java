@@ -0,0 +1,20 @@
+package com.craftify.bff.model;
+
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A deduplicated content blob stored once under its SHA-256 hash, with the number of user files
+ * pointing to it. A blob whose last reference was released at {@code releasedAt} is removed after a
+ * grace period; {@code deleting} is set while its object is being removed.
+ */
+@Document(collection = "content_blobs")
+public record ContentBlob(
+    @Id String hash,
+    long size,
+    long refs,
+    Instant createdAt,
+    Instant updatedAt,
+    Instant releasedAt,
+    boolean deleting) {}
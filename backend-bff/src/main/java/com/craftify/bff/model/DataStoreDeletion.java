@@ -0,0 +1,30 @@
+package com.craftify.bff.model;
+
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Progress of the background deletion of a data store and its records, keyed by the data store id.
+ * The job is claimed by one instance at a time through a lease, so it resumes on another instance
+ * after a restart. Finished jobs expire after a week through the TTL index declared in {@link
+ * com.craftify.bff.repository.ApplicationIndexes}.
+ */
+@Document(collection = "data_store_deletions")
+public record DataStoreDeletion(
+    @Id String dataStoreId,
+    String userId,
+    String status,
+    long deletedRecords,
+    long totalRecords,
+    String owner,
+    Instant leaseUntil,
+    Instant createdAt,
+    Instant updatedAt,
+    Instant finishedAt,
+    String error) {
+
+  public static final String PENDING = "pending";
+  public static final String RUNNING = "running";
+  public static final String DONE = "done";
+}
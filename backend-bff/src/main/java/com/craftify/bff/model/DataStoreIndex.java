@@ -0,0 +1,19 @@
+package com.craftify.bff.model;
+
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * A secondary index declared by a user on a {@code record.*} path of one data store. Data stores
+ * declaring the same path share one collection index, which is dropped with its last declaration.
+ * Unique per data store and path, see {@link com.craftify.bff.repository.ApplicationIndexes}.
+ */
+@Document(collection = "data_store_indexes")
+public record DataStoreIndex(
+    @Id String id,
+    String userId,
+    String dataStoreId,
+    String path,
+    String indexName,
+    Instant createdAt) {}
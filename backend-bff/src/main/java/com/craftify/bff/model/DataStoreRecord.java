@@ -1,16 +1,26 @@
 package com.craftify.bff.model;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
-import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+/**
+ * A record of a data store. Indexes of the collection are managed by {@link
+ * com.craftify.bff.repository.DataStoreRecordIndexes}.
+ *
+ * <p>{@code searchTerms} holds the tokenized name and values of the record and backs the record
+ * search; it is derived from the other fields on every write. {@code version} starts at 0 and is
+ * incremented by every update, for compare-and-set updates.
+ */
 @Document(collection = "data_store_records")
 public record DataStoreRecord(
     String id,
-    @Indexed(unique = true) String name,
+    String name,
     String dataStoreId,
     Instant createdAt,
     Instant updatedAt,
     Map<String, Object> record,
-    String userId) {}
+    String userId,
+    List<String> searchTerms,
+    Long version) {}
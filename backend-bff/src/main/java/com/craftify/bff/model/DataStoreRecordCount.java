@@ -0,0 +1,10 @@
+package com.craftify.bff.model;
+
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/** Maintained number of records of one data store, keyed by the data store id. */
+@Document(collection = "data_store_record_counts")
+public record DataStoreRecordCount(
+    @Id String dataStoreId, String userId, long count, Instant updatedAt) {}
@@ -9,4 +9,5 @@ public record DataStoreRecordDetails(
     Instant updatedAt,
     String dataStoreName,
     String viewerType,
-    Map<String, Object> recordData) {}
+    Map<String, Object> recordData,
+    long version) {}
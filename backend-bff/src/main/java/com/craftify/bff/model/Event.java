@@ -2,4 +2,12 @@ package com.craftify.bff.model;
 
 import java.util.Map;
 
-public record Event(String type, String userId, Map<String, Object> payload) {}
+/**
+ * Event submitted to the events producer API.
+ *
+ * @param id tracking id handed to the submitter
+ * @param type event type
+ * @param userId id of the user the event belongs to
+ * @param payload event payload
+ */
+public record Event(String id, String type, String userId, Map<String, Object> payload) {}
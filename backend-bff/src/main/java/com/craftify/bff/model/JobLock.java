@@ -0,0 +1,13 @@
+package com.craftify.bff.model;
+
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Lease on a background job that must run on one instance at a time, keyed by the job name. The
+ * lease is held by the owning instance until it expires. One-off jobs record when they completed,
+ * so no instance runs them again.
+ */
+@Document(collection = "job_locks")
+public record JobLock(@Id String name, String owner, Instant leaseUntil, Instant completedAt) {}
@@ -0,0 +1,25 @@
+package com.craftify.bff.model;
+
+import java.time.Instant;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * Storage used by one user, either in total or within one top-level folder. Files stored directly
+ * in the user root are accounted under the empty folder name. The version is incremented by every
+ * change, so a rescan only replaces usage that did not change while it ran. Unique per user and
+ * folder, see {@link com.craftify.bff.repository.ApplicationIndexes}.
+ */
+@Document(collection = "storage_usage")
+public record StorageUsage(
+    @Id String id,
+    String userId,
+    String folder,
+    long bytes,
+    long objects,
+    long version,
+    Instant updatedAt) {
+
+  /** Folder value of the document holding a user's total; never a valid folder name. */
+  public static final String TOTAL = "/";
+}
@@ -0,0 +1,87 @@
+package com.craftify.bff.repository;
+
+import com.craftify.bff.model.DataStoreDeletion;
+import com.craftify.bff.model.DataStoreIndex;
+import com.craftify.bff.model.StorageUsage;
+import com.mongodb.MongoCommandException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the unique indexes the storage usage and data store index collections rely on, and the
+ * TTL index expiring finished data store deletions, at startup. Index creation from mapping
+ * annotations is not enabled, so these indexes are declared here the same way as {@link
+ * DataStoreRecordIndexes} declares those of the records.
+ *
+ * <p>Duplicate storage usage documents, left by concurrent upserts before the index existed, are
+ * removed before the index is created; the usage of the affected users is rebuilt by the next
+ * reconciliation.
+ */
+@Component
+public class ApplicationIndexes implements ApplicationRunner {
+
+  private static final Logger logger = LoggerFactory.getLogger(ApplicationIndexes.class);
+
+  private final MongoTemplate mongoTemplate;
+
+  public ApplicationIndexes(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    removeDuplicateUsage();
+    ensure(
+        StorageUsage.class,
+        new Index().on("userId", Sort.Direction.ASC).on("folder", Sort.Direction.ASC).unique());
+    ensure(
+        DataStoreIndex.class,
+        new Index().on("dataStoreId", Sort.Direction.ASC).on("path", Sort.Direction.ASC).unique());
+    ensure(
+        DataStoreDeletion.class,
+        new Index().on("finishedAt", Sort.Direction.ASC).expire(Duration.ofDays(7)));
+  }
+
+  private void ensure(Class<?> entity, Index index) {
+    try {
+      mongoTemplate.indexOps(entity).createIndex(index);
+    } catch (DataIntegrityViolationException | MongoCommandException e) {
+      logger.error(
+          "Cannot create index {} on {}",
+          index.getIndexKeys().toJson(),
+          mongoTemplate.getCollectionName(entity),
+          e);
+    }
+  }
+
+  /** Removes every usage document of users holding several documents for the same folder. */
+  private void removeDuplicateUsage() {
+    var pipeline =
+        List.of(
+            new Document(
+                "$group",
+                new Document("_id", new Document("userId", "$userId").append("folder", "$folder"))
+                    .append("count", new Document("$sum", 1))),
+            new Document("$match", new Document("count", new Document("$gt", 1))),
+            new Document("$group", new Document("_id", "$_id.userId")));
+    var collection =
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(StorageUsage.class));
+    List<Object> userIds = new ArrayList<>();
+    collection.aggregate(pipeline).forEach(group -> userIds.add(group.get("_id")));
+    if (!userIds.isEmpty()) {
+      logger.warn("Removing duplicate storage usage of {} users", userIds.size());
+      collection.deleteMany(new Document("userId", new Document("$in", userIds)));
+    }
+  }
+}
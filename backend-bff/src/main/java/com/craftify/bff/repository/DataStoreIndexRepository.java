@@ -0,0 +1,19 @@
+package com.craftify.bff.repository;
+
+import com.craftify.bff.model.DataStoreIndex;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DataStoreIndexRepository extends MongoRepository<DataStoreIndex, String> {
+  List<DataStoreIndex> findAllByUserIdAndDataStoreId(String userId, String dataStoreId);
+
+  Optional<DataStoreIndex> findByUserIdAndDataStoreIdAndPath(
+      String userId, String dataStoreId, String path);
+
+  long countByUserIdAndDataStoreId(String userId, String dataStoreId);
+
+  boolean existsByPath(String path);
+}
@@ -0,0 +1,216 @@
+package com.craftify.bff.repository;
+
+import com.craftify.bff.model.DataStoreRecord;
+import com.mongodb.MongoCommandException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.UncategorizedMongoDbException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates and verifies the indexes of {@code data_store_records} at startup, before the application
+ * reports ready. Legacy indexes are dropped, indexes whose definition changed are rebuilt and the
+ * plans of the hot queries are checked for collection scans.
+ *
+ * <p>The indexes are managed here rather than through mapping annotations so that existing data
+ * which violates the unique name index is reported instead of failing application startup.
+ */
+@Component
+public class DataStoreRecordIndexes implements ApplicationRunner {
+
+  /** Index serving listing, counting and keyset pagination of the records of a store. */
+  public static final String KEYSET_INDEX = "records_keyset";
+
+  /** Multikey index on the search terms of the records of a store. */
+  public static final String SEARCH_INDEX = "records_search";
+
+  /** Unique, case-insensitive index on record names within a store. */
+  public static final String NAME_INDEX = "records_store_name_ci";
+
+  /** Collation of {@link #NAME_INDEX}; queries on names must use it to be served by the index. */
+  public static final String NAME_COLLATION = "{ 'locale': 'en', 'strength': 2 }";
+
+  /** Name of the legacy globally unique index on {@code name}. */
+  private static final String LEGACY_NAME_INDEX = "name";
+
+  private static final Logger logger = LoggerFactory.getLogger(DataStoreRecordIndexes.class);
+
+  private final MongoTemplate mongoTemplate;
+
+  public DataStoreRecordIndexes(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    IndexOperations indexOps = mongoTemplate.indexOps(DataStoreRecord.class);
+    List<IndexInfo> existing = indexOps.getIndexInfo();
+
+    if (existing.stream().anyMatch(index -> LEGACY_NAME_INDEX.equals(index.getName()))) {
+      logger.info("Dropping legacy index {} on data_store_records", LEGACY_NAME_INDEX);
+      indexOps.dropIndex(LEGACY_NAME_INDEX);
+    }
+
+    ensure(
+        indexOps,
+        existing,
+        new Index()
+            .on("userId", Sort.Direction.ASC)
+            .on("dataStoreId", Sort.Direction.ASC)
+            .on("updatedAt", Sort.Direction.DESC)
+            .on("_id", Sort.Direction.DESC)
+            .named(KEYSET_INDEX));
+    ensure(
+        indexOps,
+        existing,
+        new Index()
+            .on("userId", Sort.Direction.ASC)
+            .on("dataStoreId", Sort.Direction.ASC)
+            .on("searchTerms", Sort.Direction.ASC)
+            .named(SEARCH_INDEX));
+    try {
+      ensure(
+          indexOps,
+          existing,
+          new Index()
+              .on("userId", Sort.Direction.ASC)
+              .on("dataStoreId", Sort.Direction.ASC)
+              .on("name", Sort.Direction.ASC)
+              .unique()
+              .collation(
+                  Collation.of(Locale.ENGLISH).strength(Collation.ComparisonLevel.secondary()))
+              .named(NAME_INDEX));
+    } catch (DataIntegrityViolationException | MongoCommandException e) {
+      logger.error(
+          "Cannot create unique index {}: records with the same name ignoring case exist in"
+              + " these stores: {}. Rename or remove them and restart.",
+          NAME_INDEX,
+          findDuplicateNames(),
+          e);
+    }
+
+    verifyQueryPlans();
+  }
+
+  /** Creates an index, rebuilding an existing one with the same name if its definition differs. */
+  private void ensure(IndexOperations indexOps, List<IndexInfo> existing, Index index) {
+    Document definition = index.getIndexOptions();
+    String name = definition.getString("name");
+    existing.stream()
+        .filter(info -> name.equals(info.getName()))
+        .findFirst()
+        .filter(info -> !matches(info, index))
+        .ifPresent(
+            info -> {
+              logger.info("Rebuilding index {} on data_store_records", name);
+              indexOps.dropIndex(name);
+            });
+    indexOps.createIndex(index);
+  }
+
+  private static boolean matches(IndexInfo info, Index index) {
+    Document keys = index.getIndexKeys();
+    Document options = index.getIndexOptions();
+    List<String> fields = new ArrayList<>(keys.keySet());
+    return info.getIndexFields().stream().map(field -> field.getKey()).toList().equals(fields)
+        && info.isUnique() == options.getBoolean("unique", false)
+        && Objects.equals(
+            info.getCollation().map(collation -> collation.get("strength")).orElse(null),
+            options.get("collation", Document.class) != null
+                ? options.get("collation", Document.class).get("strength")
+                : null);
+  }
+
+  /** Lists stores holding several records whose names only differ by case. */
+  private List<Document> findDuplicateNames() {
+    var pipeline =
+        List.of(
+            new Document(
+                "$group",
+                new Document(
+                        "_id",
+                        new Document("userId", "$userId")
+                            .append("dataStoreId", "$dataStoreId")
+                            .append("name", new Document("$toLower", "$name")))
+                    .append("count", new Document("$sum", 1))),
+            new Document("$match", new Document("count", new Document("$gt", 1))),
+            new Document("$limit", 20));
+    return mongoTemplate
+        .getCollection(mongoTemplate.getCollectionName(DataStoreRecord.class))
+        .aggregate(pipeline)
+        .into(new ArrayList<>());
+  }
+
+  /** Logs a warning for each hot query whose winning plan scans the whole collection. */
+  private void verifyQueryPlans() {
+    var sample = new Document("userId", "").append("dataStoreId", "");
+    var nameCollation = Document.parse(NAME_COLLATION);
+    Map<String, Document> queries =
+        Map.of(
+            "list records",
+            new Document("filter", sample)
+                .append("sort", new Document("updatedAt", -1).append("_id", -1)),
+            "count records",
+            new Document("filter", sample),
+            "find record by name",
+            new Document("filter", new Document(sample).append("name", ""))
+                .append("collation", nameCollation)
+                .append("limit", 1),
+            "search records",
+            new Document(
+                "filter",
+                new Document(sample).append("searchTerms", new Document("$regex", "^a"))));
+
+    queries.forEach(
+        (query, find) -> {
+          try {
+            Document explain =
+                mongoTemplate
+                    .getDb()
+                    .runCommand(
+                        new Document(
+                                "explain",
+                                new Document(
+                                        "find",
+                                        mongoTemplate.getCollectionName(DataStoreRecord.class))
+                                    .append("filter", find.get("filter"))
+                                    .append("sort", find.get("sort"))
+                                    .append("collation", find.get("collation"))
+                                    .append("limit", find.get("limit")))
+                            .append("verbosity", "queryPlanner"));
+            Object plan = explain.get("queryPlanner", Document.class).get("winningPlan");
+            if (containsStage(plan, "COLLSCAN")) {
+              logger.warn("Query '{}' on data_store_records uses a collection scan", query);
+            }
+          } catch (MongoCommandException | UncategorizedMongoDbException e) {
+            logger.warn("Could not explain query '{}' on data_store_records", query, e);
+          }
+        });
+  }
+
+  private static boolean containsStage(Object plan, String stage) {
+    if (plan instanceof Document document) {
+      return stage.equals(document.get("stage"))
+          || document.values().stream().anyMatch(value -> containsStage(value, stage));
+    }
+    if (plan instanceof List<?> list) {
+      return list.stream().anyMatch(value -> containsStage(value, stage));
+    }
+    return false;
+  }
+}
@@ -1,22 +1,33 @@
 package com.craftify.bff.repository;
 
 import com.craftify.bff.model.DataStoreRecord;
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface DataStoreRecordsRepository extends MongoRepository<DataStoreRecord, String> {
 
-  Page<DataStoreRecord> findAllByUserIdAndDataStoreId(
-      String userId, String dataStoreId, Pageable pageable);
+  List<DataStoreRecord> findAllByUserIdAndDataStoreId(
+      String userId, String dataStoreId, Sort sort, Limit limit);
 
-  Optional<DataStoreRecord> findByIdAndUserId(String id, String userId);
+  @Query(
+      "{ 'userId': ?0, 'dataStoreId': ?1, '$or': ["
+          + " { 'updatedAt': { '$lt': ?2 } },"
+          + " { 'updatedAt': ?2, '_id': { '$lt': ?3 } } ] }")
+  List<DataStoreRecord> findAllByUserIdAndDataStoreIdAfter(
+      String userId, String dataStoreId, Instant updatedAt, ObjectId id, Sort sort, Limit limit);
 
-  Optional<Long> countByUserIdAndDataStoreId(String userId, String dataStoreId);
+  Optional<DataStoreRecord> findByIdAndUserIdAndDataStoreId(
+      String id, String userId, String dataStoreId);
+
+  long deleteByIdAndUserIdAndDataStoreId(String id, String userId, String dataStoreId);
 
-  boolean existsByUserIdAndDataStoreIdAndNameIgnoreCase(
-      String userId, String dataStoreId, String name);
+  Optional<Long> countByUserIdAndDataStoreId(String userId, String dataStoreId);
 }
@@ -0,0 +1,14 @@
+package com.craftify.bff.repository;
+
+import com.craftify.bff.model.StorageUsage;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StorageUsageRepository extends MongoRepository<StorageUsage, String> {
+  List<StorageUsage> findAllByUserId(String userId);
+
+  Optional<StorageUsage> findByUserIdAndFolder(String userId, String folder);
+}
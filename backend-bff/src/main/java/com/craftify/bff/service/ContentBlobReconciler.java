@@ -0,0 +1,165 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.MinioClientConfig;
+import com.craftify.bff.config.StorageConfig;
+import com.craftify.bff.model.ContentBlob;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.messages.Item;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recounts the references of deduplicated blobs from the pointers in object storage, correcting
+ * counts that drifted because an operation failed between writing objects and updating counts. A
+ * count is only corrected if the blob was not referenced or released since the release grace period
+ * before the scan started, so pointers written while the scan ran are never missed. Blobs found
+ * unreferenced are released and removed by the sweep of {@link ContentDedupStore}.
+ */
+@Component
+public class ContentBlobReconciler {
+
+  /** Name of the cluster-wide lease on the recount. */
+  private static final String LOCK = "content-blob-reconcile";
+
+  /** Number of listed objects between two pacing checks. */
+  private static final int PACE_STEP = 100;
+
+  private static final Logger logger = LoggerFactory.getLogger(ContentBlobReconciler.class);
+
+  private final MinioClient minioClient;
+  private final MongoTemplate mongoTemplate;
+  private final JobLockService jobLockService;
+  private final String bucketName;
+  private final int objectsPerSecond;
+  private final Duration releaseGrace;
+  private final Duration interval;
+
+  public ContentBlobReconciler(
+      MinioClient minioClient,
+      MongoTemplate mongoTemplate,
+      JobLockService jobLockService,
+      MinioClientConfig minioConfig,
+      StorageConfig config) {
+    this.minioClient = minioClient;
+    this.mongoTemplate = mongoTemplate;
+    this.jobLockService = jobLockService;
+    this.bucketName = minioConfig.getBucket();
+    this.objectsPerSecond = Math.max(1, config.getUsageReconcileRate());
+    this.releaseGrace = config.getDedupReleaseGrace();
+    this.interval = config.getDedupReconcileInterval();
+  }
+
+  /** Recounts the references of every blob, on one instance per interval. */
+  @Scheduled(
+      initialDelayString = "${storage.dedup-reconcile-initial-delay:30m}",
+      fixedDelayString = "${storage.dedup-reconcile-interval:24h}")
+  public void reconcile() {
+    if (mongoTemplate.estimatedCount(ContentBlob.class) == 0
+        || !jobLockService.tryAcquire(LOCK, interval)) {
+      return;
+    }
+    Instant started = Instant.now();
+    try {
+      Map<String, Long> references = countReferences();
+      int corrected = correct(references, started.minus(releaseGrace));
+      logger.info(
+          "Recounted references of content blobs in {} ms, corrected {}",
+          Duration.between(started, Instant.now()).toMillis(),
+          corrected);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      logger.error("Content blob reconciliation failed", e);
+    }
+  }
+
+  /** Lists every user object and counts the pointers per blob hash. */
+  private Map<String, Long> countReferences() throws Exception {
+    Map<String, Long> references = new HashMap<>();
+    long started = System.nanoTime();
+    long listed = 0;
+    for (Result<Item> result :
+        minioClient.listObjects(
+            ListObjectsArgs.builder()
+                .bucket(bucketName)
+                .recursive(true)
+                .includeUserMetadata(true)
+                .build())) {
+      Item item = result.get();
+      String hash =
+          item.objectName().startsWith(".")
+              ? null
+              : ContentDedupStore.blobHash(item.userMetadata());
+      if (hash != null) {
+        references.merge(hash, 1L, Long::sum);
+      }
+      if (++listed % PACE_STEP == 0) {
+        long due = started + TimeUnit.SECONDS.toNanos(listed) / objectsPerSecond;
+        TimeUnit.NANOSECONDS.sleep(due - System.nanoTime());
+      }
+    }
+    return references;
+  }
+
+  /** Corrects the counts of blobs not updated since the cutoff. */
+  private int correct(Map<String, Long> references, Instant cutoff) {
+    int corrected = 0;
+    try (var blobs =
+        mongoTemplate.stream(
+            Query.query(
+                new Criteria()
+                    .orOperator(
+                        Criteria.where("updatedAt").lt(cutoff),
+                        Criteria.where("updatedAt").exists(false))
+                    .and("deleting")
+                    .ne(true)),
+            ContentBlob.class)) {
+      for (ContentBlob blob : (Iterable<ContentBlob>) blobs::iterator) {
+        long actual = references.getOrDefault(blob.hash(), 0L);
+        if (actual == blob.refs()) {
+          continue;
+        }
+        Instant now = Instant.now();
+        Update update = new Update().set("refs", actual).set("updatedAt", now);
+        if (actual == 0) {
+          update.set("releasedAt", now);
+        } else {
+          update.unset("releasedAt");
+        }
+        var result =
+            mongoTemplate.updateFirst(
+                Query.query(
+                    Criteria.where("_id")
+                        .is(blob.hash())
+                        .and("updatedAt")
+                        .is(blob.updatedAt())
+                        .and("deleting")
+                        .ne(true)),
+                update,
+                ContentBlob.class);
+        if (result.getModifiedCount() > 0) {
+          logger.warn(
+              "Corrected references of content blob {} from {} to {}",
+              blob.hash(),
+              blob.refs(),
+              actual);
+          corrected++;
+        }
+      }
+    }
+    return corrected;
+  }
+}
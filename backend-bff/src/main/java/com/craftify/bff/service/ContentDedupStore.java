@@ -0,0 +1,388 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.MinioClientConfig;
+import com.craftify.bff.config.StorageConfig;
+import com.craftify.bff.model.ContentBlob;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import io.minio.StatObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import io.minio.messages.Item;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Content-addressed storage for user files. When enabled, file content is hashed with SHA-256 and
+ * stored once as a blob under {@value #BLOB_PREFIX}; the user's path holds an empty pointer object
+ * whose metadata names the blob and the logical size. Reference counts per blob live in MongoDB and
+ * a blob is removed once no pointer has referred to it for a grace period. Copying a pointer is a
+ * metadata-only operation.
+ *
+ * <p>Releasing the last reference only records when it happened. A periodic sweep removes the blob
+ * later, after atomically checking that it is still unreferenced and marking it as deleting; a
+ * concurrent write of the same content waits until the marked blob is gone and uploads it again, so
+ * it never takes a reference on a blob that is being removed.
+ *
+ * <p>Pointers are resolved on every read regardless of the setting, so deduplication can be turned
+ * off without losing access to files written while it was on.
+ */
+@Component
+public class ContentDedupStore {
+
+  /** Prefix of blob objects; never a valid user id. */
+  public static final String BLOB_PREFIX = ".blobs/sha256/";
+
+  private static final String HASH_KEY = "blob-sha256";
+  private static final String SIZE_KEY = "blob-size";
+  private static final String USER_METADATA_PREFIX = "x-amz-meta-";
+
+  /** Pause between two attempts to reference a blob that is being removed. */
+  private static final Duration DELETING_WAIT = Duration.ofMillis(100);
+
+  /** Attempts to reference a blob that is being removed before giving up. */
+  private static final int DELETING_ATTEMPTS = 100;
+
+  private static final Logger logger = LoggerFactory.getLogger(ContentDedupStore.class);
+
+  private final MinioClient minioClient;
+  private final MultipartUploadEngine uploadEngine;
+  private final MongoTemplate mongoTemplate;
+  private final String bucketName;
+  private final boolean enabled;
+  private final Duration releaseGrace;
+
+  public ContentDedupStore(
+      MinioClient minioClient,
+      MultipartUploadEngine uploadEngine,
+      MongoTemplate mongoTemplate,
+      MinioClientConfig minioConfig,
+      StorageConfig config) {
+    this.minioClient = minioClient;
+    this.uploadEngine = uploadEngine;
+    this.mongoTemplate = mongoTemplate;
+    this.bucketName = minioConfig.getBucket();
+    this.enabled = config.isDedupEnabled();
+    this.releaseGrace = config.getDedupReleaseGrace();
+  }
+
+  /**
+   * Returns whether new writes are deduplicated.
+   *
+   * @return True if deduplication is enabled.
+   */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Writes content to a path as a pointer to its blob. The content is hashed in a first streaming
+   * pass and only uploaded if no blob with the same hash exists, so duplicates cost one reference
+   * count update and an empty pointer object.
+   *
+   * @param bucket Bucket holding pointers and blobs.
+   * @param objectName Path of the pointer object.
+   * @param source Content, opened once to hash and once more if the blob must be uploaded.
+   * @param size Content size in bytes.
+   * @param contentType Content type of the file, or null.
+   * @return Hash of the content.
+   * @throws Exception if the content cannot be read or stored.
+   */
+  public String write(
+      String bucket, String objectName, ContentSource source, long size, String contentType)
+      throws Exception {
+    String hash;
+    try (var in = new DigestInputStream(source.open(), MessageDigest.getInstance("SHA-256"))) {
+      in.transferTo(OutputStream.nullOutputStream());
+      hash = HexFormat.of().formatHex(in.getMessageDigest().digest());
+    }
+
+    acquire(bucket, hash, source, size, contentType);
+    try {
+      var pointer =
+          PutObjectArgs.builder().bucket(bucket).object(objectName).stream(
+                  InputStream.nullInputStream(), 0, -1)
+              .userMetadata(Map.of(HASH_KEY, hash, SIZE_KEY, Long.toString(size)));
+      if (contentType != null && !contentType.isBlank()) {
+        pointer.contentType(contentType);
+      }
+      minioClient.putObject(pointer.build());
+    } catch (Exception e) {
+      release(List.of(hash));
+      throw e;
+    }
+    return hash;
+  }
+
+  /**
+   * Drops one reference per given hash. Blobs left without references are removed by the sweep once
+   * the release grace period has passed. Failures are logged and leave the count unchanged.
+   *
+   * @param hashes Hashes of removed or replaced pointers; may contain duplicates.
+   */
+  public void release(Collection<String> hashes) {
+    count(hashes)
+        .forEach(
+            (hash, count) -> {
+              try {
+                Instant now = Instant.now();
+                mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(hash)),
+                    new Update().inc("refs", -count).set("updatedAt", now),
+                    ContentBlob.class);
+                mongoTemplate.updateFirst(
+                    Query.query(
+                        Criteria.where("_id")
+                            .is(hash)
+                            .and("refs")
+                            .lte(0)
+                            .and("releasedAt")
+                            .exists(false)),
+                    new Update().set("releasedAt", now),
+                    ContentBlob.class);
+              } catch (RuntimeException e) {
+                logger.error("Failed to release content blob {}", hash, e);
+              }
+            });
+  }
+
+  /**
+   * Takes one more reference per given hash, for pointers copied from existing pointers. Blobs that
+   * are being removed cannot be retained; they are logged and left to the reconciliation.
+   *
+   * @param hashes Hashes of copied pointers; may contain duplicates.
+   */
+  public void retain(Collection<String> hashes) {
+    count(hashes)
+        .forEach(
+            (hash, count) -> {
+              try {
+                var result =
+                    mongoTemplate.updateFirst(
+                        Query.query(Criteria.where("_id").is(hash).and("deleting").ne(true)),
+                        new Update()
+                            .inc("refs", count)
+                            .set("updatedAt", Instant.now())
+                            .unset("releasedAt"),
+                        ContentBlob.class);
+                if (result.getMatchedCount() == 0) {
+                  logger.error(
+                      "Cannot retain content blob {}: it is missing or being removed", hash);
+                }
+              } catch (RuntimeException e) {
+                logger.error("Failed to retain content blob {}", hash, e);
+              }
+            });
+  }
+
+  /**
+   * Removes blobs whose last reference was released longer than the grace period ago, and blobs
+   * left marked as deleting by an instance that stopped while removing them.
+   */
+  @Scheduled(fixedDelayString = "${storage.dedup-sweep-interval:10m}")
+  public void sweep() {
+    ContentBlob blob;
+    int removed = 0;
+    while ((blob = claimUnused()) != null) {
+      try {
+        minioClient.removeObject(
+            RemoveObjectArgs.builder().bucket(bucketName).object(blobObject(blob.hash())).build());
+        mongoTemplate.remove(
+            Query.query(Criteria.where("_id").is(blob.hash()).and("deleting").is(true)),
+            ContentBlob.class);
+        removed++;
+      } catch (Exception e) {
+        logger.error("Failed to remove content blob {}, will retry", blob.hash(), e);
+        return;
+      }
+    }
+    if (removed > 0) {
+      logger.info("Removed {} unreferenced content blobs", removed);
+    }
+  }
+
+  /** Marks one blob that is due for removal as deleting, re-checking that it is unreferenced. */
+  private ContentBlob claimUnused() {
+    Instant now = Instant.now();
+    Instant cutoff = now.minus(releaseGrace);
+    return mongoTemplate.findAndModify(
+        Query.query(
+            new Criteria()
+                .orOperator(
+                    Criteria.where("refs")
+                        .lte(0)
+                        .and("releasedAt")
+                        .lt(cutoff)
+                        .and("deleting")
+                        .ne(true),
+                    Criteria.where("deleting").is(true).and("updatedAt").lt(cutoff))),
+        new Update().set("deleting", true).set("updatedAt", now),
+        FindAndModifyOptions.options().returnNew(true),
+        ContentBlob.class);
+  }
+
+  /**
+   * Returns the blob hash recorded in object user metadata, or null for regular objects. Accepts
+   * keys with or without the {@code x-amz-meta-} prefix, in any case.
+   *
+   * @param userMetadata User metadata of an object; may be null.
+   * @return Blob hash, or null.
+   */
+  public static String blobHash(Map<String, String> userMetadata) {
+    return metadataValue(userMetadata, HASH_KEY);
+  }
+
+  /**
+   * Returns whether a value has the form of a blob hash. Entity tags of pointers are their blob
+   * hash, which never has the form of an object entity tag.
+   *
+   * @param value Value to check; may be null.
+   * @return True for a SHA-256 hash in lowercase hex.
+   */
+  public static boolean isBlobHash(String value) {
+    return value != null
+        && value.length() == 64
+        && value.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'));
+  }
+
+  /**
+   * Returns the logical size of a listed object: the blob size for pointers, the object size
+   * otherwise. The listing must include user metadata.
+   *
+   * @param item Listed object.
+   * @return Size in bytes.
+   */
+  public static long logicalSize(Item item) {
+    return logicalSize(item.userMetadata(), item.size());
+  }
+
+  /**
+   * Returns the logical size of an object from its user metadata and stored size.
+   *
+   * @param userMetadata User metadata of the object; may be null.
+   * @param storedSize Size of the stored object.
+   * @return Size in bytes.
+   */
+  public static long logicalSize(Map<String, String> userMetadata, long storedSize) {
+    String size = metadataValue(userMetadata, SIZE_KEY);
+    return size != null ? Long.parseLong(size) : storedSize;
+  }
+
+  /**
+   * Returns the name of the blob object holding content with the given hash.
+   *
+   * @param hash SHA-256 hash in hex.
+   * @return Blob object name.
+   */
+  public static String blobObject(String hash) {
+    return BLOB_PREFIX + hash.substring(0, 2) + "/" + hash;
+  }
+
+  /**
+   * Takes a reference on a blob, uploading its content if the blob is new or its object is missing.
+   */
+  private void acquire(
+      String bucket, String hash, ContentSource source, long size, String contentType)
+      throws Exception {
+    Instant now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+    ContentBlob blob = reference(hash, size, now);
+
+    String blobName = blobObject(hash);
+    boolean created = blob.refs() == 1 && now.equals(blob.createdAt());
+    if (!created && exists(bucket, blobName)) {
+      return;
+    }
+    try (InputStream in = source.open()) {
+      uploadEngine.upload(bucket, blobName, in, size, contentType);
+    } catch (Exception e) {
+      release(List.of(hash));
+      throw e;
+    }
+  }
+
+  /**
+   * Increments the reference count of a blob, creating its document if needed. While the sweep
+   * removes the blob its document is marked as deleting, so the upsert collides with it on the
+   * hash; the reference is then retried until the document is gone.
+   */
+  private ContentBlob reference(String hash, long size, Instant now) throws InterruptedException {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return mongoTemplate.findAndModify(
+            Query.query(Criteria.where("_id").is(hash).and("deleting").ne(true)),
+            new Update()
+                .inc("refs", 1)
+                .set("updatedAt", now)
+                .unset("releasedAt")
+                .setOnInsert("size", size)
+                .setOnInsert("createdAt", now),
+            FindAndModifyOptions.options().upsert(true).returnNew(true),
+            ContentBlob.class);
+      } catch (DuplicateKeyException e) {
+        if (attempt == DELETING_ATTEMPTS) {
+          throw new IllegalStateException("Content blob " + hash + " is still being removed", e);
+        }
+        Thread.sleep(DELETING_WAIT.toMillis());
+      }
+    }
+  }
+
+  private boolean exists(String bucket, String objectName) throws Exception {
+    try {
+      minioClient.statObject(StatObjectArgs.builder().bucket(bucket).object(objectName).build());
+      return true;
+    } catch (ErrorResponseException e) {
+      if ("NoSuchKey".equals(e.errorResponse().code())) {
+        return false;
+      }
+      throw e;
+    }
+  }
+
+  private static Map<String, Long> count(Collection<String> hashes) {
+    return hashes.stream()
+        .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+  }
+
+  private static String metadataValue(Map<String, String> userMetadata, String key) {
+    if (userMetadata == null) {
+      return null;
+    }
+    for (Map.Entry<String, String> entry : userMetadata.entrySet()) {
+      String name = entry.getKey().toLowerCase(Locale.ROOT);
+      if (name.equals(key) || name.equals(USER_METADATA_PREFIX + key)) {
+        return entry.getValue();
+      }
+    }
+    return null;
+  }
+
+  /** Content that can be opened more than once. */
+  @FunctionalInterface
+  public interface ContentSource {
+    InputStream open() throws IOException;
+  }
+}
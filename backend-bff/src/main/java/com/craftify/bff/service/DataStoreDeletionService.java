@@ -0,0 +1,212 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.DataStoreConfig;
+import com.craftify.bff.dto.DataStoreDeletionDto;
+import com.craftify.bff.model.DataStore;
+import com.craftify.bff.model.DataStoreDeletion;
+import com.craftify.bff.model.DataStoreRecord;
+import com.mongodb.client.MongoCollection;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Deletes the records of deleted data stores in the background. A deletion is persisted as a job
+ * before the data store disappears; a worker on any instance claims the job through a lease and
+ * removes the records in bounded chunks with a pause between chunks, so a large data store does not
+ * starve live traffic. Progress is stored with the job after every chunk, and a job whose lease
+ * expires, for example because its instance restarted, is resumed by the next worker.
+ */
+@Service
+public class DataStoreDeletionService {
+
+  private static final Logger logger = LoggerFactory.getLogger(DataStoreDeletionService.class);
+
+  private final MongoTemplate mongoTemplate;
+  private final String instanceId = UUID.randomUUID().toString();
+  private final int chunkSize;
+  private final long chunkPauseMillis;
+  private final Duration lease;
+  private final Duration settleTime;
+
+  public DataStoreDeletionService(MongoTemplate mongoTemplate, DataStoreConfig config) {
+    this.mongoTemplate = mongoTemplate;
+    this.chunkSize = Math.max(1, config.getDeleteChunkSize());
+    this.chunkPauseMillis = Math.max(0, config.getDeleteChunkPause().toMillis());
+    this.lease = config.getDeleteLease();
+    // Other instances may accept records for the data store until their metadata cache expires.
+    this.settleTime = config.getMetadataCacheTtl().multipliedBy(2);
+  }
+
+  /**
+   * Records the deletion of a data store. Must be called before the data store document is removed,
+   * so its records are never left without a job to delete them.
+   *
+   * @param dataStore Data store to delete.
+   * @param totalRecords Number of records of the data store, for progress reporting.
+   * @return Progress of the deletion.
+   */
+  public DataStoreDeletionDto request(DataStore dataStore, long totalRecords) {
+    Instant now = Instant.now();
+    DataStoreDeletion deletion =
+        mongoTemplate.findAndModify(
+            Query.query(Criteria.where("_id").is(dataStore.id())),
+            new Update()
+                .setOnInsert("userId", dataStore.userId())
+                .setOnInsert("status", DataStoreDeletion.PENDING)
+                .setOnInsert("deletedRecords", 0L)
+                .setOnInsert("totalRecords", totalRecords)
+                .setOnInsert("leaseUntil", now)
+                .setOnInsert("createdAt", now)
+                .setOnInsert("updatedAt", now),
+            FindAndModifyOptions.options().upsert(true).returnNew(true),
+            DataStoreDeletion.class);
+    return toDto(deletion);
+  }
+
+  /**
+   * Returns the progress of a data store deletion.
+   *
+   * @param userId Owner of the data store.
+   * @param dataStoreId Data store id.
+   * @return Progress, or empty if no deletion of the data store is known.
+   */
+  public Optional<DataStoreDeletionDto> get(String userId, String dataStoreId) {
+    return Optional.ofNullable(
+            mongoTemplate.findOne(
+                Query.query(Criteria.where("_id").is(dataStoreId).and("userId").is(userId)),
+                DataStoreDeletion.class))
+        .map(DataStoreDeletionService::toDto);
+  }
+
+  /** Claims and runs deletion jobs until none is left to claim. */
+  @Scheduled(fixedDelayString = "${data-stores.delete-poll-interval:5s}")
+  public void runPending() {
+    DataStoreDeletion job;
+    while (!Thread.currentThread().isInterrupted() && (job = claim()) != null) {
+      try {
+        run(job);
+      } catch (RuntimeException e) {
+        logger.error("Deletion of data store {} failed, will retry", job.dataStoreId(), e);
+        mongoTemplate.updateFirst(
+            ownedBy(job.dataStoreId()),
+            new Update()
+                .set("leaseUntil", Instant.now().plus(lease))
+                .set("error", e.getMessage())
+                .set("updatedAt", Instant.now()),
+            DataStoreDeletion.class);
+        return;
+      }
+    }
+  }
+
+  private DataStoreDeletion claim() {
+    Instant now = Instant.now();
+    return mongoTemplate.findAndModify(
+        Query.query(
+            Criteria.where("status")
+                .in(DataStoreDeletion.PENDING, DataStoreDeletion.RUNNING)
+                .and("leaseUntil")
+                .lt(now)),
+        new Update()
+            .set("status", DataStoreDeletion.RUNNING)
+            .set("owner", instanceId)
+            .set("leaseUntil", now.plus(lease))
+            .set("updatedAt", now),
+        FindAndModifyOptions.options().returnNew(true),
+        DataStoreDeletion.class);
+  }
+
+  private void run(DataStoreDeletion job) {
+    MongoCollection<Document> records =
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(DataStoreRecord.class));
+    var filter = new Document("userId", job.userId()).append("dataStoreId", job.dataStoreId());
+
+    while (true) {
+      List<Object> ids = new ArrayList<>(chunkSize);
+      records
+          .find(filter)
+          .projection(new Document("_id", 1))
+          .limit(chunkSize)
+          .forEach(record -> ids.add(record.get("_id")));
+
+      Instant now = Instant.now();
+      if (ids.isEmpty()) {
+        if (now.isBefore(job.createdAt().plus(settleTime))) {
+          // Check again for late records once the metadata caches have expired.
+          mongoTemplate.updateFirst(
+              ownedBy(job.dataStoreId()),
+              new Update().set("leaseUntil", job.createdAt().plus(settleTime)),
+              DataStoreDeletion.class);
+          return;
+        }
+        mongoTemplate.updateFirst(
+            ownedBy(job.dataStoreId()),
+            new Update()
+                .set("status", DataStoreDeletion.DONE)
+                .set("finishedAt", now)
+                .set("updatedAt", now)
+                .unset("owner")
+                .unset("error"),
+            DataStoreDeletion.class);
+        logger.info("Deleted data store {}", job.dataStoreId());
+        return;
+      }
+
+      long deleted =
+          records.deleteMany(new Document("_id", new Document("$in", ids))).getDeletedCount();
+      boolean leaseKept =
+          mongoTemplate
+                  .updateFirst(
+                      ownedBy(job.dataStoreId()),
+                      new Update()
+                          .inc("deletedRecords", deleted)
+                          .set("leaseUntil", now.plus(lease))
+                          .set("updatedAt", now),
+                      DataStoreDeletion.class)
+                  .getMatchedCount()
+              > 0;
+      if (!leaseKept) {
+        logger.warn("Lost the lease on the deletion of data store {}", job.dataStoreId());
+        return;
+      }
+
+      if (chunkPauseMillis > 0) {
+        try {
+          Thread.sleep(chunkPauseMillis);
+        } catch (InterruptedException e) {
+          // The lease expires and another worker resumes the job.
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  private Query ownedBy(String dataStoreId) {
+    return Query.query(Criteria.where("_id").is(dataStoreId).and("owner").is(instanceId));
+  }
+
+  private static DataStoreDeletionDto toDto(DataStoreDeletion deletion) {
+    return new DataStoreDeletionDto(
+        deletion.dataStoreId(),
+        deletion.status(),
+        deletion.deletedRecords(),
+        deletion.totalRecords(),
+        deletion.createdAt(),
+        deletion.finishedAt());
+  }
+}
@@ -0,0 +1,260 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.DataStoreConfig;
+import com.craftify.bff.exception.OperationRestrictionException;
+import com.craftify.bff.model.DataStoreIndex;
+import com.craftify.bff.model.DataStoreRecord;
+import com.craftify.bff.repository.DataStoreIndexRepository;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+/**
+ * Manages secondary indexes declared by users on {@code record.*} paths. Each declared path is
+ * backed by a collection index on {@code (userId, dataStoreId, <path>)}, shared by every data store
+ * declaring the same path, so filters and sorts on the path within one data store are served by an
+ * index range scan. The number of paths is capped per data store, per user and per collection to
+ * stay well below the Mongo limit of 64 indexes per collection, so no single user can use up the
+ * paths of everyone else.
+ *
+ * <p>Collection indexes are built and dropped in the background, one at a time per instance, and
+ * under a cluster-wide lock on the path, so a drop of the last declaration of a path never races a
+ * new declaration building it. A declaration whose build fails is removed again.
+ */
+@Service
+public class DataStoreIndexService {
+
+  private static final String INDEX_NAME_PREFIX = "record_idx_";
+
+  private static final String LOCK_PREFIX = "record-index:";
+
+  /** How long an index change waits before trying again when another instance holds its path. */
+  private static final Duration LOCK_RETRY = Duration.ofSeconds(1);
+
+  private static final Logger logger = LoggerFactory.getLogger(DataStoreIndexService.class);
+
+  private final MongoTemplate mongoTemplate;
+  private final DataStoreMetadataCache metadataCache;
+  private final DataStoreIndexRepository indexRepository;
+  private final AuthentificationService auth;
+  private final JobLockService jobLocks;
+  private final ScheduledExecutorService executor;
+  private final int maxIndexesPerStore;
+  private final int maxIndexedPathsPerUser;
+  private final int maxIndexedPaths;
+  private final Duration buildLease;
+
+  public DataStoreIndexService(
+      MongoTemplate mongoTemplate,
+      DataStoreMetadataCache metadataCache,
+      DataStoreIndexRepository indexRepository,
+      AuthentificationService auth,
+      JobLockService jobLocks,
+      @Qualifier("indexBuildExecutor") ScheduledExecutorService executor,
+      DataStoreConfig config) {
+    this.mongoTemplate = mongoTemplate;
+    this.metadataCache = metadataCache;
+    this.indexRepository = indexRepository;
+    this.auth = auth;
+    this.jobLocks = jobLocks;
+    this.executor = executor;
+    this.maxIndexesPerStore = Math.max(0, config.getMaxIndexesPerStore());
+    this.maxIndexedPathsPerUser = Math.max(0, config.getMaxIndexedPathsPerUser());
+    this.maxIndexedPaths = Math.max(0, config.getMaxIndexedPaths());
+    this.buildLease = config.getIndexBuildLease();
+  }
+
+  /**
+   * Lists the indexed paths of a data store.
+   *
+   * @param dataStoreId Data store id.
+   * @return Declared paths, sorted.
+   * @throws IllegalArgumentException if the data store does not exist for the current user.
+   */
+  public List<String> list(String dataStoreId) {
+    String userId = requireDataStore(dataStoreId);
+    return indexRepository.findAllByUserIdAndDataStoreId(userId, dataStoreId).stream()
+        .map(DataStoreIndex::path)
+        .sorted()
+        .toList();
+  }
+
+  /**
+   * Declares an index on a record path of a data store and schedules the build of the collection
+   * index if no other data store declared the path yet. Declaring an existing index has no effect.
+   *
+   * @param dataStoreId Data store id.
+   * @param path Record path, such as {@code record.customer.id}.
+   * @throws IllegalArgumentException if the data store does not exist for the current user.
+   * @throws OperationRestrictionException if an index limit would be exceeded.
+   */
+  public void declare(String dataStoreId, String path) {
+    String userId = requireDataStore(dataStoreId);
+    DataStoreRecordQueryService.requireRecordPath(path);
+    if (indexRepository.findByUserIdAndDataStoreIdAndPath(userId, dataStoreId, path).isPresent()) {
+      return;
+    }
+    if (indexRepository.countByUserIdAndDataStoreId(userId, dataStoreId) >= maxIndexesPerStore) {
+      throw new OperationRestrictionException(
+          "A data store can declare at most " + maxIndexesPerStore + " indexes.");
+    }
+    List<String> userPaths =
+        mongoTemplate.findDistinct(
+            Query.query(Criteria.where("userId").is(userId)),
+            "path",
+            DataStoreIndex.class,
+            String.class);
+    if (!userPaths.contains(path) && userPaths.size() >= maxIndexedPathsPerUser) {
+      throw new OperationRestrictionException(
+          "A user can index at most " + maxIndexedPathsPerUser + " distinct record paths.");
+    }
+    String indexName = INDEX_NAME_PREFIX + path;
+    if (!isBuilt(indexName) && indexedPaths() >= maxIndexedPaths) {
+      throw new OperationRestrictionException(
+          "The maximum number of indexed record paths has been reached.");
+    }
+
+    DataStoreIndex index;
+    try {
+      index =
+          indexRepository.save(
+              new DataStoreIndex(null, userId, dataStoreId, path, indexName, Instant.now()));
+    } catch (DuplicateKeyException e) {
+      // Declared concurrently by another request.
+      return;
+    }
+    executor.execute(() -> withPathLock(path, () -> build(index)));
+  }
+
+  /**
+   * Removes an index declaration and schedules the drop of the collection index once no data store
+   * declares the path anymore.
+   *
+   * @param dataStoreId Data store id.
+   * @param path Record path.
+   * @throws IllegalArgumentException if the data store or the declaration does not exist.
+   */
+  public void remove(String dataStoreId, String path) {
+    String userId = requireDataStore(dataStoreId);
+    DataStoreIndex index =
+        indexRepository
+            .findByUserIdAndDataStoreIdAndPath(userId, dataStoreId, path)
+            .orElseThrow(() -> new IllegalArgumentException("Index not found"));
+    indexRepository.delete(index);
+    scheduleDropIfUnused(index);
+  }
+
+  /**
+   * Removes every index declaration of a data store.
+   *
+   * @param userId Owner of the data store.
+   * @param dataStoreId Data store id.
+   */
+  public void removeAll(String userId, String dataStoreId) {
+    for (DataStoreIndex index :
+        indexRepository.findAllByUserIdAndDataStoreId(userId, dataStoreId)) {
+      indexRepository.delete(index);
+      scheduleDropIfUnused(index);
+    }
+  }
+
+  /**
+   * Builds the collection index of a declaration unless it exists already. The declaration is
+   * removed if it was withdrawn meanwhile, if the collection cap has been reached since it was
+   * accepted, or if the build fails.
+   */
+  private void build(DataStoreIndex index) {
+    if (!indexRepository.existsById(index.id()) || isBuilt(index.indexName())) {
+      return;
+    }
+    if (indexedPaths() >= maxIndexedPaths) {
+      logger.warn("Dropped declaration of {}: too many indexed record paths", index.indexName());
+      indexRepository.delete(index);
+      return;
+    }
+    try {
+      mongoTemplate
+          .indexOps(DataStoreRecord.class)
+          .createIndex(
+              new Index()
+                  .on("userId", Sort.Direction.ASC)
+                  .on("dataStoreId", Sort.Direction.ASC)
+                  .on(index.path(), Sort.Direction.ASC)
+                  .named(index.indexName()));
+      logger.info("Built index {} on data_store_records", index.indexName());
+    } catch (RuntimeException e) {
+      logger.error("Failed to build index {} on data_store_records", index.indexName(), e);
+      indexRepository.delete(index);
+    }
+  }
+
+  private void scheduleDropIfUnused(DataStoreIndex index) {
+    executor.execute(() -> withPathLock(index.path(), () -> dropIfUnused(index)));
+  }
+
+  private void dropIfUnused(DataStoreIndex index) {
+    if (indexRepository.existsByPath(index.path())) {
+      return;
+    }
+    try {
+      mongoTemplate.indexOps(DataStoreRecord.class).dropIndex(index.indexName());
+      logger.info("Dropped unused index {} on data_store_records", index.indexName());
+    } catch (RuntimeException e) {
+      logger.warn("Failed to drop index {} on data_store_records", index.indexName(), e);
+    }
+  }
+
+  /**
+   * Runs an index change while holding the cluster-wide lock on its path, trying again later on the
+   * index executor while another instance holds it.
+   */
+  private void withPathLock(String path, Runnable change) {
+    String lock = LOCK_PREFIX + path;
+    try {
+      if (!jobLocks.tryAcquire(lock, buildLease)) {
+        executor.schedule(
+            () -> withPathLock(path, change), LOCK_RETRY.toMillis(), TimeUnit.MILLISECONDS);
+        return;
+      }
+    } catch (RuntimeException e) {
+      logger.error("Failed to lock index changes of {}", path, e);
+      return;
+    }
+    try {
+      change.run();
+    } catch (RuntimeException e) {
+      logger.error("Failed to change the index of {}", path, e);
+    } finally {
+      jobLocks.release(lock);
+    }
+  }
+
+  private boolean isBuilt(String indexName) {
+    return mongoTemplate.indexOps(DataStoreRecord.class).getIndexInfo().stream()
+        .anyMatch(index -> indexName.equals(index.getName()));
+  }
+
+  private long indexedPaths() {
+    return mongoTemplate.indexOps(DataStoreRecord.class).getIndexInfo().stream()
+        .filter(index -> index.getName().startsWith(INDEX_NAME_PREFIX))
+        .count();
+  }
+
+  private String requireDataStore(String dataStoreId) {
+    String userId = auth.getCurrentUserId();
+    metadataCache.require(userId, dataStoreId);
+    return userId;
+  }
+}
@@ -0,0 +1,64 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.DataStoreConfig;
+import com.craftify.bff.model.DataStore;
+import com.craftify.bff.repository.DataStoreRepository;
+import java.util.Optional;
+import org.springframework.stereotype.Component;
+
+/**
+ * Size-bounded LRU cache of data store metadata keyed by owner and data store id. Record endpoints
+ * resolve the data store through this cache to check ownership, so a record operation usually costs
+ * a single query on the records collection. Entries are invalidated when a data store is updated or
+ * deleted through this instance; a short TTL bounds staleness for changes made by other instances.
+ */
+@Component
+public class DataStoreMetadataCache {
+
+  private final DataStoreRepository dataStoreRepository;
+  private final TtlCache<Key, DataStore> dataStores;
+
+  public DataStoreMetadataCache(DataStoreRepository dataStoreRepository, DataStoreConfig config) {
+    this.dataStoreRepository = dataStoreRepository;
+    this.dataStores = new TtlCache<>(config.getMetadataCacheSize(), config.getMetadataCacheTtl());
+  }
+
+  /**
+   * Returns a data store of a user.
+   *
+   * @param userId Owner of the data store.
+   * @param dataStoreId Data store id.
+   * @return The data store, or empty if the user has no such data store.
+   */
+  public Optional<DataStore> find(String userId, String dataStoreId) {
+    return Optional.ofNullable(
+        dataStores.get(
+            new Key(userId, dataStoreId),
+            () -> dataStoreRepository.findByIdAndUserId(dataStoreId, userId).orElse(null)));
+  }
+
+  /**
+   * Returns a data store of a user, failing if it does not exist.
+   *
+   * @param userId Owner of the data store.
+   * @param dataStoreId Data store id.
+   * @return The data store.
+   * @throws IllegalArgumentException if the user has no such data store.
+   */
+  public DataStore require(String userId, String dataStoreId) {
+    return find(userId, dataStoreId)
+        .orElseThrow(
+            () -> new IllegalArgumentException("DataStore not found for the current user."));
+  }
+
+  /**
+   * Drops the cached metadata of a data store after it changed.
+   *
+   * @param dataStoreId Data store id.
+   */
+  public void invalidate(String dataStoreId) {
+    dataStores.invalidateIf(key -> key.dataStoreId().equals(dataStoreId));
+  }
+
+  private record Key(String userId, String dataStoreId) {}
+}
@@ -0,0 +1,235 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.DataStoreConfig;
+import com.craftify.bff.model.DataStore;
+import com.craftify.bff.model.DataStoreRecord;
+import com.craftify.bff.model.DataStoreRecordCount;
+import com.craftify.bff.repository.DataStoreRecordsRepository;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintains the number of records per data store. Record writes adjust the counter with atomic
+ * increments and reads go through a small in-process cache with a short TTL, so showing record
+ * counts never counts records. A counter is initialized with a count on first read and every
+ * counter is periodically rebuilt to correct drift, for example from increments lost to failures.
+ * The rebuild also hands records left behind by deleted data stores to {@link
+ * DataStoreDeletionService}.
+ */
+@Service
+public class DataStoreRecordCounter {
+
+  private static final Logger logger = LoggerFactory.getLogger(DataStoreRecordCounter.class);
+
+  private final MongoTemplate mongoTemplate;
+  private final DataStoreRecordsRepository recordsRepository;
+  private final DataStoreDeletionService deletionService;
+  private final TtlCache<String, Counter> counters;
+
+  public DataStoreRecordCounter(
+      MongoTemplate mongoTemplate,
+      DataStoreRecordsRepository recordsRepository,
+      DataStoreDeletionService deletionService,
+      DataStoreConfig config) {
+    this.mongoTemplate = mongoTemplate;
+    this.recordsRepository = recordsRepository;
+    this.deletionService = deletionService;
+    this.counters = new TtlCache<>(config.getCountCacheSize(), config.getCountCacheTtl());
+  }
+
+  /**
+   * Returns the number of records of a data store.
+   *
+   * @param userId Owner of the data store.
+   * @param dataStoreId Data store id.
+   * @return Number of records.
+   */
+  public long get(String userId, String dataStoreId) {
+    return getAll(userId, List.of(dataStoreId)).get(dataStoreId);
+  }
+
+  /**
+   * Returns the number of records of several data stores of one user, loading every counter that is
+   * not cached with a single query.
+   *
+   * @param userId Owner of the data stores.
+   * @param dataStoreIds Data store ids.
+   * @return Number of records keyed by data store id.
+   */
+  public Map<String, Long> getAll(String userId, Collection<String> dataStoreIds) {
+    var counts = new HashMap<String, Long>();
+    var missing = new ArrayList<String>();
+    for (String dataStoreId : dataStoreIds) {
+      Counter counter = counters.getIfFresh(dataStoreId);
+      if (counter != null && counter.userId().equals(userId)) {
+        counts.put(dataStoreId, counter.count());
+      } else {
+        missing.add(dataStoreId);
+      }
+    }
+    if (missing.isEmpty()) {
+      return counts;
+    }
+    long loadGeneration = counters.generation();
+
+    var loaded = new HashMap<String, Long>();
+    mongoTemplate
+        .find(
+            Query.query(Criteria.where("userId").is(userId).and("_id").in(missing)),
+            DataStoreRecordCount.class)
+        .forEach(counter -> loaded.put(counter.dataStoreId(), counter.count()));
+    for (String dataStoreId : missing) {
+      loaded.computeIfAbsent(dataStoreId, id -> initialize(userId, id));
+    }
+
+    loaded.forEach(
+        (dataStoreId, count) ->
+            counters.put(loadGeneration, dataStoreId, new Counter(userId, count)));
+    counts.putAll(loaded);
+    return counts;
+  }
+
+  /**
+   * Adjusts the counter of a data store after records were written. Counters that were never
+   * initialized are left alone; their first read counts the records.
+   *
+   * @param userId Owner of the data store.
+   * @param dataStoreId Data store id.
+   * @param delta Number of records added, negative for removed records.
+   */
+  public void add(String userId, String dataStoreId, long delta) {
+    if (delta == 0) {
+      return;
+    }
+    try {
+      mongoTemplate.updateFirst(
+          byDataStore(userId, dataStoreId),
+          new Update().inc("count", delta).set("updatedAt", Instant.now()),
+          DataStoreRecordCount.class);
+    } catch (RuntimeException e) {
+      logger.error("Failed to update record count of data store {}", dataStoreId, e);
+    }
+    evict(dataStoreId);
+  }
+
+  /**
+   * Drops the counter of a deleted data store.
+   *
+   * @param userId Owner of the data store.
+   * @param dataStoreId Data store id.
+   */
+  public void remove(String userId, String dataStoreId) {
+    mongoTemplate.remove(byDataStore(userId, dataStoreId), DataStoreRecordCount.class);
+    evict(dataStoreId);
+  }
+
+  /** Rebuilds every counter from a single grouped count over all records. */
+  @Scheduled(
+      initialDelayString = "${data-stores.count-reconcile-initial-delay:5m}",
+      fixedDelayString = "${data-stores.count-reconcile-interval:1h}")
+  public void reconcileAll() {
+    long started = System.currentTimeMillis();
+    try {
+      var counts = new HashMap<String, Long>();
+      var owners = new HashMap<String, String>();
+      mongoTemplate
+          .aggregate(
+              Aggregation.newAggregation(
+                  Aggregation.group("dataStoreId")
+                      .count()
+                      .as("count")
+                      .first("userId")
+                      .as("userId")),
+              DataStoreRecord.class,
+              Document.class)
+          .forEach(
+              result -> {
+                counts.put(result.getString("_id"), ((Number) result.get("count")).longValue());
+                owners.put(result.getString("_id"), result.getString("userId"));
+              });
+
+      Instant now = Instant.now();
+      var query = new Query();
+      query.fields().include("_id").include("userId");
+      BulkOperations bulk =
+          mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DataStoreRecordCount.class);
+      var dataStoreIds = new ArrayList<String>();
+      for (DataStore dataStore : mongoTemplate.find(query, DataStore.class)) {
+        dataStoreIds.add(dataStore.id());
+        bulk.upsert(
+            Query.query(Criteria.where("_id").is(dataStore.id())),
+            new Update()
+                .set("userId", dataStore.userId())
+                .set("count", counts.getOrDefault(dataStore.id(), 0L))
+                .set("updatedAt", now));
+      }
+      if (!dataStoreIds.isEmpty()) {
+        bulk.execute();
+      }
+      mongoTemplate.remove(
+          Query.query(Criteria.where("_id").nin(dataStoreIds)), DataStoreRecordCount.class);
+
+      // Records of data stores deleted before deletions cascaded get a deletion job.
+      counts.keySet().removeAll(dataStoreIds);
+      counts.forEach(
+          (dataStoreId, count) ->
+              deletionService.request(
+                  new DataStore(dataStoreId, null, null, null, null, owners.get(dataStoreId)),
+                  count));
+      if (!counts.isEmpty()) {
+        logger.info("Scheduled deletion of records of {} deleted data stores", counts.size());
+      }
+      counters.clear();
+      logger.info(
+          "Reconciled record counts of {} data stores in {} ms",
+          dataStoreIds.size(),
+          System.currentTimeMillis() - started);
+    } catch (RuntimeException e) {
+      logger.error("Record count reconciliation failed", e);
+    }
+  }
+
+  /** Counts the records of a data store and stores the result unless a counter appeared. */
+  private long initialize(String userId, String dataStoreId) {
+    long count = recordsRepository.countByUserIdAndDataStoreId(userId, dataStoreId).orElse(0L);
+    try {
+      DataStoreRecordCount counter =
+          mongoTemplate.findAndModify(
+              byDataStore(userId, dataStoreId),
+              new Update().setOnInsert("count", count).setOnInsert("updatedAt", Instant.now()),
+              FindAndModifyOptions.options().upsert(true).returnNew(true),
+              DataStoreRecordCount.class);
+      return counter != null ? counter.count() : count;
+    } catch (DuplicateKeyException e) {
+      // Another request initialized the counter concurrently.
+      return count;
+    }
+  }
+
+  private void evict(String dataStoreId) {
+    counters.invalidate(dataStoreId);
+  }
+
+  private static Query byDataStore(String userId, String dataStoreId) {
+    return Query.query(Criteria.where("_id").is(dataStoreId).and("userId").is(userId));
+  }
+
+  private record Counter(String userId, long count) {}
+}
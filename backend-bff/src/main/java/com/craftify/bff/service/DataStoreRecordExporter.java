@@ -0,0 +1,268 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.DataStoreConfig;
+import com.craftify.bff.model.DataStore;
+import com.craftify.bff.model.DataStoreRecord;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvGenerator;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.mongodb.client.MongoCursor;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Exports the records of a data store as NDJSON or CSV. Records are read through a single cursor
+ * over the keyset index with a tuned batch size, as raw BSON documents, and written straight to the
+ * response with a streaming Jackson generator, so heap use does not depend on the number of
+ * records. NDJSON lines use the {@code {"name": ..., "record": {...}}} shape accepted by {@link
+ * DataStoreRecordImporter}.
+ */
+@Service
+public class DataStoreRecordExporter {
+
+  /** Upper bound on the columns of a CSV export derived from the record fields. */
+  private static final int MAX_CSV_COLUMNS = 1000;
+
+  private static final Document RECORDS_ORDER = new Document("updatedAt", -1).append("_id", -1);
+
+  private final MongoTemplate mongoTemplate;
+  private final DataStoreMetadataCache metadataCache;
+  private final AuthentificationService auth;
+  private final ObjectMapper objectMapper;
+  private final CsvMapper csvMapper = new CsvMapper();
+  private final int batchSize;
+
+  public DataStoreRecordExporter(
+      MongoTemplate mongoTemplate,
+      DataStoreMetadataCache metadataCache,
+      AuthentificationService auth,
+      ObjectMapper objectMapper,
+      DataStoreConfig config) {
+    this.mongoTemplate = mongoTemplate;
+    this.metadataCache = metadataCache;
+    this.auth = auth;
+    this.objectMapper = objectMapper;
+    this.batchSize = Math.max(1, config.getExportBatchSize());
+  }
+
+  /**
+   * Prepares an NDJSON export with one record per line, newest first.
+   *
+   * @param dataStoreId Data store id.
+   * @param fields {@code record.*} paths to export; null or empty exports whole records.
+   * @return Export ready to be streamed.
+   * @throws IllegalArgumentException if the data store does not exist for the current user.
+   */
+  public RecordExport exportNdjson(String dataStoreId, List<String> fields) {
+    DataStore dataStore = requireDataStore(dataStoreId);
+    Document projection = projection(fields);
+    return new RecordExport(
+        dataStore.name() + ".ndjson",
+        out -> {
+          try (MongoCursor<Document> cursor = openCursor(dataStore, projection);
+              JsonGenerator generator =
+                  objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            while (cursor.hasNext()) {
+              Document record = cursor.next();
+              generator.writeStartObject();
+              generator.writeStringField("id", record.getObjectId("_id").toHexString());
+              generator.writeFieldName("name");
+              writeValue(generator, record.get("name"));
+              generator.writeFieldName("createdAt");
+              writeValue(generator, record.get("createdAt"));
+              generator.writeFieldName("updatedAt");
+              writeValue(generator, record.get("updatedAt"));
+              generator.writeFieldName("record");
+              writeValue(generator, record.get("record", new Document()));
+              generator.writeEndObject();
+              generator.writeRaw('\n');
+            }
+          }
+        });
+  }
+
+  /**
+   * Prepares a CSV export with a header row, newest first. The {@code name} column holds the record
+   * name and every other column one record field; nested values are written as JSON text. Without
+   * explicit fields, the columns are the top-level record fields found in the data store.
+   *
+   * @param dataStoreId Data store id.
+   * @param fields {@code record.*} paths to export as columns; null or empty exports every field.
+   * @return Export ready to be streamed.
+   * @throws IllegalArgumentException if the data store does not exist for the current user.
+   */
+  public RecordExport exportCsv(String dataStoreId, List<String> fields) {
+    DataStore dataStore = requireDataStore(dataStoreId);
+    Document projection = projection(fields);
+    List<String> columns =
+        fields == null || fields.isEmpty()
+            ? recordKeys(dataStore)
+            : fields.stream().map(field -> field.substring("record.".length())).toList();
+
+    var schema = CsvSchema.builder().addColumn("name");
+    columns.forEach(schema::addColumn);
+    CsvSchema csvSchema = schema.build().withHeader();
+
+    return new RecordExport(
+        dataStore.name() + ".csv",
+        out -> {
+          try (MongoCursor<Document> cursor = openCursor(dataStore, projection);
+              CsvGenerator generator = csvMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setSchema(csvSchema);
+            while (cursor.hasNext()) {
+              Document record = cursor.next();
+              Document values = record.get("record", new Document());
+              generator.writeStartObject();
+              generator.writeStringField("name", record.getString("name"));
+              for (String column : columns) {
+                Object value = valueAt(values, column);
+                if (value != null) {
+                  generator.writeStringField(column, csvText(value));
+                }
+              }
+              generator.writeEndObject();
+            }
+          }
+        });
+  }
+
+  private DataStore requireDataStore(String dataStoreId) {
+    return metadataCache.require(auth.getCurrentUserId(), dataStoreId);
+  }
+
+  private MongoCursor<Document> openCursor(DataStore dataStore, Document projection) {
+    return mongoTemplate
+        .getCollection(mongoTemplate.getCollectionName(DataStoreRecord.class))
+        .find(new Document("userId", dataStore.userId()).append("dataStoreId", dataStore.id()))
+        .projection(projection)
+        .sort(RECORDS_ORDER)
+        .batchSize(batchSize)
+        .iterator();
+  }
+
+  private static Document projection(List<String> fields) {
+    if (fields == null || fields.isEmpty()) {
+      return new Document("userId", 0).append("dataStoreId", 0).append("searchTerms", 0);
+    }
+    var projection = new Document("name", 1).append("createdAt", 1).append("updatedAt", 1);
+    for (String field : fields) {
+      projection.append(DataStoreRecordQueryService.requireRecordPath(field), 1);
+    }
+    return projection;
+  }
+
+  /** Lists the distinct top-level record fields of a data store, without loading any record. */
+  private List<String> recordKeys(DataStore dataStore) {
+    var pipeline =
+        List.of(
+            new Document(
+                "$match",
+                new Document("userId", dataStore.userId()).append("dataStoreId", dataStore.id())),
+            new Document(
+                "$project",
+                new Document(
+                    "keys",
+                    new Document(
+                        "$map",
+                        new Document("input", new Document("$objectToArray", "$record"))
+                            .append("in", "$$this.k")))),
+            new Document("$unwind", "$keys"),
+            new Document("$group", new Document("_id", "$keys")),
+            new Document("$sort", new Document("_id", 1)),
+            new Document("$limit", MAX_CSV_COLUMNS + 1));
+    var keys = new ArrayList<String>();
+    mongoTemplate
+        .getCollection(mongoTemplate.getCollectionName(DataStoreRecord.class))
+        .aggregate(pipeline)
+        .allowDiskUse(true)
+        .forEach(
+            key -> {
+              // The name column already holds the record name.
+              if (!"name".equals(key.getString("_id"))) {
+                keys.add(key.getString("_id"));
+              }
+            });
+    return keys.size() > MAX_CSV_COLUMNS ? keys.subList(0, MAX_CSV_COLUMNS) : keys;
+  }
+
+  private static Object valueAt(Document values, String path) {
+    Object value = values;
+    for (String segment : path.split("\\.")) {
+      if (!(value instanceof Map<?, ?> map)) {
+        return null;
+      }
+      value = map.get(segment);
+    }
+    return value;
+  }
+
+  private String csvText(Object value) throws IOException {
+    if (value instanceof Map<?, ?> || value instanceof List<?>) {
+      var text = new StringWriter();
+      try (JsonGenerator generator = objectMapper.getFactory().createGenerator(text)) {
+        writeValue(generator, value);
+      }
+      return text.toString();
+    }
+    return scalarText(value);
+  }
+
+  private static String scalarText(Object value) {
+    if (value instanceof Date date) {
+      return date.toInstant().toString();
+    }
+    if (value instanceof ObjectId id) {
+      return id.toHexString();
+    }
+    return value.toString();
+  }
+
+  /** Writes a BSON value as JSON; dates become ISO-8601 text and ids their hex form. */
+  private static void writeValue(JsonGenerator generator, Object value) throws IOException {
+    if (value == null) {
+      generator.writeNull();
+    } else if (value instanceof Map<?, ?> map) {
+      generator.writeStartObject();
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        generator.writeFieldName(entry.getKey().toString());
+        writeValue(generator, entry.getValue());
+      }
+      generator.writeEndObject();
+    } else if (value instanceof List<?> list) {
+      generator.writeStartArray();
+      for (Object item : list) {
+        writeValue(generator, item);
+      }
+      generator.writeEndArray();
+    } else if (value instanceof String text) {
+      generator.writeString(text);
+    } else if (value instanceof Boolean bool) {
+      generator.writeBoolean(bool);
+    } else if (value instanceof Integer number) {
+      generator.writeNumber(number);
+    } else if (value instanceof Long number) {
+      generator.writeNumber(number);
+    } else if (value instanceof Double number) {
+      generator.writeNumber(number);
+    } else if (value instanceof Decimal128 number && number.isFinite()) {
+      generator.writeNumber(number.bigDecimalValue());
+    } else {
+      generator.writeString(scalarText(value));
+    }
+  }
+}
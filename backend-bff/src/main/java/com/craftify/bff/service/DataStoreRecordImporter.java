@@ -0,0 +1,238 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.DataStoreConfig;
+import com.craftify.bff.dto.RecordImportResultDto;
+import com.craftify.bff.dto.RecordImportResultDto.RowErrorDto;
+import com.craftify.bff.model.DataStoreRecord;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Imports records into a data store from NDJSON or CSV streams. Rows are parsed one at a time and
+ * written in unordered bulk inserts, so memory is bounded by the batch size and a rejected row does
+ * not stop the rest of its batch. Duplicate names are detected by the unique index on insert
+ * instead of being checked up front, which keeps an import at one round trip per batch.
+ */
+@Service
+public class DataStoreRecordImporter {
+
+  private static final int DUPLICATE_KEY = 11000;
+
+  private final MongoTemplate mongoTemplate;
+  private final DataStoreMetadataCache metadataCache;
+  private final AuthentificationService auth;
+  private final DataStoreRecordCounter recordCounter;
+  private final ObjectMapper objectMapper;
+  private final CsvMapper csvMapper = new CsvMapper();
+  private final int batchSize;
+  private final int maxReportedErrors;
+
+  public DataStoreRecordImporter(
+      MongoTemplate mongoTemplate,
+      DataStoreMetadataCache metadataCache,
+      AuthentificationService auth,
+      DataStoreRecordCounter recordCounter,
+      ObjectMapper objectMapper,
+      DataStoreConfig config) {
+    this.mongoTemplate = mongoTemplate;
+    this.metadataCache = metadataCache;
+    this.auth = auth;
+    this.recordCounter = recordCounter;
+    this.objectMapper = objectMapper;
+    this.batchSize = Math.max(1, config.getImportBatchSize());
+    this.maxReportedErrors = Math.max(0, config.getImportMaxReportedErrors());
+  }
+
+  /**
+   * Imports newline-delimited JSON. Each non-blank line holds one object of the form {@code
+   * {"name": "...", "record": {...}}}; other fields are ignored.
+   *
+   * @param dataStoreId Target data store id.
+   * @param input NDJSON content encoded as UTF-8.
+   * @return Import report.
+   * @throws IOException if the input cannot be read.
+   */
+  public RecordImportResultDto importNdjson(String dataStoreId, InputStream input)
+      throws IOException {
+    var batch = newBatch(dataStoreId);
+    var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    long lineNumber = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      if (line.isBlank()) {
+        continue;
+      }
+      ImportRow row;
+      try {
+        row = objectMapper.readValue(line, ImportRow.class);
+      } catch (JsonProcessingException e) {
+        batch.reject(lineNumber, null, "Invalid JSON: " + e.getOriginalMessage());
+        continue;
+      }
+      if (row == null) {
+        // A literal null line parses without error but holds no record.
+        batch.reject(lineNumber, null, "Invalid JSON: expected an object, got null");
+        continue;
+      }
+      batch.add(lineNumber, row.name(), row.record());
+    }
+    return batch.finish();
+  }
+
+  /**
+   * Imports CSV with a header row. The {@code name} column holds the record name; every other
+   * column becomes a string field of the record.
+   *
+   * @param dataStoreId Target data store id.
+   * @param input CSV content encoded as UTF-8.
+   * @return Import report.
+   * @throws IOException if the input cannot be read.
+   */
+  public RecordImportResultDto importCsv(String dataStoreId, InputStream input) throws IOException {
+    var batch = newBatch(dataStoreId);
+    MappingIterator<Map<String, String>> rows =
+        csvMapper
+            .readerForMapOf(String.class)
+            .with(CsvSchema.emptySchema().withHeader())
+            .with(CsvParser.Feature.SKIP_EMPTY_LINES)
+            .readValues(new InputStreamReader(input, StandardCharsets.UTF_8));
+    long rowNumber = 0;
+    while (true) {
+      Map<String, String> row;
+      try {
+        if (!rows.hasNextValue()) {
+          break;
+        }
+        rowNumber++;
+        row = rows.nextValue();
+      } catch (IOException | RuntimeException e) {
+        // The parser cannot resynchronize reliably after a structural error.
+        batch.reject(rowNumber, null, "Invalid CSV, import stopped: " + e.getMessage());
+        break;
+      }
+      Map<String, Object> record = new LinkedHashMap<>(row);
+      Object name = record.remove("name");
+      batch.add(rowNumber, name != null ? name.toString() : null, record);
+    }
+    return batch.finish();
+  }
+
+  private ImportBatch newBatch(String dataStoreId) {
+    String userId = auth.getCurrentUserId();
+    metadataCache.require(userId, dataStoreId);
+    return new ImportBatch(userId, dataStoreId);
+  }
+
+  /** Accumulates rows of one import and flushes them in bulk inserts. */
+  private final class ImportBatch {
+
+    private final String userId;
+    private final String dataStoreId;
+    private final List<DataStoreRecord> records = new ArrayList<>(batchSize);
+    private final List<Long> rowNumbers = new ArrayList<>(batchSize);
+    private final List<RowErrorDto> errors = new ArrayList<>();
+    private long received;
+    private long inserted;
+    private long failed;
+
+    ImportBatch(String userId, String dataStoreId) {
+      this.userId = userId;
+      this.dataStoreId = dataStoreId;
+    }
+
+    void add(long row, String name, Map<String, Object> record) {
+      received++;
+      if (name == null || name.isBlank()) {
+        recordError(row, name, "Record name is required.");
+        return;
+      }
+      Instant now = Instant.now();
+      Map<String, Object> values = record != null ? record : Map.of();
+      records.add(
+          new DataStoreRecord(
+              null,
+              name,
+              dataStoreId,
+              now,
+              now,
+              values,
+              userId,
+              RecordSearchTerms.of(name, values),
+              0L));
+      rowNumbers.add(row);
+      if (records.size() == batchSize) {
+        flush();
+      }
+    }
+
+    void reject(long row, String name, String message) {
+      received++;
+      recordError(row, name, message);
+    }
+
+    RecordImportResultDto finish() {
+      flush();
+      return new RecordImportResultDto(
+          received, inserted, failed, List.copyOf(errors), failed > errors.size());
+    }
+
+    private void flush() {
+      if (records.isEmpty()) {
+        return;
+      }
+      long batchInserted;
+      try {
+        batchInserted =
+            mongoTemplate
+                .bulkOps(BulkOperations.BulkMode.UNORDERED, DataStoreRecord.class)
+                .insert(records)
+                .execute()
+                .getInsertedCount();
+      } catch (BulkOperationException e) {
+        batchInserted = e.getResult().getInsertedCount();
+        e.getErrors()
+            .forEach(
+                error ->
+                    recordError(
+                        rowNumbers.get(error.getIndex()),
+                        records.get(error.getIndex()).name(),
+                        error.getCode() == DUPLICATE_KEY
+                            ? "A record with this name already exists."
+                            : error.getMessage()));
+      }
+      inserted += batchInserted;
+      recordCounter.add(userId, dataStoreId, batchInserted);
+      records.clear();
+      rowNumbers.clear();
+    }
+
+    private void recordError(long row, String name, String message) {
+      failed++;
+      if (errors.size() < maxReportedErrors) {
+        errors.add(new RowErrorDto(row, name, message));
+      }
+    }
+  }
+
+  /** One NDJSON input row. */
+  private record ImportRow(String name, Map<String, Object> record) {}
+}
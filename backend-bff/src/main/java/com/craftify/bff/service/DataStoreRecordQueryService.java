@@ -0,0 +1,340 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.dto.RecordQueryDto;
+import com.craftify.bff.exception.InvalidRecordQueryException;
+import com.craftify.bff.model.DataStoreRecord;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs user queries over the records of a data store. Field predicates, sort keys and projections
+ * are validated and translated into a single Mongo query that is always scoped to the owner and the
+ * data store, so it can use the keyset index or a secondary index declared with {@link
+ * DataStoreIndexService}.
+ *
+ * <p>Results are paged by keyset: the sort keys always end with the record id, and the continuation
+ * token holds the sort key values of the last record of a page, so the next page starts right after
+ * it instead of skipping over every record before it. A record whose sort key holds an array, or a
+ * value of a different BSON type than the last record of the page, may be missed by the next page,
+ * since Mongo only compares values of the same type.
+ */
+@Service
+public class DataStoreRecordQueryService {
+
+  static final int MAX_PAGE_SIZE = 1000;
+
+  private static final int DEFAULT_PAGE_SIZE = 50;
+
+  private static final int MAX_FILTERS = 20;
+
+  /** Top-level fields that can be queried besides {@code record.*} paths. */
+  private static final Set<String> RECORD_FIELDS = Set.of("name", "createdAt", "updatedAt");
+
+  private static final Set<String> DATE_FIELDS = Set.of("createdAt", "updatedAt");
+
+  private static final Pattern RECORD_PATH = Pattern.compile("record(\\.[A-Za-z0-9_-]{1,64}){1,8}");
+
+  private final MongoTemplate mongoTemplate;
+  private final DataStoreMetadataCache metadataCache;
+  private final AuthentificationService auth;
+
+  public DataStoreRecordQueryService(
+      MongoTemplate mongoTemplate,
+      DataStoreMetadataCache metadataCache,
+      AuthentificationService auth) {
+    this.mongoTemplate = mongoTemplate;
+    this.metadataCache = metadataCache;
+    this.auth = auth;
+  }
+
+  /**
+   * Returns one page of the records of a data store matching a query.
+   *
+   * @param dataStoreId Data store id.
+   * @param request Filters, sort keys, projection, page size and continuation token.
+   * @return Matching records of the page and the token of the next one.
+   * @throws IllegalArgumentException if the data store does not exist for the current user.
+   * @throws InvalidRecordQueryException if the query or its continuation token is malformed.
+   */
+  public RecordQueryResult query(String dataStoreId, RecordQueryDto request) {
+    String userId = auth.getCurrentUserId();
+    metadataCache.require(userId, dataStoreId);
+
+    int size =
+        request.size() != null
+            ? Math.max(1, Math.min(request.size(), MAX_PAGE_SIZE))
+            : DEFAULT_PAGE_SIZE;
+    Sort sort = toSort(request.sort());
+
+    var criteria = new ArrayList<Criteria>();
+    criteria.add(Criteria.where("userId").is(userId));
+    criteria.add(Criteria.where("dataStoreId").is(dataStoreId));
+    if (request.filters() != null) {
+      if (request.filters().size() > MAX_FILTERS) {
+        throw new InvalidRecordQueryException("At most " + MAX_FILTERS + " filters are allowed.");
+      }
+      request.filters().forEach(filter -> criteria.add(toCriteria(filter)));
+    }
+    String token = request.continuationToken();
+    if (token != null && !token.isBlank()) {
+      criteria.add(after(sort, QueryCursor.decode(token, sort)));
+    }
+
+    var query = new Query(new Criteria().andOperator(criteria));
+    query.with(sort);
+    // One extra record tells whether another page follows.
+    query.limit(size + 1);
+    // Sorting on a field that no index covers may exceed the in-memory sort limit.
+    query.allowDiskUse(true);
+    if (request.fields() != null && !request.fields().isEmpty()) {
+      query.fields().include("name", "dataStoreId", "createdAt", "updatedAt", "userId", "version");
+      var paths = new LinkedHashSet<String>();
+      request.fields().forEach(field -> paths.add(requireRecordPath(field)));
+      // The next continuation token needs the sort keys of the last record.
+      sort.forEach(
+          order -> {
+            if (order.getProperty().startsWith("record.")) {
+              paths.add(order.getProperty());
+            }
+          });
+      for (String path : paths) {
+        if (paths.stream().noneMatch(other -> path.startsWith(other + "."))) {
+          query.fields().include(path);
+        }
+      }
+    } else {
+      query.fields().exclude("searchTerms");
+    }
+
+    List<DataStoreRecord> records = mongoTemplate.find(query, DataStoreRecord.class);
+    if (records.size() <= size) {
+      return new RecordQueryResult(records, null);
+    }
+    var page = records.subList(0, size);
+    return new RecordQueryResult(page, QueryCursor.encode(sort, page.get(size - 1)));
+  }
+
+  /**
+   * Validates a {@code record.*} path.
+   *
+   * @param path Path to validate.
+   * @return The path.
+   * @throws InvalidRecordQueryException if the path is not a valid record path.
+   */
+  static String requireRecordPath(String path) {
+    if (path == null || !RECORD_PATH.matcher(path).matches()) {
+      throw new InvalidRecordQueryException(
+          "Invalid record path '" + path + "'; expected record.<field>[.<field>...].");
+    }
+    return path;
+  }
+
+  private static String requireField(String field) {
+    return RECORD_FIELDS.contains(field) ? field : requireRecordPath(field);
+  }
+
+  private static Criteria toCriteria(RecordQueryDto.FilterDto filter) {
+    String field = requireField(filter.field());
+    var criteria = Criteria.where(field);
+    String op = filter.op() != null ? filter.op() : "eq";
+    return switch (op) {
+      case "eq" -> criteria.is(value(field, filter.value()));
+      case "ne" -> criteria.ne(value(field, filter.value()));
+      case "gt" -> criteria.gt(value(field, filter.value()));
+      case "gte" -> criteria.gte(value(field, filter.value()));
+      case "lt" -> criteria.lt(value(field, filter.value()));
+      case "lte" -> criteria.lte(value(field, filter.value()));
+      case "in" -> criteria.in(values(field, filter.value()));
+      case "nin" -> criteria.nin(values(field, filter.value()));
+      case "exists" -> criteria.exists(!Boolean.FALSE.equals(filter.value()));
+      case "contains" -> {
+        if (!(filter.value() instanceof String text) || text.isEmpty()) {
+          throw new InvalidRecordQueryException("Operator 'contains' requires a non-empty text.");
+        }
+        yield criteria.regex(Pattern.quote(text), "i");
+      }
+      default -> throw new InvalidRecordQueryException("Unknown operator '" + op + "'.");
+    };
+  }
+
+  private static List<Object> values(String field, Object value) {
+    if (!(value instanceof Collection<?> collection)) {
+      throw new InvalidRecordQueryException("Operators 'in' and 'nin' require a list of values.");
+    }
+    return collection.stream().map(item -> value(field, item)).toList();
+  }
+
+  /** Converts timestamps given as ISO-8601 text so they compare against stored dates. */
+  private static Object value(String field, Object value) {
+    if (value instanceof Collection<?> || value instanceof Map<?, ?>) {
+      throw new InvalidRecordQueryException("Operator value of '" + field + "' must be a scalar.");
+    }
+    if (DATE_FIELDS.contains(field) && value instanceof String text) {
+      try {
+        return Instant.parse(text);
+      } catch (DateTimeParseException e) {
+        throw new InvalidRecordQueryException("Invalid timestamp '" + text + "'.", e);
+      }
+    }
+    return value;
+  }
+
+  private static Sort toSort(List<RecordQueryDto.SortDto> keys) {
+    if (keys == null || keys.isEmpty()) {
+      return Sort.by(Sort.Direction.DESC, "updatedAt").and(Sort.by(Sort.Direction.DESC, "id"));
+    }
+    Sort sort = Sort.unsorted();
+    for (RecordQueryDto.SortDto key : keys) {
+      Sort.Direction direction;
+      try {
+        direction = key.direction() != null ? Sort.Direction.fromString(key.direction()) : null;
+      } catch (IllegalArgumentException e) {
+        throw new InvalidRecordQueryException("Invalid sort direction '" + key.direction() + "'.");
+      }
+      sort =
+          sort.and(
+              Sort.by(
+                  direction != null ? direction : Sort.Direction.ASC, requireField(key.field())));
+    }
+    // Records with equal sort keys keep a stable order across pages.
+    return sort.and(Sort.by(Sort.Direction.ASC, "id"));
+  }
+
+  /**
+   * Matches the records that follow a cursor in the sort order: for some sort key, the records
+   * equal to the cursor on every earlier key and beyond it on that key. Null and missing values
+   * sort first.
+   */
+  private static Criteria after(Sort sort, List<Object> cursor) {
+    List<Sort.Order> orders = sort.toList();
+    var alternatives = new ArrayList<Criteria>();
+    for (int i = 0; i < orders.size(); i++) {
+      var conditions = new ArrayList<Criteria>();
+      for (int j = 0; j < i; j++) {
+        conditions.add(Criteria.where(orders.get(j).getProperty()).is(cursor.get(j)));
+      }
+      Sort.Order order = orders.get(i);
+      Object value = cursor.get(i);
+      Criteria beyond;
+      if (order.isAscending()) {
+        beyond =
+            value == null
+                ? Criteria.where(order.getProperty()).ne(null)
+                : Criteria.where(order.getProperty()).gt(value);
+      } else if (value != null) {
+        beyond =
+            new Criteria()
+                .orOperator(
+                    Criteria.where(order.getProperty()).lt(value),
+                    Criteria.where(order.getProperty()).is(null));
+      } else {
+        // Nothing sorts below null in descending order.
+        continue;
+      }
+      conditions.add(beyond);
+      alternatives.add(new Criteria().andOperator(conditions));
+    }
+    return new Criteria().orOperator(alternatives);
+  }
+
+  /**
+   * Position after a record in a sort order, encoded as an opaque token holding the sort keys and
+   * the values the record has for them.
+   */
+  private static final class QueryCursor {
+
+    private QueryCursor() {}
+
+    static String encode(Sort sort, DataStoreRecord record) {
+      var values = new ArrayList<Object>();
+      sort.forEach(order -> values.add(sortValue(record, order.getProperty())));
+      var json = new Document("k", signature(sort)).append("v", values).toJson();
+      return Base64.getUrlEncoder()
+          .withoutPadding()
+          .encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return Sort key values of the cursor, in sort order.
+     * @throws InvalidRecordQueryException if the token is malformed or belongs to another sort.
+     */
+    static List<Object> decode(String token, Sort sort) {
+      Document cursor;
+      try {
+        cursor =
+            Document.parse(
+                new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8));
+      } catch (RuntimeException e) {
+        throw new InvalidRecordQueryException("Invalid continuation token.", e);
+      }
+      List<?> values = cursor.get("v", List.class);
+      if (!signature(sort).equals(cursor.get("k"))
+          || values == null
+          || values.size() != size(sort)) {
+        throw new InvalidRecordQueryException(
+            "The continuation token does not belong to this sort order.");
+      }
+      return new ArrayList<>(values);
+    }
+
+    private static List<String> signature(Sort sort) {
+      return sort.stream().map(order -> order.getProperty() + ":" + order.getDirection()).toList();
+    }
+
+    private static int size(Sort sort) {
+      return (int) sort.stream().count();
+    }
+
+    private static Object sortValue(DataStoreRecord record, String field) {
+      return switch (field) {
+        case "id" -> new ObjectId(record.id());
+        case "name" -> record.name();
+        case "createdAt" -> record.createdAt() != null ? Date.from(record.createdAt()) : null;
+        case "updatedAt" -> record.updatedAt() != null ? Date.from(record.updatedAt()) : null;
+        default -> {
+          Object value = record.record();
+          for (String segment : field.substring("record.".length()).split("\\.")) {
+            value = value instanceof Map<?, ?> map ? map.get(segment) : null;
+          }
+          yield value;
+        }
+      };
+    }
+  }
+
+  /**
+   * One page of query results.
+   *
+   * @param records records on the page, in query order
+   * @param nextContinuationToken token of the next page, or null if this is the last page
+   */
+  public record RecordQueryResult(List<DataStoreRecord> records, String nextContinuationToken) {}
+
+  /**
+   * One page of search results.
+   *
+   * @param records records on the page
+   * @param page 0-based page number
+   * @param size page size applied
+   * @param hasNext whether another page follows
+   */
+  public record RecordQueryPage(
+      List<DataStoreRecord> records, int page, int size, boolean hasNext) {}
+}
@@ -0,0 +1,201 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.exception.InvalidRecordQueryException;
+import com.craftify.bff.model.DataStoreRecord;
+import com.craftify.bff.service.DataStoreRecordQueryService.RecordQueryPage;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Full-text search over the records of a data store. Every record stores its search terms (see
+ * {@link RecordSearchTerms}) in a multikey index on {@code (userId, dataStoreId, searchTerms)},
+ * which acts as a per-store inverted index maintained by every record write. Each query term is
+ * matched as a prefix with an anchored regex, so only the index entries of matching terms are
+ * scanned. Matches are ranked by how many query terms match whole terms rather than prefixes, then
+ * newest first.
+ */
+@Service
+public class DataStoreRecordSearchService {
+
+  private static final int MAX_QUERY_TERMS = 8;
+
+  private static final int BACKFILL_BATCH_SIZE = 500;
+
+  /** Name of the cluster-wide lease on the backfill, which also records its completion. */
+  private static final String BACKFILL_JOB = "search-terms-backfill";
+
+  /** How long an instance owns the backfill before another may take it over. */
+  private static final Duration BACKFILL_LEASE = Duration.ofHours(1);
+
+  private static final Logger logger = LoggerFactory.getLogger(DataStoreRecordSearchService.class);
+
+  private final MongoTemplate mongoTemplate;
+  private final DataStoreMetadataCache metadataCache;
+  private final AuthentificationService auth;
+  private final JobLockService jobLockService;
+
+  private volatile boolean backfilled;
+
+  public DataStoreRecordSearchService(
+      MongoTemplate mongoTemplate,
+      DataStoreMetadataCache metadataCache,
+      AuthentificationService auth,
+      JobLockService jobLockService) {
+    this.mongoTemplate = mongoTemplate;
+    this.metadataCache = metadataCache;
+    this.auth = auth;
+    this.jobLockService = jobLockService;
+  }
+
+  /**
+   * Searches the records of a data store. A record matches when every query term is a prefix of one
+   * of its terms.
+   *
+   * @param dataStoreId Data store id.
+   * @param text Query text.
+   * @param page 0-based page number.
+   * @param size Maximum number of records on the page.
+   * @return Matching records of the page, best matches first.
+   * @throws IllegalArgumentException if the data store does not exist for the current user.
+   * @throws InvalidRecordQueryException if the query holds no searchable term.
+   */
+  public RecordQueryPage search(String dataStoreId, String text, int page, int size) {
+    String userId = auth.getCurrentUserId();
+    metadataCache.require(userId, dataStoreId);
+
+    List<String> terms = RecordSearchTerms.ofQuery(text != null ? text : "");
+    if (terms.isEmpty()) {
+      throw new InvalidRecordQueryException("Search text must contain letters or digits.");
+    }
+    if (terms.size() > MAX_QUERY_TERMS) {
+      terms = terms.subList(0, MAX_QUERY_TERMS);
+    }
+    int limit = Math.max(1, Math.min(size, DataStoreRecordQueryService.MAX_PAGE_SIZE));
+    int pageNumber = Math.max(0, page);
+
+    var matches = new ArrayList<Document>();
+    var score = new ArrayList<Object>();
+    for (String term : terms) {
+      // Terms only hold letters and digits, so the anchored regex needs no escaping and is
+      // turned into a tight index range.
+      matches.add(new Document("searchTerms", new Document("$regex", "^" + term)));
+      score.add(
+          new Document("$cond", List.of(new Document("$in", List.of(term, "$searchTerms")), 2, 1)));
+    }
+
+    var pipeline =
+        List.of(
+            new Document(
+                "$match",
+                new Document("userId", userId)
+                    .append("dataStoreId", dataStoreId)
+                    .append("$and", matches)),
+            new Document("$addFields", new Document("_score", new Document("$add", score))),
+            new Document(
+                "$sort", new Document("_score", -1).append("updatedAt", -1).append("_id", -1)),
+            new Document("$skip", (long) pageNumber * limit),
+            new Document("$limit", limit + 1),
+            new Document("$project", new Document("_score", 0).append("searchTerms", 0)));
+
+    var records = new ArrayList<DataStoreRecord>();
+    records()
+        .aggregate(pipeline)
+        .allowDiskUse(true)
+        .forEach(
+            document ->
+                records.add(mongoTemplate.getConverter().read(DataStoreRecord.class, document)));
+    boolean hasNext = records.size() > limit;
+    return new RecordQueryPage(
+        hasNext ? records.subList(0, limit) : records, pageNumber, limit, hasNext);
+  }
+
+  /**
+   * Adds search terms to records written before search existed, walking the collection in id order
+   * so every record is visited once. The backfill runs on one instance at a time, and once a run
+   * finds no record left without terms it records its completion, after which no instance scans the
+   * collection again: every record write since maintains the terms.
+   */
+  @Scheduled(
+      initialDelayString = "${data-stores.search-backfill-initial-delay:1m}",
+      fixedDelayString = "${data-stores.search-backfill-interval:1h}")
+  public void backfill() {
+    if (backfilled) {
+      return;
+    }
+    try {
+      if (jobLockService.isCompleted(BACKFILL_JOB)) {
+        backfilled = true;
+        return;
+      }
+      if (!jobLockService.tryAcquire(BACKFILL_JOB, BACKFILL_LEASE)) {
+        return;
+      }
+      try {
+        long updated = backfillBatches();
+        jobLockService.complete(BACKFILL_JOB);
+        backfilled = true;
+        logger.info("Search terms backfill completed; added terms to {} records", updated);
+      } finally {
+        jobLockService.release(BACKFILL_JOB);
+      }
+    } catch (RuntimeException e) {
+      logger.error("Search terms backfill failed", e);
+    }
+  }
+
+  /**
+   * Adds search terms to every record without them.
+   *
+   * @return Number of updated records.
+   */
+  private long backfillBatches() {
+    long updated = 0;
+    ObjectId last = null;
+    while (true) {
+      var filter = new Document("searchTerms", new Document("$exists", false));
+      if (last != null) {
+        filter.append("_id", new Document("$gt", last));
+      }
+      var batch =
+          records()
+              .find(filter)
+              .projection(new Document("name", 1).append("record", 1))
+              .sort(new Document("_id", 1))
+              .limit(BACKFILL_BATCH_SIZE)
+              .into(new ArrayList<>());
+      if (batch.isEmpty()) {
+        return updated;
+      }
+      var updates = new ArrayList<UpdateOneModel<Document>>(batch.size());
+      for (Document record : batch) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> values = record.get("record", Map.class);
+        updates.add(
+            new UpdateOneModel<>(
+                new Document("_id", record.get("_id"))
+                    .append("searchTerms", new Document("$exists", false)),
+                Updates.set(
+                    "searchTerms", RecordSearchTerms.of(record.getString("name"), values))));
+      }
+      records().bulkWrite(updates);
+      updated += updates.size();
+      last = batch.get(batch.size() - 1).getObjectId("_id");
+    }
+  }
+
+  private MongoCollection<Document> records() {
+    return mongoTemplate.getCollection(mongoTemplate.getCollectionName(DataStoreRecord.class));
+  }
+}
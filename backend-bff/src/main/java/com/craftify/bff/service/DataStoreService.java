@@ -1,32 +1,73 @@
 package com.craftify.bff.service;
 
+import com.craftify.bff.dto.DataStoreDeletionDto;
+import com.craftify.bff.exception.InvalidRecordQueryException;
+import com.craftify.bff.exception.OperationRestrictionException;
 import com.craftify.bff.model.DataStore;
 import com.craftify.bff.model.DataStoreRecord;
 import com.craftify.bff.model.DataStoreRecordDetails;
 import com.craftify.bff.repository.DataStoreRecordsRepository;
 import com.craftify.bff.repository.DataStoreRepository;
+import com.mongodb.MongoServerException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 @Service
 public class DataStoreService {
 
+  private static final int MAX_RECORDS_PAGE_SIZE = 1000;
+
+  private static final int DUPLICATE_KEY = 11000;
+
+  private static final Sort RECORDS_ORDER =
+      Sort.by(Sort.Direction.DESC, "updatedAt").and(Sort.by(Sort.Direction.DESC, "id"));
+
   private final DataStoreRepository dataStoreRepository;
   private final DataStoreRecordsRepository dataStoreRecordsRepository;
   private final AuthentificationService auth;
+  private final DataStoreRecordCounter recordCounter;
+  private final DataStoreIndexService indexService;
+  private final MongoTemplate mongoTemplate;
+  private final DataStoreMetadataCache metadataCache;
+  private final DataStoreDeletionService deletionService;
 
   public DataStoreService(
       DataStoreRepository dataStoreRepository,
       DataStoreRecordsRepository dataStoreRecordsRepository,
-      AuthentificationService auth) {
+      AuthentificationService auth,
+      DataStoreRecordCounter recordCounter,
+      DataStoreIndexService indexService,
+      MongoTemplate mongoTemplate,
+      DataStoreMetadataCache metadataCache,
+      DataStoreDeletionService deletionService) {
     this.dataStoreRepository = dataStoreRepository;
     this.dataStoreRecordsRepository = dataStoreRecordsRepository;
     this.auth = auth;
+    this.recordCounter = recordCounter;
+    this.indexService = indexService;
+    this.mongoTemplate = mongoTemplate;
+    this.metadataCache = metadataCache;
+    this.deletionService = deletionService;
   }
 
   public DataStore create(DataStore schema) {
@@ -46,16 +87,22 @@ public class DataStoreService {
         PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt")));
   }
 
+  /**
+   * Returns a record with the metadata of its data store. The record must belong to the given data
+   * store.
+   *
+   * @param dataStoreId Data store id.
+   * @param recordId Record id.
+   * @return Record details.
+   * @throws IllegalArgumentException if the data store or the record does not exist.
+   */
   public Optional<DataStoreRecordDetails> getDetails(String dataStoreId, String recordId) {
-    DataStore dataStore =
-        dataStoreRepository
-            .findByIdAndUserId(dataStoreId, auth.getCurrentUserId())
-            .orElseThrow(
-                () -> new IllegalArgumentException("DataStore not found for the current user."));
+    String userId = auth.getCurrentUserId();
+    DataStore dataStore = metadataCache.require(userId, dataStoreId);
 
     DataStoreRecord record =
         dataStoreRecordsRepository
-            .findByIdAndUserId(recordId, auth.getCurrentUserId())
+            .findByIdAndUserIdAndDataStoreId(recordId, userId, dataStoreId)
             .orElseThrow(
                 () -> new IllegalArgumentException("Record not found for the current user."));
 
@@ -66,87 +113,293 @@ public class DataStoreService {
             record.updatedAt(),
             dataStore.name(),
             dataStore.type(),
-            record.record()));
+            record.record(),
+            record.version() != null ? record.version() : 0L));
   }
 
   public Optional<DataStore> update(String id, DataStore updatedSchema) {
+    Optional<DataStore> updated =
+        dataStoreRepository
+            .findByIdAndUserId(id, auth.getCurrentUserId())
+            .map(
+                existing ->
+                    dataStoreRepository.save(
+                        new DataStore(
+                            existing.id(),
+                            updatedSchema.name(),
+                            updatedSchema.description(),
+                            updatedSchema.type(),
+                            existing.createdAt(),
+                            existing.userId())));
+    updated.ifPresent(dataStore -> metadataCache.invalidate(dataStore.id()));
+    return updated;
+  }
+
+  /**
+   * Deletes a data store. The data store disappears at once; its records are deleted by a
+   * background job whose progress can be followed with {@link #getDeletion(String)}.
+   *
+   * @param id Data store id.
+   * @return Progress of the deletion, or empty if the data store does not exist.
+   */
+  public Optional<DataStoreDeletionDto> delete(String id) {
     return dataStoreRepository
         .findByIdAndUserId(id, auth.getCurrentUserId())
         .map(
-            existing ->
-                dataStoreRepository.save(
-                    new DataStore(
-                        existing.id(),
-                        updatedSchema.name(),
-                        updatedSchema.description(),
-                        updatedSchema.type(),
-                        existing.createdAt(),
-                        existing.userId())));
+            schema -> {
+              // Persist the job first so the records are never left without one.
+              var deletion =
+                  deletionService.request(schema, recordCounter.get(schema.userId(), schema.id()));
+              dataStoreRepository.deleteById(schema.id());
+              metadataCache.invalidate(schema.id());
+              recordCounter.remove(schema.userId(), schema.id());
+              indexService.removeAll(schema.userId(), schema.id());
+              return deletion;
+            });
   }
 
-  public void delete(String id) {
-    dataStoreRepository
-        .findByIdAndUserId(id, auth.getCurrentUserId())
-        .ifPresent(schema -> dataStoreRepository.deleteById(schema.id()));
+  /**
+   * Returns the progress of the deletion of a data store of the current user.
+   *
+   * @param id Data store id.
+   * @return Progress, or empty if no deletion of the data store is known.
+   */
+  public Optional<DataStoreDeletionDto> getDeletion(String id) {
+    return deletionService.get(auth.getCurrentUserId(), id);
   }
 
   public Long recordsCount(String dataStoreId) {
-    return dataStoreRecordsRepository
-        .countByUserIdAndDataStoreId(auth.getCurrentUserId(), dataStoreId)
-        .orElse(0L);
+    return recordCounter.get(auth.getCurrentUserId(), dataStoreId);
   }
 
-  public boolean canDelete(String id) {
-    // Placeholder logic; implement check if needed
-    return true;
+  /**
+   * Returns the record counts of several data stores of the current user at once.
+   *
+   * @param dataStoreIds Data store ids.
+   * @return Number of records keyed by data store id.
+   */
+  public Map<String, Long> recordsCounts(Collection<String> dataStoreIds) {
+    return recordCounter.getAll(auth.getCurrentUserId(), dataStoreIds);
   }
 
-  public Page<DataStoreRecord> listRecords(String dataStoreId, int page, int size) {
-    dataStoreRepository
-        .findByIdAndUserId(dataStoreId, auth.getCurrentUserId())
-        .orElseThrow(
-            () -> new IllegalArgumentException("DataStore not found for the current user."));
+  /**
+   * Lists one page of records of a data store, newest first. Pages are addressed by the sort key
+   * of the last record of the previous page rather than by offset, so every page is a single
+   * bounded index range scan regardless of its depth.
+   *
+   * @param dataStoreId Data store id.
+   * @param continuationToken Token returned with the previous page, or null for the first page.
+   * @param size Maximum number of records on the page.
+   * @return Records of the page and the token of the next one.
+   */
+  public RecordPage listRecords(String dataStoreId, String continuationToken, int size) {
+    metadataCache.require(auth.getCurrentUserId(), dataStoreId);
 
-    return dataStoreRecordsRepository.findAllByUserIdAndDataStoreId(
-        auth.getCurrentUserId(),
-        dataStoreId,
-        PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "updatedAt")));
+    int limit = Math.max(1, Math.min(size, MAX_RECORDS_PAGE_SIZE));
+    // One extra record tells whether another page follows.
+    var fetch = Limit.of(limit + 1);
+    List<DataStoreRecord> records;
+    if (continuationToken == null || continuationToken.isBlank()) {
+      records =
+          dataStoreRecordsRepository.findAllByUserIdAndDataStoreId(
+              auth.getCurrentUserId(), dataStoreId, RECORDS_ORDER, fetch);
+    } else {
+      RecordCursor cursor = RecordCursor.decode(continuationToken);
+      records =
+          dataStoreRecordsRepository.findAllByUserIdAndDataStoreIdAfter(
+              auth.getCurrentUserId(),
+              dataStoreId,
+              cursor.updatedAt(),
+              cursor.id(),
+              RECORDS_ORDER,
+              fetch);
+    }
+
+    if (records.size() <= limit) {
+      return new RecordPage(records, null);
+    }
+    var page = records.subList(0, limit);
+    var last = page.get(limit - 1);
+    return new RecordPage(page, RecordCursor.encode(last.updatedAt(), last.id()));
   }
 
+  /**
+   * Creates a record in a data store. Duplicate names are detected by the unique name index on
+   * insert rather than checked up front.
+   *
+   * @param dataStoreId Data store id.
+   * @param name Record name, unique within the data store ignoring case.
+   * @param record Record fields.
+   * @return The created record.
+   * @throws IllegalArgumentException if the data store does not exist for the current user.
+   * @throws IllegalStateException if a record with the same name exists.
+   */
   public DataStoreRecord createRecord(String dataStoreId, String name, Map<String, Object> record) {
-    dataStoreRepository
-        .findByIdAndUserId(dataStoreId, auth.getCurrentUserId())
-        .orElseThrow(
-            () -> new IllegalArgumentException("DataStore not found for the current user."));
+    metadataCache.require(auth.getCurrentUserId(), dataStoreId);
 
-    boolean exists =
-        dataStoreRecordsRepository.existsByUserIdAndDataStoreIdAndNameIgnoreCase(
-            auth.getCurrentUserId(), dataStoreId, name);
+    Instant now = Instant.now();
+    var entity =
+        new DataStoreRecord(
+            null,
+            name,
+            dataStoreId,
+            now,
+            now,
+            record,
+            auth.getCurrentUserId(),
+            RecordSearchTerms.of(name, record),
+            0L);
 
-    if (exists) {
-      throw new IllegalStateException("A record with this name already exists.");
+    DataStoreRecord saved;
+    try {
+      saved = dataStoreRecordsRepository.insert(entity);
+    } catch (DuplicateKeyException e) {
+      throw new IllegalStateException("A record with this name already exists.", e);
     }
+    recordCounter.add(saved.userId(), dataStoreId, 1);
+    return saved;
+  }
 
-    Instant now = Instant.now();
-    var entity =
-        new DataStoreRecord(null, name, dataStoreId, now, now, record, auth.getCurrentUserId());
+  /**
+   * Applies a partial update to the fields of a record in a single atomic update. When an expected
+   * version is given, the update only applies if the record still has that version; tests of the
+   * patch are checked the same way.
+   *
+   * @param dataStoreId Data store id.
+   * @param recordId Record id.
+   * @param patch Field-level changes.
+   * @param expectedVersion Version the record must have, or null to update unconditionally.
+   * @return The updated record.
+   * @throws IllegalArgumentException if the record does not exist in the data store.
+   * @throws OperationRestrictionException if the version or a test of the patch does not match.
+   * @throws InvalidRecordQueryException if the patch does not fit the shape of the record.
+   */
+  public DataStoreRecord patchRecord(
+      String dataStoreId, String recordId, RecordPatch patch, Long expectedVersion) {
+    String userId = auth.getCurrentUserId();
+    metadataCache.require(userId, dataStoreId);
+    if (!ObjectId.isValid(recordId)) {
+      throw new IllegalArgumentException("Record not found");
+    }
+    var criteria =
+        Criteria.where("_id")
+            .is(new ObjectId(recordId))
+            .and("userId")
+            .is(userId)
+            .and("dataStoreId")
+            .is(dataStoreId);
+    if (expectedVersion != null) {
+      // Records created before versioning have no version and count as version 0.
+      criteria =
+          expectedVersion == 0
+              ? criteria.and("version").in(0L, null)
+              : criteria.and("version").is(expectedVersion);
+    }
+    if (!patch.tests().isEmpty()) {
+      var tests = new ArrayList<Document>();
+      patch.tests().forEach((path, value) -> tests.add(holdsExactly(path, value)));
+      criteria = criteria.andOperator(Criteria.expr(() -> new Document("$and", tests)));
+    }
+
+    var update = new Update().set("updatedAt", Instant.now()).inc("version", 1);
+    patch.set().forEach(update::set);
+    patch.unset().forEach(update::unset);
+    patch.append().forEach((path, value) -> update.push(path, value));
+
+    DataStoreRecord updated;
+    try {
+      updated =
+          mongoTemplate.findAndModify(
+              Query.query(criteria),
+              update,
+              FindAndModifyOptions.options().returnNew(true),
+              DataStoreRecord.class);
+    } catch (DataAccessException e) {
+      if (e.getMostSpecificCause() instanceof MongoServerException cause
+          && cause.getCode() != DUPLICATE_KEY) {
+        throw new InvalidRecordQueryException(
+            "Patch does not fit the record: " + cause.getMessage(), e);
+      }
+      throw e;
+    }
+
+    if (updated == null) {
+      dataStoreRecordsRepository
+          .findByIdAndUserIdAndDataStoreId(recordId, userId, dataStoreId)
+          .orElseThrow(() -> new IllegalArgumentException("Record not found"));
+      throw new OperationRestrictionException(
+          "The record was changed concurrently or a test of the patch failed.");
+    }
 
-    return dataStoreRecordsRepository.save(entity);
+    // Search terms depend on the whole record; only the writer of this version updates them.
+    var searchTerms = RecordSearchTerms.of(updated.name(), updated.record());
+    mongoTemplate.updateFirst(
+        Query.query(Criteria.where("_id").is(updated.id()).and("version").is(updated.version())),
+        Update.update("searchTerms", searchTerms),
+        DataStoreRecord.class);
+    return updated;
   }
 
+  /**
+   * Deletes a record of a data store with a single delete scoped to the owner and the data store.
+   *
+   * @param dataStoreId Data store id.
+   * @param recordId Record id.
+   * @throws IllegalArgumentException if the data store or the record does not exist.
+   */
   public void deleteRecord(String dataStoreId, String recordId) {
-    dataStoreRepository
-            .findByIdAndUserId(dataStoreId, auth.getCurrentUserId())
-            .orElseThrow(() -> new IllegalArgumentException("Data store not found"));
+    String userId = auth.getCurrentUserId();
+    metadataCache.require(userId, dataStoreId);
 
-    DataStoreRecord record = dataStoreRecordsRepository
-            .findByIdAndUserId(recordId, auth.getCurrentUserId())
-            .orElseThrow(() -> new IllegalArgumentException("Record not found"));
+    long deleted =
+        dataStoreRecordsRepository.deleteByIdAndUserIdAndDataStoreId(recordId, userId, dataStoreId);
+    if (deleted == 0) {
+      throw new IllegalArgumentException("Record not found");
+    }
+    recordCounter.add(userId, dataStoreId, -1);
+  }
+
+  /**
+   * Tests that a field holds exactly a value, as a JSON Patch {@code test} requires. A plain query
+   * predicate would also match an array containing the value, and a null test would match a
+   * missing field, so the comparison is an aggregation expression instead. Numbers compare by
+   * value; object members must be in the order they are stored in.
+   */
+  private static Document holdsExactly(String path, Object value) {
+    if (value == null) {
+      return new Document("$eq", List.of(new Document("$type", "$" + path), "null"));
+    }
+    return new Document("$eq", List.of("$" + path, new Document("$literal", value)));
+  }
+
+  /**
+   * One page of data store records.
+   *
+   * @param records records on the page, newest first
+   * @param nextContinuationToken token of the next page, or null if this is the last page
+   */
+  public record RecordPage(List<DataStoreRecord> records, String nextContinuationToken) {}
 
-    if (!record.dataStoreId().equals(dataStoreId)) {
-      throw new IllegalArgumentException("Record does not belong to the specified data store");
+  /** Position after a record in the (updatedAt, _id) order, encoded as an opaque token. */
+  private record RecordCursor(Instant updatedAt, ObjectId id) {
+
+    static String encode(Instant updatedAt, String id) {
+      var raw = updatedAt.toEpochMilli() + ":" + id;
+      return Base64.getUrlEncoder()
+          .withoutPadding()
+          .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
     }
 
-    dataStoreRecordsRepository.deleteById(record.id());
+    static RecordCursor decode(String token) {
+      try {
+        var raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        int separator = raw.indexOf(':');
+        return new RecordCursor(
+            Instant.ofEpochMilli(Long.parseLong(raw.substring(0, separator))),
+            new ObjectId(raw.substring(separator + 1)));
+      } catch (RuntimeException e) {
+        throw new IllegalArgumentException("Invalid continuation token.", e);
+      }
+    }
   }
 }
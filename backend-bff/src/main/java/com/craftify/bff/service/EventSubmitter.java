@@ -0,0 +1,285 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.EventProducerConfig;
+import com.craftify.bff.model.Event;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Submits events to the events producer API without blocking the caller. Events are buffered in a
+ * bounded queue and a dedicated thread flushes them in batches once a batch is full or the linger
+ * delay has passed. Each batch is one asynchronous request to the batch endpoint of the producer,
+ * with a bounded number of requests in flight. When the producer falls behind, the buffer fills up
+ * and further submissions are rejected instead of piling up in memory. Buffered events are flushed
+ * before the application shuts down.
+ *
+ * <p>Events the producer did not write are retried: those listed with an error in the result of a
+ * partially failed batch, and every event of a batch whose request failed or was answered with a
+ * server error. They are buffered again after a backoff that doubles with every attempt. Delivery
+ * is therefore at least once up to the attempt limit, and a retried event may land after events
+ * submitted later. An event is dropped, and logged, once it failed its last attempt, when the
+ * buffer is full at its retry, when the application stops before its retry, or when the producer
+ * rejects its batch as malformed.
+ */
+@Service
+public class EventSubmitter implements SmartLifecycle {
+
+  /** How long the flush thread waits for an event before checking whether it should stop. */
+  private static final Duration IDLE_POLL = Duration.ofMillis(100);
+
+  private static final Logger logger = LoggerFactory.getLogger(EventSubmitter.class);
+
+  private final HttpClient httpClient;
+  private final ObjectMapper objectMapper;
+  private final URI uri;
+  private final BlockingQueue<Submission> buffer;
+  private final int batchSize;
+  private final long lingerNanos;
+  private final int maxInFlight;
+  private final Semaphore inFlight;
+  private final Duration requestTimeout;
+  private final int maxAttempts;
+  private final Duration retryBackoff;
+
+  private volatile boolean running;
+  private Thread flusher;
+
+  public EventSubmitter(
+      HttpClient httpClient, ObjectMapper objectMapper, EventProducerConfig config) {
+    this.httpClient = httpClient;
+    this.objectMapper = objectMapper;
+    this.uri =
+        UriComponentsBuilder.newInstance()
+            .uri(URI.create(config.getHost()))
+            .pathSegment(config.getPath(), "batch")
+            .build()
+            .toUri();
+    this.buffer = new ArrayBlockingQueue<>(Math.max(1, config.getBufferCapacity()));
+    this.batchSize = Math.max(1, config.getBatchSize());
+    this.lingerNanos = config.getLinger().toNanos();
+    this.maxInFlight = Math.max(1, config.getMaxInFlight());
+    this.inFlight = new Semaphore(maxInFlight);
+    this.requestTimeout = config.getRequestTimeout();
+    this.maxAttempts = Math.max(1, config.getMaxAttempts());
+    this.retryBackoff = config.getRetryBackoff();
+  }
+
+  /**
+   * Buffers an event for submission.
+   *
+   * @param type Event type.
+   * @param userId Id of the user the event belongs to.
+   * @param payload Event payload.
+   * @return Tracking id of the event, or empty if the event cannot be buffered.
+   */
+  public Optional<String> submit(String type, String userId, Map<String, Object> payload) {
+    var event = new Event(UUID.randomUUID().toString(), type, userId, payload);
+    if (!running) {
+      logger.warn("Rejected {} event of {}: event submitter is stopped", type, userId);
+      return Optional.empty();
+    }
+    if (!buffer.offer(new Submission(event, 1))) {
+      logger.warn("Rejected {} event of {}: submission buffer is full", type, userId);
+      return Optional.empty();
+    }
+    return Optional.of(event.id());
+  }
+
+  @Override
+  public synchronized void start() {
+    running = true;
+    flusher = new Thread(this::flushLoop, "event-submitter");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  @Override
+  public synchronized void stop() {
+    if (flusher == null) {
+      return;
+    }
+    running = false;
+    try {
+      flusher.join();
+      // Wait for outstanding requests by reclaiming all permits.
+      inFlight.acquire(maxInFlight);
+      inFlight.release(maxInFlight);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  private void flushLoop() {
+    List<Submission> batch = new ArrayList<>(batchSize);
+    while (running || !buffer.isEmpty()) {
+      try {
+        Submission first = buffer.poll(IDLE_POLL.toMillis(), TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + lingerNanos;
+        while (batch.size() < batchSize) {
+          Submission next = buffer.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        send(batch);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        logger.warn("Event submitter interrupted with {} events buffered", buffer.size());
+        return;
+      } catch (Exception e) {
+        logger.error("Failed to flush {} events", batch.size(), e);
+      }
+      batch = new ArrayList<>(batchSize);
+    }
+  }
+
+  /**
+   * Sends a batch as a single request to the batch endpoint of the producer, which answers once the
+   * broker acknowledged every event. Blocks while the maximum number of batches is in flight, which
+   * lets the buffer absorb bursts.
+   */
+  private void send(List<Submission> batch) throws InterruptedException {
+    List<Event> events = batch.stream().map(Submission::event).toList();
+    HttpRequest request;
+    try {
+      request =
+          HttpRequest.newBuilder(uri)
+              .timeout(requestTimeout)
+              .header("Content-Type", "application/json")
+              .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(events)))
+              .build();
+    } catch (Exception e) {
+      logger.error("Dropped {} events: cannot serialize them", batch.size(), e);
+      return;
+    }
+
+    inFlight.acquire();
+    try {
+      httpClient
+          .sendAsync(request, HttpResponse.BodyHandlers.ofString())
+          .whenComplete(
+              (response, error) -> {
+                inFlight.release();
+                if (error != null) {
+                  logger.warn(
+                      "Failed to submit events {}..{}",
+                      events.get(0).id(),
+                      events.get(events.size() - 1).id(),
+                      error);
+                  retry(batch);
+                } else if (response.statusCode() == 502) {
+                  // The producer lists the outcome of every event of the batch.
+                  retry(failed(batch, response.body()));
+                } else if (response.statusCode() >= 500) {
+                  logger.warn(
+                      "Producer failed a batch of {} events with status {}: {}",
+                      batch.size(),
+                      response.statusCode(),
+                      response.body());
+                  retry(batch);
+                } else if (response.statusCode() != 200) {
+                  logger.error(
+                      "Dropped {} events: producer rejected them with status {}: {}",
+                      batch.size(),
+                      response.statusCode(),
+                      response.body());
+                }
+              });
+    } catch (RuntimeException e) {
+      inFlight.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the events of a batch that the producer did not write, as listed in the results of its
+   * answer; every event of the batch if the answer cannot be read.
+   */
+  private List<Submission> failed(List<Submission> batch, String body) {
+    try {
+      var failed = new ArrayList<Submission>();
+      for (JsonNode result : objectMapper.readTree(body).path("results")) {
+        int index = result.path("index").asInt(-1);
+        if (result.hasNonNull("error") && index >= 0 && index < batch.size()) {
+          failed.add(batch.get(index));
+        }
+      }
+      return failed;
+    } catch (Exception e) {
+      logger.warn("Cannot read the results of a batch of {} events", batch.size(), e);
+      return batch;
+    }
+  }
+
+  /**
+   * Buffers failed events again once their backoff has passed, dropping those that used up their
+   * attempts.
+   */
+  private void retry(List<Submission> failed) {
+    var dropped = failed.stream().filter(submission -> submission.attempt() >= maxAttempts).count();
+    if (dropped > 0) {
+      logger.error("Dropped {} events after {} attempts", dropped, maxAttempts);
+    }
+    failed.stream()
+        .filter(submission -> submission.attempt() < maxAttempts)
+        .collect(Collectors.groupingBy(Submission::attempt))
+        .forEach(
+            (attempt, submissions) -> {
+              long delay = retryBackoff.toMillis() << Math.min(attempt - 1, 16);
+              CompletableFuture.runAsync(
+                  () -> requeue(submissions),
+                  CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS));
+            });
+  }
+
+  private void requeue(List<Submission> submissions) {
+    int dropped = 0;
+    for (Submission submission : submissions) {
+      if (!running || !buffer.offer(new Submission(submission.event(), submission.attempt() + 1))) {
+        dropped++;
+      }
+    }
+    if (dropped > 0) {
+      logger.error("Dropped {} events: cannot buffer them for a retry", dropped);
+    }
+  }
+
+  /**
+   * An event waiting to be submitted.
+   *
+   * @param event event to submit
+   * @param attempt 1-based number of the attempt the event waits for
+   */
+  private record Submission(Event event, int attempt) {}
+}
@@ -0,0 +1,30 @@
+package com.craftify.bff.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A folder archive ready to be streamed. The folder is resolved and its listing opened when the
+ * archive is created; content is only read while {@link #writeTo(OutputStream)} runs.
+ *
+ * @param fileName suggested file name of the archive
+ * @param content writes the archive to a stream
+ */
+public record FolderArchive(String fileName, Content content) {
+
+  /**
+   * Writes the archive to the given stream.
+   *
+   * @param out Target stream.
+   * @throws IOException if reading an object or writing the archive fails.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    content.writeTo(out);
+  }
+
+  /** Source of the archive bytes. */
+  @FunctionalInterface
+  public interface Content {
+    void writeTo(OutputStream out) throws IOException;
+  }
+}
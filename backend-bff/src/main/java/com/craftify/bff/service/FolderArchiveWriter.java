@@ -0,0 +1,152 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.StorageConfig;
+import io.minio.GetObjectArgs;
+import io.minio.MinioClient;
+import io.minio.messages.Item;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Streams a folder as a ZIP archive. The object listing is consumed lazily and a bounded window of
+ * upcoming objects is fetched in parallel on the storage executor while the current entry is
+ * written. Small objects are buffered whole, larger ones are held as open streams, so memory is
+ * bounded by the prefetch window rather than by the folder size and nothing is written to disk.
+ * Deduplicated files are read from their blob, so the listing must include user metadata.
+ */
+@Component
+public class FolderArchiveWriter {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final Logger logger = LoggerFactory.getLogger(FolderArchiveWriter.class);
+
+  private final MinioClient minioClient;
+  private final ExecutorService executor;
+  private final int prefetchCount;
+  private final long prefetchBytes;
+
+  public FolderArchiveWriter(
+      MinioClient minioClient,
+      @Qualifier("storageExecutor") ExecutorService executor,
+      StorageConfig config) {
+    this.minioClient = minioClient;
+    this.executor = executor;
+    this.prefetchCount = Math.max(1, config.getArchivePrefetchCount());
+    this.prefetchBytes = Math.max(0, config.getArchivePrefetchBytes().toBytes());
+  }
+
+  /**
+   * Writes every listed object as a ZIP entry named relative to {@code basePrefix}. Objects whose
+   * name ends with a slash become directory entries.
+   *
+   * @param bucket Bucket holding the objects.
+   * @param basePrefix Prefix stripped from object names to build entry names.
+   * @param items Lazily evaluated objects to archive.
+   * @param out Target stream; finished but not closed.
+   * @throws IOException if an object cannot be read or the archive cannot be written.
+   */
+  public void write(String bucket, String basePrefix, Iterator<Item> items, OutputStream out)
+      throws IOException {
+    Deque<PendingEntry> window = new ArrayDeque<>(prefetchCount);
+    var zip = new ZipOutputStream(out);
+    byte[] buffer = new byte[BUFFER_SIZE];
+
+    try {
+      fill(window, bucket, items);
+      while (!window.isEmpty()) {
+        PendingEntry next = window.poll();
+        fill(window, bucket, items);
+
+        var entry = new ZipEntry(next.item().objectName().substring(basePrefix.length()));
+        if (next.item().lastModified() != null) {
+          entry.setLastModifiedTime(FileTime.from(next.item().lastModified().toInstant()));
+        }
+        zip.putNextEntry(entry);
+        try (InputStream content = await(next)) {
+          int read;
+          while ((read = content.read(buffer)) != -1) {
+            zip.write(buffer, 0, read);
+          }
+        }
+        zip.closeEntry();
+      }
+      zip.finish();
+    } finally {
+      window.forEach(FolderArchiveWriter::discard);
+    }
+  }
+
+  /** Tops up the prefetch window from the listing. */
+  private void fill(Deque<PendingEntry> window, String bucket, Iterator<Item> items) {
+    while (window.size() < prefetchCount && items.hasNext()) {
+      Item item = items.next();
+      if (item.objectName().endsWith("/")) {
+        window.add(new PendingEntry(item, CompletableFuture.completedFuture(null)));
+      } else {
+        window.add(
+            new PendingEntry(
+                item, CompletableFuture.supplyAsync(() -> fetch(bucket, item), executor)));
+      }
+    }
+  }
+
+  private InputStream fetch(String bucket, Item item) {
+    try {
+      String hash = ContentDedupStore.blobHash(item.userMetadata());
+      String objectName = hash != null ? ContentDedupStore.blobObject(hash) : item.objectName();
+      InputStream in =
+          minioClient.getObject(GetObjectArgs.builder().bucket(bucket).object(objectName).build());
+      if (ContentDedupStore.logicalSize(item) > prefetchBytes) {
+        return in;
+      }
+      try (in) {
+        return new ByteArrayInputStream(in.readAllBytes());
+      }
+    } catch (Exception e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  private static InputStream await(PendingEntry pending) throws IOException {
+    try {
+      InputStream content = pending.content().join();
+      return content != null ? content : InputStream.nullInputStream();
+    } catch (CompletionException e) {
+      throw new IOException("Failed to read object: " + pending.item().objectName(), e.getCause());
+    }
+  }
+
+  /** Releases a prefetched entry that will not be written, closing its stream once it is open. */
+  private static void discard(PendingEntry pending) {
+    pending
+        .content()
+        .whenComplete(
+            (content, error) -> {
+              if (content != null) {
+                try {
+                  content.close();
+                } catch (IOException e) {
+                  logger.debug("Failed to close {}", pending.item().objectName(), e);
+                }
+              }
+            });
+  }
+
+  private record PendingEntry(Item item, CompletableFuture<InputStream> content) {}
+}
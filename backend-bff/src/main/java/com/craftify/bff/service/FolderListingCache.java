@@ -0,0 +1,49 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.StorageConfig;
+import com.craftify.bff.dto.FileListPageDto;
+import java.util.function.Supplier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Size-bounded LRU cache of folder listing pages. Entries are keyed by the full object prefix
+ * (which includes the user id), continuation token and page size, and are invalidated by the write
+ * operations of {@link UserStorageService}. A short TTL bounds staleness for changes made outside
+ * the BFF.
+ */
+@Component
+public class FolderListingCache {
+
+  private final TtlCache<Key, FileListPageDto> pages;
+
+  public FolderListingCache(StorageConfig config) {
+    this.pages = new TtlCache<>(config.getListingCacheSize(), config.getListingCacheTtl());
+  }
+
+  /**
+   * Returns the cached page or loads and caches it.
+   *
+   * @param prefix Full object prefix of the listed folder.
+   * @param continuationToken Continuation token of the page, or null for the first page.
+   * @param pageSize Page size.
+   * @param loader Loads the page from object storage on a cache miss.
+   * @return The listing page.
+   */
+  public FileListPageDto get(
+      String prefix, String continuationToken, int pageSize, Supplier<FileListPageDto> loader) {
+    return pages.get(new Key(prefix, continuationToken, pageSize), loader);
+  }
+
+  /**
+   * Drops every cached page that may list the given object or anything below it: the listings of
+   * all ancestor folders and of the path itself and its descendants.
+   *
+   * @param objectPath Full object name or prefix that changed.
+   */
+  public void invalidate(String objectPath) {
+    pages.invalidateIf(
+        key -> objectPath.startsWith(key.prefix()) || key.prefix().startsWith(objectPath));
+  }
+
+  private record Key(String prefix, String continuationToken, int pageSize) {}
+}
@@ -0,0 +1,89 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.model.JobLock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Grants cluster-wide leases on background jobs, so a scheduled job that runs on every instance
+ * does its work on only one of them. A lease is taken when it is free or expired, and the instance
+ * holding it may extend it; the unique job name makes a concurrent claim fail instead of taking a
+ * lease that is already held.
+ */
+@Service
+public class JobLockService {
+
+  private final MongoTemplate mongoTemplate;
+  private final String instanceId = UUID.randomUUID().toString();
+
+  public JobLockService(MongoTemplate mongoTemplate) {
+    this.mongoTemplate = mongoTemplate;
+  }
+
+  /**
+   * Takes or extends the lease on a job.
+   *
+   * @param name Job name.
+   * @param lease How long the lease is held unless released earlier.
+   * @return Whether this instance now holds the lease.
+   */
+  public boolean tryAcquire(String name, Duration lease) {
+    Instant now = Instant.now();
+    try {
+      mongoTemplate.upsert(
+          Query.query(
+              Criteria.where("_id")
+                  .is(name)
+                  .orOperator(
+                      Criteria.where("leaseUntil").lt(now),
+                      Criteria.where("owner").is(instanceId))),
+          new Update().set("owner", instanceId).set("leaseUntil", now.plus(lease)),
+          JobLock.class);
+      return true;
+    } catch (DuplicateKeyException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Releases the lease on a job if this instance holds it.
+   *
+   * @param name Job name.
+   */
+  public void release(String name) {
+    mongoTemplate.updateFirst(
+        Query.query(Criteria.where("_id").is(name).and("owner").is(instanceId)),
+        new Update().set("leaseUntil", Instant.now()),
+        JobLock.class);
+  }
+
+  /**
+   * Records that a one-off job completed.
+   *
+   * @param name Job name.
+   */
+  public void complete(String name) {
+    mongoTemplate.upsert(
+        Query.query(Criteria.where("_id").is(name)),
+        new Update().set("completedAt", Instant.now()),
+        JobLock.class);
+  }
+
+  /**
+   * Tells whether a one-off job completed.
+   *
+   * @param name Job name.
+   * @return Whether {@link #complete(String)} was called for the job on any instance.
+   */
+  public boolean isCompleted(String name) {
+    return mongoTemplate.exists(
+        Query.query(Criteria.where("_id").is(name).and("completedAt").exists(true)), JobLock.class);
+  }
+}
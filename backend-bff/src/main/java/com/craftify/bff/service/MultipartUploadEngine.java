@@ -0,0 +1,340 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.MinioPagingClient;
+import com.craftify.bff.config.StorageConfig;
+import com.craftify.bff.dto.UploadedPartDto;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.UploadPartResponse;
+import io.minio.messages.Part;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Uploads large files to MinIO as multipart uploads with parts sent in parallel. Each part is read
+ * into a buffer of the configured part size, checksummed with MD5 (sent as {@code Content-MD5} so
+ * the server rejects corrupted parts) and dispatched asynchronously, with a bounded number of parts
+ * in flight per file. Part buffers of all uploads together are bounded by the configured upload
+ * buffer size, so concurrent uploads wait for memory instead of exhausting the heap. Also backs
+ * resumable upload sessions, whose state lives in MinIO and therefore survives client reconnects
+ * and pod restarts.
+ */
+@Component
+public class MultipartUploadEngine {
+
+  /** Smallest part size S3 accepts for every part but the last. */
+  static final long MIN_PART_SIZE = 5L * 1024 * 1024;
+
+  private static final Logger logger = LoggerFactory.getLogger(MultipartUploadEngine.class);
+
+  private final MinioClient minioClient;
+  private final MinioPagingClient asyncClient;
+  private final ExecutorService executor;
+  private final int partSize;
+  private final int parallelism;
+
+  /** Part buffers that may be held in memory by all uploads together. */
+  private final Semaphore buffers;
+
+  public MultipartUploadEngine(
+      MinioClient minioClient,
+      MinioPagingClient asyncClient,
+      @Qualifier("uploadExecutor") ExecutorService executor,
+      StorageConfig config) {
+    this.minioClient = minioClient;
+    this.asyncClient = asyncClient;
+    this.executor = executor;
+    this.partSize =
+        (int) Math.max(MIN_PART_SIZE, Math.min(config.getUploadPartSize().toBytes(), 1L << 30));
+    this.parallelism = Math.max(1, config.getUploadParallelism());
+    this.buffers =
+        new Semaphore((int) Math.max(1, config.getUploadBufferSize().toBytes() / partSize), true);
+  }
+
+  /**
+   * Returns the part size used for multipart uploads and upload sessions.
+   *
+   * @return Part size in bytes.
+   */
+  public int partSize() {
+    return partSize;
+  }
+
+  /**
+   * Uploads several files concurrently on the upload executor.
+   *
+   * @param bucket Target bucket.
+   * @param filesByObjectName Files to upload keyed by their target object name.
+   * @throws Exception the first failure if any upload failed.
+   */
+  public void uploadAll(String bucket, Map<String, MultipartFile> filesByObjectName)
+      throws Exception {
+    var uploads =
+        filesByObjectName.entrySet().stream()
+            .map(
+                entry ->
+                    CompletableFuture.runAsync(
+                        () -> {
+                          MultipartFile file = entry.getValue();
+                          try (InputStream in = file.getInputStream()) {
+                            upload(
+                                bucket, entry.getKey(), in, file.getSize(), file.getContentType());
+                          } catch (Exception e) {
+                            throw new CompletionException(e);
+                          }
+                        },
+                        executor))
+            .toArray(CompletableFuture[]::new);
+    try {
+      CompletableFuture.allOf(uploads).join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof Exception cause ? cause : e;
+    }
+  }
+
+  /**
+   * Uploads a stream of known size. Small objects use a single request; larger ones a parallel
+   * multipart upload that is aborted if any part fails.
+   *
+   * @param bucket Target bucket.
+   * @param objectName Target object name.
+   * @param in Content to upload.
+   * @param size Content size in bytes.
+   * @param contentType Content type, or null.
+   * @throws Exception if the upload fails.
+   */
+  public void upload(
+      String bucket, String objectName, InputStream in, long size, String contentType)
+      throws Exception {
+    if (size <= partSize) {
+      var args = PutObjectArgs.builder().bucket(bucket).object(objectName).stream(in, size, -1);
+      if (contentType != null && !contentType.isBlank()) {
+        args.contentType(contentType);
+      }
+      minioClient.putObject(args.build());
+      return;
+    }
+
+    String uploadId = createSession(bucket, objectName, contentType);
+    try {
+      var inFlight = new Semaphore(parallelism);
+      var parts = new ConcurrentLinkedQueue<Part>();
+      var failure = new AtomicReference<Throwable>();
+      int partNumber = 0;
+
+      while (failure.get() == null) {
+        inFlight.acquire();
+        buffers.acquire();
+        CompletableFuture<UploadPartResponse> part;
+        int number = ++partNumber;
+        try {
+          byte[] buffer = in.readNBytes(partSize);
+          part =
+              buffer.length == 0
+                  ? null
+                  : uploadPartAsync(
+                      bucket, objectName, uploadId, number, buffer, buffer.length, md5(buffer));
+        } catch (Exception e) {
+          buffers.release();
+          inFlight.release();
+          throw e;
+        }
+        if (part == null) {
+          buffers.release();
+          inFlight.release();
+          break;
+        }
+        part.whenComplete(
+            (response, error) -> {
+              if (error != null) {
+                failure.compareAndSet(null, error);
+              } else {
+                parts.add(new Part(number, response.etag()));
+              }
+              buffers.release();
+              inFlight.release();
+            });
+      }
+      inFlight.acquire(parallelism);
+
+      if (failure.get() != null) {
+        throw new IllegalStateException("Part upload failed", failure.get());
+      }
+      complete(
+          bucket,
+          objectName,
+          uploadId,
+          parts.stream().sorted(Comparator.comparingInt(Part::partNumber)).toArray(Part[]::new));
+    } catch (Exception e) {
+      abortQuietly(bucket, objectName, uploadId);
+      throw e;
+    }
+  }
+
+  /**
+   * Starts a multipart upload session.
+   *
+   * @param bucket Target bucket.
+   * @param objectName Target object name.
+   * @param contentType Content type of the final object, or null.
+   * @return Upload id of the session.
+   * @throws Exception if the session cannot be created.
+   */
+  public String createSession(String bucket, String objectName, String contentType)
+      throws Exception {
+    Multimap<String, String> headers =
+        contentType != null && !contentType.isBlank()
+            ? ImmutableMultimap.of("Content-Type", contentType)
+            : null;
+    return asyncClient
+        .createMultipartUploadAsync(bucket, null, objectName, headers, null)
+        .get()
+        .result()
+        .uploadId();
+  }
+
+  /**
+   * Uploads one part of a session. The part is buffered up to the part size and its MD5 is checked
+   * against the checksum supplied by the client, if any, before it is forwarded.
+   *
+   * @param bucket Target bucket.
+   * @param objectName Target object name.
+   * @param uploadId Upload id of the session.
+   * @param partNumber 1-based part number.
+   * @param in Part content.
+   * @param expectedMd5 Base64 MD5 supplied by the client, or null.
+   * @return Part number and entity tag of the stored part.
+   * @throws Exception if the part is too large, its checksum does not match or the upload fails.
+   */
+  public UploadedPartDto uploadPart(
+      String bucket,
+      String objectName,
+      String uploadId,
+      int partNumber,
+      InputStream in,
+      String expectedMd5)
+      throws Exception {
+    buffers.acquire();
+    try {
+      byte[] buffer = in.readNBytes(partSize + 1);
+      if (buffer.length > partSize) {
+        throw new IllegalArgumentException("Part exceeds the session part size of " + partSize);
+      }
+      String md5 = md5(buffer);
+      if (expectedMd5 != null && !expectedMd5.equals(md5)) {
+        throw new IllegalArgumentException("Checksum mismatch for part " + partNumber);
+      }
+      var response =
+          uploadPartAsync(bucket, objectName, uploadId, partNumber, buffer, buffer.length, md5)
+              .get();
+      return new UploadedPartDto(partNumber, response.etag());
+    } finally {
+      buffers.release();
+    }
+  }
+
+  /**
+   * Lists the parts already stored for a session, following pagination.
+   *
+   * @param bucket Target bucket.
+   * @param objectName Target object name.
+   * @param uploadId Upload id of the session.
+   * @return Stored parts ordered by part number.
+   * @throws Exception if the session cannot be read.
+   */
+  public List<Part> listParts(String bucket, String objectName, String uploadId) throws Exception {
+    var parts = new ArrayList<Part>();
+    Integer marker = null;
+    while (true) {
+      var result =
+          asyncClient
+              .listPartsAsync(bucket, null, objectName, 1000, marker, uploadId, null, null)
+              .get()
+              .result();
+      parts.addAll(result.partList());
+      if (!result.isTruncated()) {
+        return parts;
+      }
+      marker = result.nextPartNumberMarker();
+    }
+  }
+
+  /**
+   * Completes a session from the given parts.
+   *
+   * @param bucket Target bucket.
+   * @param objectName Target object name.
+   * @param uploadId Upload id of the session.
+   * @param parts Parts ordered by part number.
+   * @throws Exception if the session cannot be completed.
+   */
+  public void complete(String bucket, String objectName, String uploadId, Part[] parts)
+      throws Exception {
+    asyncClient
+        .completeMultipartUploadAsync(bucket, null, objectName, uploadId, parts, null, null)
+        .get();
+  }
+
+  /**
+   * Aborts a session and discards its parts.
+   *
+   * @param bucket Target bucket.
+   * @param objectName Target object name.
+   * @param uploadId Upload id of the session.
+   * @throws Exception if the session cannot be aborted.
+   */
+  public void abort(String bucket, String objectName, String uploadId) throws Exception {
+    asyncClient.abortMultipartUploadAsync(bucket, null, objectName, uploadId, null, null).get();
+  }
+
+  private CompletableFuture<UploadPartResponse> uploadPartAsync(
+      String bucket,
+      String objectName,
+      String uploadId,
+      int partNumber,
+      byte[] data,
+      int length,
+      String md5)
+      throws Exception {
+    return asyncClient.uploadPartAsync(
+        bucket,
+        null,
+        objectName,
+        data,
+        length,
+        uploadId,
+        partNumber,
+        ImmutableMultimap.of("Content-MD5", md5),
+        null);
+  }
+
+  private void abortQuietly(String bucket, String objectName, String uploadId) {
+    try {
+      abort(bucket, objectName, uploadId);
+    } catch (Exception e) {
+      logger.warn("Failed to abort multipart upload {} of {}", uploadId, objectName, e);
+    }
+  }
+
+  private static String md5(byte[] data) throws Exception {
+    return Base64.getEncoder().encodeToString(MessageDigest.getInstance("MD5").digest(data));
+  }
+}
@@ -0,0 +1,30 @@
+package com.craftify.bff.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A data store export ready to be streamed. The data store is resolved and the columns are chosen
+ * when the export is created; records are only read while {@link #writeTo(OutputStream)} runs.
+ *
+ * @param fileName suggested file name of the export
+ * @param content writes the export to a stream
+ */
+public record RecordExport(String fileName, Content content) {
+
+  /**
+   * Writes the export to the given stream.
+   *
+   * @param out Target stream.
+   * @throws IOException if writing the export fails.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    content.writeTo(out);
+  }
+
+  /** Source of the export bytes. */
+  @FunctionalInterface
+  public interface Content {
+    void writeTo(OutputStream out) throws IOException;
+  }
+}
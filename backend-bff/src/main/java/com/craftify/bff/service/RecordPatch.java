@@ -0,0 +1,177 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.exception.InvalidRecordQueryException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * A partial update of the fields of a record, expressed as field-level operations on {@code
+ * record.*} paths so that it can be applied by the database in a single atomic update.
+ *
+ * @param set values to assign, keyed by path
+ * @param unset paths to remove
+ * @param append values to append to arrays, keyed by path
+ * @param tests values the record must hold for the update to apply, keyed by path
+ */
+public record RecordPatch(
+    Map<String, Object> set,
+    List<String> unset,
+    Map<String, Object> append,
+    Map<String, Object> tests) {
+
+  /** Field names that can be addressed; rejects operators and ambiguous dotted names. */
+  private static final Pattern FIELD = Pattern.compile("[^.$\\x00][^.\\x00]{0,63}");
+
+  private static final int MAX_DEPTH = 8;
+
+  private static final int MAX_OPERATIONS = 500;
+
+  /**
+   * Translates a JSON merge patch (RFC 7386). Objects are merged recursively, {@code null} removes
+   * a field and any other value replaces it.
+   *
+   * @param patch Merge patch document.
+   * @param objectMapper Mapper converting JSON values to record values.
+   * @return The equivalent field-level patch.
+   * @throws InvalidRecordQueryException if the patch is not an object or addresses invalid fields.
+   */
+  public static RecordPatch fromMergePatch(JsonNode patch, ObjectMapper objectMapper) {
+    if (patch == null || !patch.isObject()) {
+      throw new InvalidRecordQueryException("A merge patch must be a JSON object.");
+    }
+    var result = empty();
+    result.merge("record", patch, 0, objectMapper);
+    result.requireDisjointPaths();
+    return result;
+  }
+
+  /**
+   * Translates a JSON Patch (RFC 6902). {@code add} and {@code replace} assign a field, {@code
+   * remove} removes it, {@code add} to the end of an array ({@code /-}) appends and {@code test}
+   * becomes a condition of the update that the field holds exactly the value. Operations needing
+   * the current document, such as {@code move}, {@code copy} and array index operations, are
+   * rejected.
+   *
+   * @param patch JSON Patch document.
+   * @param objectMapper Mapper converting JSON values to record values.
+   * @return The equivalent field-level patch.
+   * @throws InvalidRecordQueryException if the patch is malformed or uses unsupported operations.
+   */
+  public static RecordPatch fromJsonPatch(JsonNode patch, ObjectMapper objectMapper) {
+    if (patch == null || !patch.isArray()) {
+      throw new InvalidRecordQueryException("A JSON Patch must be a JSON array.");
+    }
+    var result = empty();
+    for (JsonNode operation : patch) {
+      String op = operation.path("op").asText();
+      String pointer = operation.path("path").asText(null);
+      if (pointer == null) {
+        throw new InvalidRecordQueryException("Every JSON Patch operation needs a path.");
+      }
+      boolean appendToArray = "add".equals(op) && pointer.endsWith("/-");
+      String path = toPath(appendToArray ? pointer.substring(0, pointer.length() - 2) : pointer);
+      Object value = objectMapper.convertValue(operation.get("value"), Object.class);
+      switch (op) {
+        case "add", "replace" -> {
+          if (!operation.has("value")) {
+            throw new InvalidRecordQueryException("Operation '" + op + "' needs a value.");
+          }
+          (appendToArray ? result.append() : result.set()).put(path, value);
+        }
+        case "remove" -> result.unset().add(path);
+        case "test" -> result.tests().put(path, value);
+        default ->
+            throw new InvalidRecordQueryException("Unsupported JSON Patch operation '" + op + "'.");
+      }
+    }
+    result.requireDisjointPaths();
+    return result;
+  }
+
+  /**
+   * Returns whether the patch changes nothing.
+   *
+   * @return True if no field is set, removed or appended to.
+   */
+  public boolean isEmpty() {
+    return set.isEmpty() && unset.isEmpty() && append.isEmpty();
+  }
+
+  private static RecordPatch empty() {
+    return new RecordPatch(
+        new LinkedHashMap<>(), new ArrayList<>(), new LinkedHashMap<>(), new LinkedHashMap<>());
+  }
+
+  private void merge(String prefix, JsonNode patch, int depth, ObjectMapper objectMapper) {
+    if (depth >= MAX_DEPTH) {
+      throw new InvalidRecordQueryException("Patch is nested too deeply.");
+    }
+    for (var field : patch.properties()) {
+      String path = prefix + "." + requireField(field.getKey());
+      JsonNode value = field.getValue();
+      if (value.isNull()) {
+        unset.add(path);
+      } else if (value.isObject()) {
+        // Merging an empty object leaves the target unchanged.
+        merge(path, value, depth + 1, objectMapper);
+      } else {
+        set.put(path, objectMapper.convertValue(value, Object.class));
+      }
+    }
+  }
+
+  /** Converts a JSON Pointer into a {@code record.*} path. */
+  private static String toPath(String pointer) {
+    if (!pointer.startsWith("/") || pointer.length() == 1) {
+      throw new InvalidRecordQueryException("Invalid JSON Pointer '" + pointer + "'.");
+    }
+    String[] tokens = pointer.substring(1).split("/", -1);
+    if (tokens.length > MAX_DEPTH) {
+      throw new InvalidRecordQueryException("Path '" + pointer + "' is nested too deeply.");
+    }
+    var path = new StringBuilder("record");
+    for (String token : tokens) {
+      String field = token.replace("~1", "/").replace("~0", "~");
+      if (field.chars().allMatch(Character::isDigit) && !field.isEmpty()) {
+        throw new InvalidRecordQueryException(
+            "Array index operations are not supported: '" + pointer + "'.");
+      }
+      path.append('.').append(requireField(field));
+    }
+    return path.toString();
+  }
+
+  private static String requireField(String field) {
+    if (!FIELD.matcher(field).matches()) {
+      throw new InvalidRecordQueryException("Invalid field name '" + field + "'.");
+    }
+    return field;
+  }
+
+  /** Rejects patches changing a field together with one of its ancestors or descendants. */
+  private void requireDisjointPaths() {
+    var paths = new ArrayList<String>();
+    paths.addAll(set.keySet());
+    paths.addAll(unset);
+    paths.addAll(append.keySet());
+    if (paths.size() + tests.size() > MAX_OPERATIONS) {
+      throw new InvalidRecordQueryException(
+          "A patch can hold at most " + MAX_OPERATIONS + " operations.");
+    }
+    for (int i = 0; i < paths.size(); i++) {
+      for (int j = i + 1; j < paths.size(); j++) {
+        String a = paths.get(i);
+        String b = paths.get(j);
+        if (a.equals(b) || a.startsWith(b + ".") || b.startsWith(a + ".")) {
+          throw new InvalidRecordQueryException(
+              "Patch changes '" + a + "' and '" + b + "' together.");
+        }
+      }
+    }
+  }
+}
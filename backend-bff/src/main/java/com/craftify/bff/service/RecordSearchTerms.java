@@ -0,0 +1,71 @@
+package com.craftify.bff.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenizes records into search terms. Terms are the lowercase runs of letters and digits of the
+ * record name and of every scalar record value, at any depth. They are stored with each record in a
+ * multikey index, which serves as the inverted index of the record search.
+ */
+final class RecordSearchTerms {
+
+  /** Cap on the distinct terms stored per record, keeping documents and index entries bounded. */
+  static final int MAX_TERMS = 2000;
+
+  /** Longer terms are truncated; prefix queries still match them. */
+  static final int MAX_TERM_LENGTH = 64;
+
+  private static final Pattern SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+  private RecordSearchTerms() {}
+
+  /**
+   * Extracts the search terms of a record.
+   *
+   * @param name Record name.
+   * @param record Record fields.
+   * @return Distinct terms in order of first occurrence.
+   */
+  static List<String> of(String name, Map<String, Object> record) {
+    Set<String> terms = new LinkedHashSet<>();
+    collect(name, terms);
+    collect(record, terms);
+    return new ArrayList<>(terms);
+  }
+
+  /**
+   * Tokenizes a search query the same way records are tokenized.
+   *
+   * @param query Query text.
+   * @return Distinct query terms.
+   */
+  static List<String> ofQuery(String query) {
+    Set<String> terms = new LinkedHashSet<>();
+    collect(query, terms);
+    return new ArrayList<>(terms);
+  }
+
+  private static void collect(Object value, Set<String> terms) {
+    if (value == null || terms.size() >= MAX_TERMS) {
+      return;
+    }
+    if (value instanceof Map<?, ?> map) {
+      map.values().forEach(item -> collect(item, terms));
+    } else if (value instanceof Collection<?> items) {
+      items.forEach(item -> collect(item, terms));
+    } else if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+      for (String token : SEPARATOR.split(value.toString().toLowerCase(Locale.ROOT))) {
+        if (!token.isEmpty() && terms.size() < MAX_TERMS) {
+          terms.add(token.length() > MAX_TERM_LENGTH ? token.substring(0, MAX_TERM_LENGTH) : token);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.MinioClientConfig;
+import com.craftify.bff.config.StorageConfig;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.messages.Item;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Removes presigned uploads that were staged but never completed. A staged object is kept for twice
+ * the presigned URL lifetime, so uploads started just before their URL expired can still be
+ * completed.
+ */
+@Component
+public class StagedUploadSweeper {
+
+  private static final Logger logger = LoggerFactory.getLogger(StagedUploadSweeper.class);
+
+  private final MinioClient minioClient;
+  private final StorageBatchRemover batchRemover;
+  private final String bucketName;
+  private final boolean enabled;
+  private final Duration retention;
+
+  public StagedUploadSweeper(
+      MinioClient minioClient,
+      StorageBatchRemover batchRemover,
+      MinioClientConfig minioConfig,
+      StorageConfig config) {
+    this.minioClient = minioClient;
+    this.batchRemover = batchRemover;
+    this.bucketName = minioConfig.getBucket();
+    this.enabled = config.isPresignedEnabled();
+    this.retention = config.getPresignedExpiry().multipliedBy(2);
+  }
+
+  /** Removes staged uploads older than the retention. */
+  @Scheduled(fixedDelayString = "${storage.staged-upload-sweep-interval:1h}")
+  public void sweep() {
+    if (!enabled) {
+      return;
+    }
+    ZonedDateTime cutoff = ZonedDateTime.now().minus(retention);
+    List<String> stale = new ArrayList<>();
+    try {
+      for (Result<Item> result :
+          minioClient.listObjects(
+              ListObjectsArgs.builder()
+                  .bucket(bucketName)
+                  .prefix(UserStorageService.STAGING_PREFIX)
+                  .recursive(true)
+                  .build())) {
+        Item item = result.get();
+        if (item.lastModified() != null && item.lastModified().isBefore(cutoff)) {
+          stale.add(item.objectName());
+        }
+      }
+    } catch (Exception e) {
+      logger.error("Failed to list staged uploads", e);
+      return;
+    }
+    if (!stale.isEmpty()) {
+      var removal = batchRemover.removeAll(bucketName, stale.iterator());
+      logger.info("Removed {} stale staged uploads", removal.deleted());
+    }
+  }
+}
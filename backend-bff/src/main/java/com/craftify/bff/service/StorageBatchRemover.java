@@ -0,0 +1,163 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.StorageConfig;
+import io.minio.MinioClient;
+import io.minio.RemoveObjectsArgs;
+import io.minio.Result;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Removes objects from MinIO in bulk. Object names are consumed lazily, grouped into multi-object
+ * delete requests and executed on the storage executor with a bounded number of batches in flight,
+ * so memory stays proportional to the batch size rather than to the number of objects.
+ */
+@Component
+public class StorageBatchRemover {
+
+  private static final Logger logger = LoggerFactory.getLogger(StorageBatchRemover.class);
+
+  private final MinioClient minioClient;
+  private final ExecutorService executor;
+  private final int batchSize;
+  private final int parallelism;
+
+  public StorageBatchRemover(
+      MinioClient minioClient,
+      @Qualifier("storageExecutor") ExecutorService executor,
+      StorageConfig config) {
+    this.minioClient = minioClient;
+    this.executor = executor;
+    this.batchSize = Math.max(1, Math.min(config.getDeleteBatchSize(), 1000));
+    this.parallelism = Math.max(1, config.getDeleteParallelism());
+  }
+
+  /**
+   * Removes all given objects from the bucket.
+   *
+   * @param bucket Bucket holding the objects.
+   * @param objectNames Lazily evaluated object names to remove.
+   * @return Outcome with the number of removed objects and per-object failures.
+   */
+  public RemovalResult removeAll(String bucket, Iterator<String> objectNames) {
+    return removeAll(bucket, objectNames, name -> {});
+  }
+
+  /**
+   * Removes all given objects from the bucket, reporting each object that was removed.
+   *
+   * @param bucket Bucket holding the objects.
+   * @param objectNames Lazily evaluated object names to remove.
+   * @param onRemoved Called with the name of every removed object, from executor threads; objects
+   *     of a batch whose request failed are not reported.
+   * @return Outcome with the number of removed objects and per-object failures.
+   */
+  public RemovalResult removeAll(
+      String bucket, Iterator<String> objectNames, Consumer<String> onRemoved) {
+    var inFlight = new Semaphore(parallelism);
+    var deleted = new AtomicLong();
+    var failures = new ConcurrentLinkedQueue<String>();
+
+    try {
+      List<String> batch = new ArrayList<>(batchSize);
+      while (objectNames.hasNext()) {
+        batch.add(objectNames.next());
+        if (batch.size() == batchSize) {
+          submit(bucket, batch, inFlight, deleted, failures, onRemoved);
+          batch = new ArrayList<>(batchSize);
+        }
+      }
+      if (!batch.isEmpty()) {
+        submit(bucket, batch, inFlight, deleted, failures, onRemoved);
+      }
+      // Wait for every outstanding batch by reclaiming all permits.
+      inFlight.acquire(parallelism);
+      inFlight.release(parallelism);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while deleting objects", e);
+    }
+
+    return new RemovalResult(deleted.get(), List.copyOf(failures));
+  }
+
+  private void submit(
+      String bucket,
+      List<String> batch,
+      Semaphore inFlight,
+      AtomicLong deleted,
+      ConcurrentLinkedQueue<String> failures,
+      Consumer<String> onRemoved)
+      throws InterruptedException {
+    inFlight.acquire();
+    try {
+      executor.execute(
+          () -> {
+            try {
+              deleted.addAndGet(removeBatch(bucket, batch, failures, onRemoved));
+            } finally {
+              inFlight.release();
+            }
+          });
+    } catch (RuntimeException e) {
+      inFlight.release();
+      throw e;
+    }
+  }
+
+  private long removeBatch(
+      String bucket,
+      List<String> batch,
+      ConcurrentLinkedQueue<String> failures,
+      Consumer<String> onRemoved) {
+    Set<String> failed = new HashSet<>();
+    try {
+      Iterable<Result<DeleteError>> errors =
+          minioClient.removeObjects(
+              RemoveObjectsArgs.builder()
+                  .bucket(bucket)
+                  .objects(batch.stream().map(DeleteObject::new).toList())
+                  .build());
+      for (Result<DeleteError> error : errors) {
+        DeleteError deleteError = error.get();
+        failures.add(deleteError.objectName() + ": " + deleteError.message());
+        failed.add(deleteError.objectName());
+      }
+    } catch (Exception e) {
+      logger.error("Delete batch of {} objects failed", batch.size(), e);
+      failures.add("Batch of " + batch.size() + " objects failed: " + e.getMessage());
+      return 0;
+    }
+    if (!failed.isEmpty()) {
+      logger.warn("Delete batch of {} objects reported {} failures", batch.size(), failed.size());
+    }
+    for (String name : batch) {
+      if (!failed.contains(name)) {
+        onRemoved.accept(name);
+      }
+    }
+    return batch.size() - failed.size();
+  }
+
+  /**
+   * Outcome of a bulk removal.
+   *
+   * @param deleted number of objects removed
+   * @param failures failure messages reported by the delete batches
+   */
+  public record RemovalResult(long deleted, List<String> failures) {}
+}
@@ -0,0 +1,202 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.StorageConfig;
+import io.minio.ComposeObjectArgs;
+import io.minio.ComposeSource;
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
+import io.minio.Directive;
+import io.minio.MinioClient;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.messages.Item;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copies objects inside MinIO without routing data through the JVM. Objects up to 5 GiB use a
+ * single server-side copy; larger objects are composed from server-side part copies. Bulk copies
+ * run on the storage executor with a bounded number of copies in flight.
+ */
+@Component
+public class StorageObjectCopier {
+
+  /** Largest object S3 accepts for a single server-side copy request. */
+  static final long MAX_SINGLE_COPY_SIZE = 5L * 1024 * 1024 * 1024;
+
+  private static final Logger logger = LoggerFactory.getLogger(StorageObjectCopier.class);
+
+  private final MinioClient minioClient;
+  private final ExecutorService executor;
+  private final int parallelism;
+
+  public StorageObjectCopier(
+      MinioClient minioClient,
+      @Qualifier("storageExecutor") ExecutorService executor,
+      StorageConfig config) {
+    this.minioClient = minioClient;
+    this.executor = executor;
+    this.parallelism = Math.max(1, config.getCopyParallelism());
+  }
+
+  /**
+   * Copies a single object, looking up its size to choose between copy and compose.
+   *
+   * @param bucket Bucket holding both objects.
+   * @param source Source object name.
+   * @param target Target object name.
+   * @throws Exception if the source cannot be read or the copy fails.
+   */
+  public void copy(String bucket, String source, String target) throws Exception {
+    StatObjectResponse stat =
+        minioClient.statObject(StatObjectArgs.builder().bucket(bucket).object(source).build());
+    copy(bucket, source, target, stat.size(), stat.contentType(), false);
+  }
+
+  /**
+   * Copies a single object without its user metadata, so metadata set by whoever wrote the source
+   * is not carried over.
+   *
+   * @param bucket Bucket holding both objects.
+   * @param source Source object name.
+   * @param target Target object name.
+   * @param size Size of the source object.
+   * @param contentType Content type of the target object, or null.
+   * @throws Exception if the copy fails.
+   */
+  public void copyWithoutMetadata(
+      String bucket, String source, String target, long size, String contentType) throws Exception {
+    copy(bucket, source, target, size, contentType, true);
+  }
+
+  /**
+   * Copies every listed object in parallel, mapping each source name to its target name.
+   *
+   * @param bucket Bucket holding the objects.
+   * @param sources Lazily evaluated source objects.
+   * @param targetName Maps a source object name to its target object name.
+   * @return Number of copied objects and per-object failures.
+   */
+  public CopyResult copyAll(
+      String bucket, Iterator<Item> sources, UnaryOperator<String> targetName) {
+    return copyAll(bucket, sources, targetName, (source, target) -> {});
+  }
+
+  /**
+   * Copies every listed object in parallel, reporting each object that was copied.
+   *
+   * @param bucket Bucket holding the objects.
+   * @param sources Lazily evaluated source objects.
+   * @param targetName Maps a source object name to its target object name.
+   * @param onCopied Called with the source object and target name of every copy, from executor
+   *     threads.
+   * @return Number of copied objects and per-object failures.
+   */
+  public CopyResult copyAll(
+      String bucket,
+      Iterator<Item> sources,
+      UnaryOperator<String> targetName,
+      BiConsumer<Item, String> onCopied) {
+    var inFlight = new Semaphore(parallelism);
+    var copied = new AtomicLong();
+    var failures = new ConcurrentLinkedQueue<String>();
+
+    try {
+      while (sources.hasNext()) {
+        Item item = sources.next();
+        String source = item.objectName();
+        String target = targetName.apply(source);
+        long size = item.size();
+
+        inFlight.acquire();
+        try {
+          executor.execute(
+              () -> {
+                try {
+                  copy(bucket, source, target, size, null, false);
+                  copied.incrementAndGet();
+                  onCopied.accept(item, target);
+                } catch (Exception e) {
+                  logger.error("Failed to copy {} to {}", source, target, e);
+                  failures.add(source + ": " + e.getMessage());
+                } finally {
+                  inFlight.release();
+                }
+              });
+        } catch (RuntimeException e) {
+          inFlight.release();
+          throw e;
+        }
+      }
+      // Wait for every outstanding copy by reclaiming all permits.
+      inFlight.acquire(parallelism);
+      inFlight.release(parallelism);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while copying objects", e);
+    }
+
+    return new CopyResult(copied.get(), List.copyOf(failures));
+  }
+
+  private void copy(
+      String bucket,
+      String source,
+      String target,
+      long size,
+      String contentType,
+      boolean replaceMetadata)
+      throws Exception {
+    if (size <= MAX_SINGLE_COPY_SIZE) {
+      var copyArgs =
+          CopyObjectArgs.builder()
+              .bucket(bucket)
+              .object(target)
+              .source(CopySource.builder().bucket(bucket).object(source).build());
+      if (replaceMetadata) {
+        copyArgs.metadataDirective(Directive.REPLACE);
+        if (contentType != null) {
+          copyArgs.headers(Map.of("Content-Type", contentType));
+        }
+      }
+      minioClient.copyObject(copyArgs.build());
+      return;
+    }
+
+    // Composed objects never inherit user metadata from their sources.
+    if (contentType == null) {
+      contentType =
+          minioClient
+              .statObject(StatObjectArgs.builder().bucket(bucket).object(source).build())
+              .contentType();
+    }
+    var composeArgs =
+        ComposeObjectArgs.builder()
+            .bucket(bucket)
+            .object(target)
+            .sources(List.of(ComposeSource.builder().bucket(bucket).object(source).build()));
+    if (contentType != null) {
+      composeArgs.headers(Map.of("Content-Type", contentType));
+    }
+    minioClient.composeObject(composeArgs.build());
+  }
+
+  /**
+   * Outcome of a bulk copy.
+   *
+   * @param copied number of objects copied
+   * @param failures failure messages for objects that could not be copied
+   */
+  public record CopyResult(long copied, List<String> failures) {}
+}
@@ -0,0 +1,67 @@
+package com.craftify.bff.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Accumulates changes to storage usage per user and top-level folder, derived from object names of
+ * the form {@code userId/folder/...}. Folder marker objects are not counted. Not thread-safe.
+ */
+public class StorageUsageDelta {
+
+  private final Map<String, Map<String, long[]>> changes = new HashMap<>();
+
+  /**
+   * Records a change for the object with the given name.
+   *
+   * @param objectName Full object name including the user id.
+   * @param bytes Change in bytes.
+   * @param objects Change in object count.
+   * @return This delta.
+   */
+  public StorageUsageDelta add(String objectName, long bytes, long objects) {
+    if (objectName.endsWith("/")) {
+      return this;
+    }
+    int userEnd = objectName.indexOf('/');
+    if (userEnd < 1) {
+      return this;
+    }
+    int folderEnd = objectName.indexOf('/', userEnd + 1);
+    String userId = objectName.substring(0, userEnd);
+    String folder = folderEnd < 0 ? "" : objectName.substring(userEnd + 1, folderEnd);
+
+    long[] change =
+        changes
+            .computeIfAbsent(userId, id -> new HashMap<>())
+            .computeIfAbsent(folder, f -> new long[2]);
+    change[0] += bytes;
+    change[1] += objects;
+    return this;
+  }
+
+  /**
+   * Returns the accumulated changes as user id to folder to {@code [bytes, objects]}.
+   *
+   * @return Accumulated changes.
+   */
+  Map<String, Map<String, long[]>> changes() {
+    return changes;
+  }
+
+  /**
+   * Returns the accumulated change in bytes across all users and folders.
+   *
+   * @return Change in bytes.
+   */
+  public long totalBytes() {
+    return changes.values().stream()
+        .flatMap(folders -> folders.values().stream())
+        .mapToLong(change -> change[0])
+        .sum();
+  }
+
+  public boolean isEmpty() {
+    return changes.isEmpty();
+  }
+}
@@ -0,0 +1,141 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.MinioClientConfig;
+import com.craftify.bff.config.StorageConfig;
+import io.minio.ListObjectsArgs;
+import io.minio.MinioClient;
+import io.minio.Result;
+import io.minio.messages.Item;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the storage usage index from object storage in the background. Every user namespace is
+ * rescanned periodically to correct drift from changes made outside the BFF, and users marked after
+ * partially failed operations are rescanned shortly after. Scans are rate limited so they do not
+ * compete with interactive traffic.
+ */
+@Component
+public class StorageUsageReconciler {
+
+  /** Number of listed objects between two pacing checks. */
+  private static final int PACE_STEP = 100;
+
+  /** Name of the cluster-wide lease on the full rescan. */
+  private static final String RECONCILE_ALL_LOCK = "storage-usage-reconcile";
+
+  private static final Logger logger = LoggerFactory.getLogger(StorageUsageReconciler.class);
+
+  private final MinioClient minioClient;
+  private final StorageUsageService usageService;
+  private final JobLockService jobLockService;
+  private final String bucketName;
+  private final boolean enabled;
+  private final int objectsPerSecond;
+  private final Duration interval;
+
+  public StorageUsageReconciler(
+      MinioClient minioClient,
+      StorageUsageService usageService,
+      JobLockService jobLockService,
+      MinioClientConfig minioConfig,
+      StorageConfig config) {
+    this.minioClient = minioClient;
+    this.usageService = usageService;
+    this.jobLockService = jobLockService;
+    this.bucketName = minioConfig.getBucket();
+    this.enabled = config.isUsageReconcileEnabled();
+    this.objectsPerSecond = Math.max(1, config.getUsageReconcileRate());
+    this.interval = config.getUsageReconcileInterval();
+  }
+
+  /**
+   * Rescans every user namespace. The rescan runs on one instance per interval: the instance that
+   * takes the lease keeps it for the interval, and other instances skip their run meanwhile.
+   */
+  @Scheduled(
+      initialDelayString = "${storage.usage-reconcile-initial-delay:5m}",
+      fixedDelayString = "${storage.usage-reconcile-interval:6h}")
+  public void reconcileAll() {
+    if (!enabled || !jobLockService.tryAcquire(RECONCILE_ALL_LOCK, interval)) {
+      return;
+    }
+    long started = System.currentTimeMillis();
+    int users = 0;
+    try {
+      for (Result<Item> result :
+          minioClient.listObjects(ListObjectsArgs.builder().bucket(bucketName).build())) {
+        Item item = result.get();
+        if (item.isDir() && !item.objectName().startsWith(".")) {
+          reconcileUser(item.objectName().substring(0, item.objectName().length() - 1));
+          users++;
+        }
+      }
+      logger.info(
+          "Reconciled storage usage of {} users in {} ms",
+          users,
+          System.currentTimeMillis() - started);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      logger.error("Storage usage reconciliation failed after {} users", users, e);
+    }
+  }
+
+  /** Rescans the namespaces of users marked for reconciliation. */
+  @Scheduled(fixedDelayString = "${storage.usage-reconcile-pending-interval:1m}")
+  public void reconcilePending() {
+    for (String userId : usageService.drainPendingReconciliation()) {
+      try {
+        reconcileUser(userId);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        usageService.requestReconciliation(userId);
+        return;
+      } catch (Exception e) {
+        logger.error("Failed to reconcile storage usage of {}", userId, e);
+        usageService.requestReconciliation(userId);
+      }
+    }
+  }
+
+  /**
+   * Scans one user namespace and replaces its usage, listing at most the configured number of
+   * objects per second. If the usage changed during the scan, the user is marked for another
+   * reconciliation instead.
+   *
+   * @param userId User id.
+   * @throws Exception if the namespace cannot be listed or the index cannot be written.
+   */
+  public void reconcileUser(String userId) throws Exception {
+    Map<String, Long> versions = usageService.versions(userId);
+    var scanned = new StorageUsageDelta();
+    long started = System.nanoTime();
+    long listed = 0;
+
+    for (Result<Item> result :
+        minioClient.listObjects(
+            ListObjectsArgs.builder()
+                .bucket(bucketName)
+                .prefix(userId + "/")
+                .recursive(true)
+                .includeUserMetadata(true)
+                .build())) {
+      Item item = result.get();
+      scanned.add(item.objectName(), ContentDedupStore.logicalSize(item), 1);
+      if (++listed % PACE_STEP == 0) {
+        long due = started + TimeUnit.SECONDS.toNanos(listed) / objectsPerSecond;
+        TimeUnit.NANOSECONDS.sleep(due - System.nanoTime());
+      }
+    }
+    if (!usageService.replace(userId, versions, scanned)) {
+      logger.debug("Storage usage of {} changed during reconciliation, retrying later", userId);
+      usageService.requestReconciliation(userId);
+    }
+  }
+}
@@ -0,0 +1,248 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.StorageConfig;
+import com.craftify.bff.dto.StorageUsageDto;
+import com.craftify.bff.exception.OperationRestrictionException;
+import com.craftify.bff.model.StorageUsage;
+import com.craftify.bff.repository.StorageUsageRepository;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintains the storage usage index: bytes and object counts per user, in total and per top-level
+ * folder. Storage operations apply their changes incrementally with atomic increments, so reading a
+ * user's usage or checking their quota is a single indexed lookup. Operations whose effect is not
+ * known exactly mark the user for reconciliation by {@link StorageUsageReconciler}. Every change
+ * increments the version of the documents it touches, which lets a reconciliation replace a user's
+ * usage only if no change was applied while it scanned.
+ */
+@Service
+public class StorageUsageService {
+
+  private static final Logger logger = LoggerFactory.getLogger(StorageUsageService.class);
+
+  private final MongoTemplate mongoTemplate;
+  private final StorageUsageRepository repository;
+  private final long quotaBytes;
+  private final Set<String> pendingReconciliation = ConcurrentHashMap.newKeySet();
+
+  public StorageUsageService(
+      MongoTemplate mongoTemplate, StorageUsageRepository repository, StorageConfig config) {
+    this.mongoTemplate = mongoTemplate;
+    this.repository = repository;
+    this.quotaBytes = Math.max(0, config.getUserQuota().toBytes());
+  }
+
+  /**
+   * Returns the usage of a user, in total and per top-level folder.
+   *
+   * @param userId User id.
+   * @return Usage of the user.
+   */
+  public StorageUsageDto getUsage(String userId) {
+    long bytes = 0;
+    long objects = 0;
+    var folders = new ArrayList<StorageUsageDto.FolderUsageDto>();
+    for (StorageUsage usage : repository.findAllByUserId(userId)) {
+      if (StorageUsage.TOTAL.equals(usage.folder())) {
+        bytes = usage.bytes();
+        objects = usage.objects();
+      } else {
+        folders.add(
+            new StorageUsageDto.FolderUsageDto(usage.folder(), usage.bytes(), usage.objects()));
+      }
+    }
+    folders.sort(Comparator.comparing(StorageUsageDto.FolderUsageDto::folder));
+    return new StorageUsageDto(bytes, objects, quotaBytes, folders);
+  }
+
+  /**
+   * Ensures a user may store additional bytes without exceeding the quota.
+   *
+   * @param userId User id.
+   * @param additionalBytes Bytes about to be stored; 0 checks that the user is not over quota.
+   * @throws OperationRestrictionException if the quota would be exceeded.
+   */
+  public void requireQuota(String userId, long additionalBytes) {
+    if (quotaBytes == 0) {
+      return;
+    }
+    long used =
+        repository
+            .findByUserIdAndFolder(userId, StorageUsage.TOTAL)
+            .map(StorageUsage::bytes)
+            .orElse(0L);
+    if (used + additionalBytes > quotaBytes || (additionalBytes == 0 && used >= quotaBytes)) {
+      throw new OperationRestrictionException(
+          "Storage quota exceeded: "
+              + used
+              + " of "
+              + quotaBytes
+              + " bytes used, "
+              + additionalBytes
+              + " more requested.");
+    }
+  }
+
+  /**
+   * Applies accumulated changes with atomic increments in one unordered bulk write.
+   *
+   * @param delta Changes to apply.
+   */
+  public void apply(StorageUsageDelta delta) {
+    if (delta.isEmpty()) {
+      return;
+    }
+    Instant now = Instant.now();
+    BulkOperations bulk =
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StorageUsage.class);
+    delta
+        .changes()
+        .forEach(
+            (userId, folders) -> {
+              long totalBytes = 0;
+              long totalObjects = 0;
+              for (Map.Entry<String, long[]> folder : folders.entrySet()) {
+                long[] change = folder.getValue();
+                bulk.upsert(
+                    byFolder(userId, folder.getKey()),
+                    new Update()
+                        .inc("bytes", change[0])
+                        .inc("objects", change[1])
+                        .inc("version", 1)
+                        .set("updatedAt", now));
+                totalBytes += change[0];
+                totalObjects += change[1];
+              }
+              bulk.upsert(
+                  byFolder(userId, StorageUsage.TOTAL),
+                  new Update()
+                      .inc("bytes", totalBytes)
+                      .inc("objects", totalObjects)
+                      .inc("version", 1)
+                      .set("updatedAt", now));
+            });
+    try {
+      bulk.execute();
+    } catch (RuntimeException e) {
+      logger.error("Failed to update storage usage, scheduling reconciliation", e);
+      delta.changes().keySet().forEach(this::requestReconciliation);
+    }
+  }
+
+  /**
+   * Returns the version of every usage document of a user, to be passed to {@link #replace} after a
+   * scan.
+   *
+   * @param userId User id.
+   * @return Version by folder.
+   */
+  public Map<String, Long> versions(String userId) {
+    return repository.findAllByUserId(userId).stream()
+        .collect(Collectors.toMap(StorageUsage::folder, StorageUsage::version, Math::max));
+  }
+
+  /**
+   * Replaces the usage of a user with the result of a full scan, unless a change was applied since
+   * the scan started. Documents are only written if their version is still the one read before the
+   * scan, so increments applied concurrently are never overwritten.
+   *
+   * @param userId User id.
+   * @param versions Versions read before the scan started.
+   * @param scanned Usage of every object of the user, as positive changes.
+   * @return Whether the usage was replaced; false if it changed during the scan.
+   */
+  public boolean replace(String userId, Map<String, Long> versions, StorageUsageDelta scanned) {
+    Map<String, long[]> folders = new HashMap<>();
+    long totalBytes = 0;
+    long totalObjects = 0;
+    for (Map.Entry<String, long[]> folder :
+        scanned.changes().getOrDefault(userId, Map.of()).entrySet()) {
+      folders.put(folder.getKey(), folder.getValue());
+      totalBytes += folder.getValue()[0];
+      totalObjects += folder.getValue()[1];
+    }
+    folders.put(StorageUsage.TOTAL, new long[] {totalBytes, totalObjects});
+
+    Instant now = Instant.now();
+    BulkOperations bulk =
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, StorageUsage.class);
+    for (Map.Entry<String, long[]> folder : folders.entrySet()) {
+      long[] usage = folder.getValue();
+      bulk.upsert(
+          atVersion(userId, folder.getKey(), versions.get(folder.getKey())),
+          new Update()
+              .set("bytes", usage[0])
+              .set("objects", usage[1])
+              .inc("version", 1)
+              .set("updatedAt", now));
+    }
+    int removals = 0;
+    for (Map.Entry<String, Long> stale : versions.entrySet()) {
+      if (!folders.containsKey(stale.getKey())) {
+        bulk.remove(atVersion(userId, stale.getKey(), stale.getValue()));
+        removals++;
+      }
+    }
+
+    try {
+      var result = bulk.execute();
+      return result.getMatchedCount() + result.getUpserts().size() == folders.size()
+          && result.getDeletedCount() == removals;
+    } catch (BulkOperationException e) {
+      // A document was created concurrently, so the upsert collided with the unique index.
+      return false;
+    }
+  }
+
+  /**
+   * Marks a user whose usage may have drifted, for example after a partially failed operation.
+   *
+   * @param userId User id.
+   */
+  public void requestReconciliation(String userId) {
+    pendingReconciliation.add(userId);
+  }
+
+  /**
+   * Removes and returns the users marked for reconciliation.
+   *
+   * @return Marked user ids.
+   */
+  List<String> drainPendingReconciliation() {
+    List<String> userIds = List.copyOf(pendingReconciliation);
+    pendingReconciliation.removeAll(userIds);
+    return userIds;
+  }
+
+  private static Query byFolder(String userId, String folder) {
+    return Query.query(Criteria.where("userId").is(userId).and("folder").is(folder));
+  }
+
+  /** Matches a usage document at a version; a null version matches only a missing document. */
+  private static Query atVersion(String userId, String folder, Long version) {
+    Criteria criteria = Criteria.where("userId").is(userId).and("folder").is(folder);
+    return Query.query(
+        version == null
+            ? criteria.and("_id").exists(false)
+            : version == 0
+                ? criteria.and("version").in(0L, null)
+                : criteria.and("version").is(version));
+  }
+}
@@ -0,0 +1,131 @@
+package com.craftify.bff.service;
+
+import com.craftify.bff.config.StorageConfig;
+import com.craftify.bff.dto.FileMetadataDto;
+import java.io.IOException;
+import java.io.InputStream;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for viewing windows of large text files in user storage. Windows are read with ranged
+ * requests against object storage and streamed, so memory use is bounded by the window and buffer
+ * sizes rather than by the file size.
+ */
+@Service
+public class TextViewService {
+
+  /** Size of the chunks read backwards from the end of a file when looking for line breaks. */
+  private static final int TAIL_SCAN_CHUNK = 64 * 1024;
+
+  private final UserStorageService userStorageService;
+  private final long maxWindowBytes;
+
+  public TextViewService(UserStorageService userStorageService, StorageConfig config) {
+    this.userStorageService = userStorageService;
+    this.maxWindowBytes = config.getTextWindowMaxBytes();
+  }
+
+  /**
+   * Opens a byte window of a file.
+   *
+   * @param path File path.
+   * @param offset Byte offset of the window; counted from the end of the file in tail mode.
+   * @param limit Maximum number of bytes in the window.
+   * @param tail Whether the window ends at the end of the file.
+   * @return Open window positioned at its first byte.
+   */
+  public TextWindow openBytes(String path, long offset, long limit, boolean tail) {
+    requireValidWindow(offset, limit);
+    FileMetadataDto metadata = userStorageService.statUserFile(path);
+    long size = metadata.size();
+    long length = Math.min(limit, maxWindowBytes);
+
+    long end = tail ? Math.max(0, size - offset) : Math.min(size, offset + length);
+    long start = tail ? Math.max(0, end - length) : Math.min(offset, size);
+
+    return new TextWindow(
+        size, start, open(path, metadata, start, end - start), 0, -1, end - start);
+  }
+
+  /**
+   * Opens a line window of a file. Forward windows skip {@code offset} lines from a byte position;
+   * tail windows hold the last {@code limit} lines. Either way the window is capped at the
+   * configured maximum window size.
+   *
+   * <p>A forward window with a known start position, such as the start of the previous window plus
+   * its length, is read with one ranged request of at most the maximum window size. Without one,
+   * lines are counted from the start of the file, so the read grows with {@code offset}: paging
+   * through a large file should pass the start position, or use byte windows.
+   *
+   * @param path File path.
+   * @param offset Number of lines to skip from the start position; ignored in tail mode.
+   * @param limit Maximum number of lines in the window.
+   * @param tail Whether the window holds the last lines of the file.
+   * @param start Byte offset of the start of a line to count from, or null for the start of the
+   *     file; ignored in tail mode.
+   * @return Open window positioned at its first byte.
+   */
+  public TextWindow openLines(String path, long offset, int limit, boolean tail, Long start) {
+    requireValidWindow(offset, limit);
+    if (start != null && start < 0) {
+      throw new IllegalArgumentException("Start must be >= 0.");
+    }
+    FileMetadataDto metadata = userStorageService.statUserFile(path);
+    long size = metadata.size();
+
+    if (tail) {
+      long tailStart = findTailStart(path, metadata, limit);
+      return new TextWindow(
+          size, tailStart, open(path, metadata, tailStart, size - tailStart), 0, limit, size);
+    }
+    if (start != null) {
+      long from = Math.min(start, size);
+      long length = Math.min(size - from, maxWindowBytes);
+      return new TextWindow(
+          size, from, open(path, metadata, from, length), offset, limit, maxWindowBytes);
+    }
+    return new TextWindow(size, 0, open(path, metadata, 0, size), offset, limit, maxWindowBytes);
+  }
+
+  /**
+   * Scans backwards from the end of the file for the start of the last {@code lines} lines, reading
+   * at most the maximum window size. Only one chunk is held in memory at a time.
+   */
+  private long findTailStart(String path, FileMetadataDto metadata, int lines) {
+    long size = metadata.size();
+    long lowerBound = Math.max(0, size - maxWindowBytes);
+    byte[] chunk = new byte[TAIL_SCAN_CHUNK];
+    int newlines = 0;
+    long position = size;
+
+    while (position > lowerBound) {
+      int length = (int) Math.min(chunk.length, position - lowerBound);
+      long chunkStart = position - length;
+      try (InputStream in = open(path, metadata, chunkStart, length)) {
+        length = in.readNBytes(chunk, 0, length);
+      } catch (IOException e) {
+        throw new RuntimeException("Failed to read file: " + path, e);
+      }
+      for (int i = length - 1; i >= 0; i--) {
+        // A line break terminating the last line does not start a new one.
+        if (chunk[i] == '\n' && chunkStart + i != size - 1 && ++newlines == lines) {
+          return chunkStart + i + 1;
+        }
+      }
+      position = chunkStart;
+    }
+    return lowerBound;
+  }
+
+  private InputStream open(String path, FileMetadataDto metadata, long start, long length) {
+    return length > 0
+        ? userStorageService.downloadUserFile(path, start, length, metadata.etag())
+        : InputStream.nullInputStream();
+  }
+
+  private static void requireValidWindow(long offset, long limit) {
+    if (offset < 0 || limit < 1) {
+      throw new IllegalArgumentException("Offset must be >= 0 and limit must be >= 1.");
+    }
+  }
+}
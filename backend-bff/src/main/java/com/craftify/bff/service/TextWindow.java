@@ -0,0 +1,64 @@
+package com.craftify.bff.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An open window onto a stored text file. The content stream already starts at {@link #start()};
+ * {@link #writeTo(OutputStream)} copies it through a fixed buffer, optionally skipping leading
+ * lines and stopping after a number of lines, so memory stays bounded by the buffer size.
+ *
+ * @param fileSize total size of the file in bytes
+ * @param start byte offset the content stream starts at
+ * @param content ranged content stream; closed by {@link #writeTo(OutputStream)}
+ * @param skipLines number of lines to drop before writing
+ * @param maxLines maximum number of lines to write, or -1 to write every byte of the range
+ * @param maxBytes maximum number of bytes to write
+ */
+public record TextWindow(
+    long fileSize, long start, InputStream content, long skipLines, int maxLines, long maxBytes) {
+
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  /**
+   * Writes the window to the given stream and closes the content stream.
+   *
+   * @param out Target stream.
+   * @throws IOException if reading or writing fails.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+    try (content) {
+      byte[] buffer = new byte[BUFFER_SIZE];
+      long skipped = 0;
+      long lines = 0;
+      long written = 0;
+      int read;
+      while (written < maxBytes && (read = content.read(buffer)) != -1) {
+        int from = 0;
+        int to = read;
+        if (skipped < skipLines) {
+          while (from < read && skipped < skipLines) {
+            if (buffer[from++] == '\n') {
+              skipped++;
+            }
+          }
+        }
+        if (maxLines >= 0) {
+          for (int i = from; i < read; i++) {
+            if (buffer[i] == '\n' && ++lines == maxLines) {
+              to = i + 1;
+              break;
+            }
+          }
+        }
+        int length = (int) Math.min(to - from, maxBytes - written);
+        out.write(buffer, from, length);
+        written += length;
+        if (maxLines >= 0 && lines >= maxLines) {
+          break;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.craftify.bff.service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded LRU cache whose entries expire after a fixed TTL, shared by the in-process caches of
+ * the BFF. Every invalidation advances a generation counter; a value loaded while the generation
+ * changed is not cached, so a load racing with a write never caches the state from before the
+ * write. A cache with a size of 0 caches nothing.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+final class TtlCache<K, V> {
+
+  private final int maxEntries;
+  private final long ttlMillis;
+  private final Map<K, Entry<V>> entries;
+  private long generation;
+
+  /**
+   * Creates a cache.
+   *
+   * @param maxEntries Maximum number of entries; 0 disables the cache.
+   * @param ttl How long an entry is served after it was loaded.
+   */
+  TtlCache(int maxEntries, Duration ttl) {
+    this.maxEntries = Math.max(0, maxEntries);
+    this.ttlMillis = ttl.toMillis();
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+            return size() > TtlCache.this.maxEntries;
+          }
+        };
+  }
+
+  /**
+   * Returns the cached value or loads and caches it.
+   *
+   * @param key Key.
+   * @param loader Loads the value on a cache miss; a null value is returned but not cached.
+   * @return The value.
+   */
+  V get(K key, Supplier<V> loader) {
+    V value = getIfFresh(key);
+    if (value != null) {
+      return value;
+    }
+    long loadGeneration = generation();
+    value = loader.get();
+    if (value != null) {
+      put(loadGeneration, key, value);
+    }
+    return value;
+  }
+
+  /**
+   * Returns a cached value that has not expired.
+   *
+   * @param key Key.
+   * @return The value, or null if it is not cached or has expired.
+   */
+  V getIfFresh(K key) {
+    if (maxEntries == 0) {
+      return null;
+    }
+    synchronized (entries) {
+      Entry<V> entry = entries.get(key);
+      return entry != null && System.currentTimeMillis() - entry.loadedAt() < ttlMillis
+          ? entry.value()
+          : null;
+    }
+  }
+
+  /**
+   * Returns the current generation, to be passed to {@link #put(long, Object, Object)} once a value
+   * loaded after this call is available.
+   *
+   * @return Generation.
+   */
+  long generation() {
+    synchronized (entries) {
+      return generation;
+    }
+  }
+
+  /**
+   * Caches a value unless the cache was invalidated since it started loading.
+   *
+   * @param loadGeneration Generation returned by {@link #generation()} before the value was loaded.
+   * @param key Key.
+   * @param value Value.
+   */
+  void put(long loadGeneration, K key, V value) {
+    if (maxEntries == 0) {
+      return;
+    }
+    synchronized (entries) {
+      if (generation == loadGeneration) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+      }
+    }
+  }
+
+  /**
+   * Drops the entries whose key matches.
+   *
+   * @param filter Keys to drop.
+   */
+  void invalidateIf(Predicate<K> filter) {
+    synchronized (entries) {
+      generation++;
+      entries.keySet().removeIf(filter);
+    }
+  }
+
+  /**
+   * Drops an entry.
+   *
+   * @param key Key to drop.
+   */
+  void invalidate(K key) {
+    synchronized (entries) {
+      generation++;
+      entries.remove(key);
+    }
+  }
+
+  /** Drops every entry. */
+  void clear() {
+    synchronized (entries) {
+      generation++;
+      entries.clear();
+    }
+  }
+
+  private record Entry<V>(V value, long loadedAt) {}
+}
@@ -1,25 +1,57 @@
 package com.craftify.bff.service;
 
 import com.craftify.bff.config.MinioClientConfig;
+import com.craftify.bff.config.MinioPagingClient;
+import com.craftify.bff.config.StorageConfig;
+import com.craftify.bff.dto.DeletePathResultDto;
 import com.craftify.bff.dto.FileItemDto;
+import com.craftify.bff.dto.FileListPageDto;
+import com.craftify.bff.dto.FileMetadataDto;
 import com.craftify.bff.dto.FileType;
+import com.craftify.bff.dto.MultipartUploadDto;
+import com.craftify.bff.dto.PresignedPartUrlDto;
+import com.craftify.bff.dto.PresignedUrlDto;
+import com.craftify.bff.dto.StorageUsageDto;
+import com.craftify.bff.dto.UploadSessionDto;
+import com.craftify.bff.dto.UploadedPartDto;
+import com.craftify.bff.exception.OperationRestrictionException;
 import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.GetPresignedObjectUrlArgs;
 import io.minio.ListObjectsArgs;
 import io.minio.MinioClient;
 import io.minio.PutObjectArgs;
 import io.minio.RemoveObjectArgs;
 import io.minio.Result;
+import io.minio.StatObjectArgs;
+import io.minio.StatObjectResponse;
+import io.minio.errors.ErrorResponseException;
+import io.minio.http.Method;
 import io.minio.messages.Item;
+import io.minio.messages.ListBucketResultV2;
+import io.minio.messages.Part;
+import io.minio.messages.Prefix;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.ContentDisposition;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -30,35 +62,113 @@ import org.springframework.web.multipart.MultipartFile;
 @Service
 public class UserStorageService {
 
+  /** Maximum number of parts S3 accepts for one multipart upload. */
+  private static final int MAX_MULTIPART_PARTS = 10_000;
+
+  /** Maximum number of keys S3 returns for one listing request. */
+  private static final int MAX_LIST_PAGE_SIZE = 1000;
+
+  /**
+   * Prefix of the staging objects presigned uploads are written to; never a valid user id. Clients
+   * only ever write here, and staged content is copied to its target without client-set metadata
+   * once the upload is completed and the quota checked.
+   */
+  public static final String STAGING_PREFIX = ".uploads/";
+
   private final MinioClient minioClient;
   private final String bucketName;
   private final AuthentificationService authentificationService;
+  private final StorageBatchRemover batchRemover;
+  private final StorageObjectCopier objectCopier;
+  private final MinioClient presignClient;
+  private final MinioPagingClient asyncClient;
+  private final FolderListingCache listingCache;
+  private final MultipartUploadEngine uploadEngine;
+  private final FolderArchiveWriter archiveWriter;
+  private final StorageUsageService usageService;
+  private final ContentDedupStore dedupStore;
+  private final StorageConfig storageConfig;
 
   public UserStorageService(
-      MinioClient minioClient, MinioClientConfig config, AuthentificationService authService) {
+      MinioClient minioClient,
+      MinioClientConfig config,
+      AuthentificationService authService,
+      StorageBatchRemover batchRemover,
+      StorageObjectCopier objectCopier,
+      @Qualifier("minioPresignClient") MinioClient presignClient,
+      MinioPagingClient asyncClient,
+      StorageConfig storageConfig,
+      FolderListingCache listingCache,
+      MultipartUploadEngine uploadEngine,
+      FolderArchiveWriter archiveWriter,
+      StorageUsageService usageService,
+      ContentDedupStore dedupStore) {
     this.minioClient = minioClient;
     this.bucketName = config.getBucket();
     this.authentificationService = authService;
+    this.batchRemover = batchRemover;
+    this.objectCopier = objectCopier;
+    this.presignClient = presignClient;
+    this.asyncClient = asyncClient;
+    this.storageConfig = storageConfig;
+    this.listingCache = listingCache;
+    this.uploadEngine = uploadEngine;
+    this.archiveWriter = archiveWriter;
+    this.usageService = usageService;
+    this.dedupStore = dedupStore;
   }
 
   /**
-   * Lists the contents of the user's folder.
+   * Lists one page of the contents of the user's folder. Pages are served from the listing cache
+   * when possible and otherwise fetched with a single ListObjectsV2 request.
    *
    * @param subFolder Subfolder path relative to the user root. If null or blank, root is assumed.
-   * @return List of file and folder DTOs.
+   * @param continuationToken Token returned with the previous page, or null for the first page.
+   * @param pageSize Maximum number of entries requested from object storage for this page.
+   * @return Page of file and folder DTOs with the token for the next page.
    */
-  public List<FileItemDto> listUserFolder(String subFolder) {
+  public FileListPageDto listUserFolder(String subFolder, String continuationToken, int pageSize) {
     String prefix = buildUserPrefix(subFolder, true);
-    Iterable<Result<Item>> results =
-        minioClient.listObjects(
-            ListObjectsArgs.builder().bucket(bucketName).prefix(prefix).delimiter("/").build());
+    String userRoot = authentificationService.getCurrentUserId() + "/";
+    String token =
+        continuationToken == null || continuationToken.isBlank() ? null : continuationToken;
+    int maxKeys = Math.max(1, Math.min(pageSize, MAX_LIST_PAGE_SIZE));
 
-    return StreamSupport.stream(results.spliterator(), false)
-        .map(result -> toFileItemDto(result, prefix))
-        .filter(Objects::nonNull)
-        .filter(
-            dto -> dto.type() == FileType.FOLDER || (dto.type() == FileType.FILE && dto.size() > 0))
-        .collect(Collectors.toList());
+    return listingCache.get(
+        prefix, token, maxKeys, () -> fetchListingPage(prefix, userRoot, token, maxKeys));
+  }
+
+  private FileListPageDto fetchListingPage(
+      String prefix, String userRoot, String continuationToken, int maxKeys) {
+    ListBucketResultV2 page;
+    try {
+      page =
+          asyncClient
+              .listObjectsPage(bucketName, prefix, "/", continuationToken, maxKeys)
+              .get()
+              .result();
+    } catch (Exception e) {
+      throw new RuntimeException(
+          "Failed to list folder: " + prefix.substring(userRoot.length()), e);
+    }
+
+    var items = new ArrayList<FileItemDto>();
+    for (Prefix folder : page.commonPrefixes()) {
+      items.add(toFileItemDto(folder.toItem(), prefix, userRoot));
+    }
+    for (Item file : page.contents()) {
+      items.add(toFileItemDto(file, prefix, userRoot));
+    }
+    var visible =
+        items.stream()
+            .filter(Objects::nonNull)
+            .filter(
+                dto ->
+                    dto.type() == FileType.FOLDER
+                        || (dto.type() == FileType.FILE && dto.size() > 0))
+            .toList();
+
+    return new FileListPageDto(visible, page.isTruncated() ? page.nextContinuationToken() : null);
   }
 
   /**
@@ -76,29 +186,199 @@ public class UserStorageService {
               .build());
     } catch (Exception e) {
       throw new RuntimeException("Failed to create folder: " + folderPath, e);
+    } finally {
+      listingCache.invalidate(objectName);
     }
   }
 
   /**
-   * Uploads a file to a specified folder within the user namespace.
+   * Uploads a file to a specified folder within the user namespace. Files larger than the upload
+   * part size are sent as a multipart upload with parts uploaded in parallel.
    *
    * @param folderPath Folder path relative to the user's namespace.
    * @param file Multipart file to upload.
    */
   public void uploadUserFile(String folderPath, MultipartFile file) {
-    String originalFilename =
-        Objects.requireNonNull(file.getOriginalFilename(), "Uploaded file must have a valid name.");
-    Path fullPath = resolveUserPath(folderPath).resolve(originalFilename);
-    String objectName = normalizePath(fullPath.toString());
+    uploadUserFiles(folderPath, List.of(file));
+  }
 
-    try (InputStream inputStream = file.getInputStream()) {
-      minioClient.putObject(
-          PutObjectArgs.builder().bucket(bucketName).object(objectName).stream(
-                  inputStream, file.getSize(), -1)
-              .contentType(file.getContentType())
-              .build());
+  /**
+   * Uploads several files to a specified folder within the user namespace, processing the files
+   * concurrently.
+   *
+   * @param folderPath Folder path relative to the user's namespace.
+   * @param files Multipart files to upload.
+   */
+  public void uploadUserFiles(String folderPath, List<MultipartFile> files) {
+    Path folder = resolveUserPath(folderPath);
+    var filesByObjectName = new LinkedHashMap<String, MultipartFile>();
+    for (MultipartFile file : files) {
+      String originalFilename =
+          Objects.requireNonNull(
+              file.getOriginalFilename(), "Uploaded file must have a valid name.");
+      filesByObjectName.put(normalizePath(folder.resolve(originalFilename).toString()), file);
+    }
+    String userId = authentificationService.getCurrentUserId();
+    usageService.requireQuota(userId, files.stream().mapToLong(MultipartFile::getSize).sum());
+
+    try {
+      var usage = new StorageUsageDelta();
+      var replacedBlobs = new ArrayList<String>();
+      for (var entry : filesByObjectName.entrySet()) {
+        addBlob(replacedBlobs, replaceUsage(usage, entry.getKey(), entry.getValue().getSize()));
+      }
+      if (dedupStore.isEnabled()) {
+        for (var entry : filesByObjectName.entrySet()) {
+          MultipartFile file = entry.getValue();
+          dedupStore.write(
+              bucketName,
+              entry.getKey(),
+              file::getInputStream,
+              file.getSize(),
+              file.getContentType());
+        }
+      } else if (filesByObjectName.size() == 1) {
+        var entry = filesByObjectName.entrySet().iterator().next();
+        MultipartFile file = entry.getValue();
+        try (InputStream inputStream = file.getInputStream()) {
+          uploadEngine.upload(
+              bucketName, entry.getKey(), inputStream, file.getSize(), file.getContentType());
+        }
+      } else {
+        uploadEngine.uploadAll(bucketName, filesByObjectName);
+      }
+      usageService.apply(usage);
+      dedupStore.release(replacedBlobs);
+    } catch (Exception e) {
+      usageService.requestReconciliation(userId);
+      throw new RuntimeException(
+          "Failed to upload file: "
+              + files.stream().map(MultipartFile::getOriginalFilename).toList(),
+          e);
+    } finally {
+      filesByObjectName.keySet().forEach(listingCache::invalidate);
+    }
+  }
+
+  /**
+   * Starts a resumable upload session for a file. Parts are then sent one request at a time, so an
+   * interrupted client can query the session and continue with the missing parts.
+   *
+   * @param path Target file path.
+   * @param contentType Content type of the file, or null.
+   * @return Session with its upload id and part size.
+   */
+  public UploadSessionDto createUploadSession(String path, String contentType) {
+    String objectName = resolveUserObject(path);
+    usageService.requireQuota(authentificationService.getCurrentUserId(), 0);
+    try {
+      String uploadId = uploadEngine.createSession(bucketName, objectName, contentType);
+      return new UploadSessionDto(path, uploadId, uploadEngine.partSize(), List.of());
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to start upload session for: " + path, e);
+    }
+  }
+
+  /**
+   * Returns the state of a resumable upload session, including the parts already stored.
+   *
+   * @param path Target file path.
+   * @param uploadId Upload id of the session.
+   * @return Session with its stored parts.
+   */
+  public UploadSessionDto getUploadSession(String path, String uploadId) {
+    String objectName = resolveUserObject(path);
+    try {
+      var parts =
+          uploadEngine.listParts(bucketName, objectName, uploadId).stream()
+              .map(part -> new UploadedPartDto(part.partNumber(), part.etag()))
+              .toList();
+      return new UploadSessionDto(path, uploadId, uploadEngine.partSize(), parts);
+    } catch (Exception e) {
+      throw new RuntimeException("Upload session not found for: " + path, e);
+    }
+  }
+
+  /**
+   * Uploads one part of a resumable upload session.
+   *
+   * @param path Target file path.
+   * @param uploadId Upload id of the session.
+   * @param partNumber 1-based part number.
+   * @param content Part content, at most the session part size.
+   * @param contentMd5 Base64 MD5 of the part supplied by the client, or null.
+   * @return Part number and entity tag of the stored part.
+   */
+  public UploadedPartDto uploadSessionPart(
+      String path, String uploadId, int partNumber, InputStream content, String contentMd5) {
+    if (partNumber < 1 || partNumber > MAX_MULTIPART_PARTS) {
+      throw new IllegalArgumentException(
+          "Part number must be between 1 and " + MAX_MULTIPART_PARTS + ".");
+    }
+    String objectName = resolveUserObject(path);
+    usageService.requireQuota(authentificationService.getCurrentUserId(), 0);
+    try {
+      return uploadEngine.uploadPart(
+          bucketName, objectName, uploadId, partNumber, content, contentMd5);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to upload part " + partNumber + " of: " + path, e);
+    }
+  }
+
+  /**
+   * Completes a resumable upload session from the parts stored in object storage. A session that
+   * would exceed the storage quota is aborted, discarding its parts.
+   *
+   * @param path Target file path.
+   * @param uploadId Upload id of the session.
+   */
+  public void completeUploadSession(String path, String uploadId) {
+    String objectName = resolveUserObject(path);
+    String userId = authentificationService.getCurrentUserId();
+    List<Part> parts;
+    StoredObject replaced;
+    var usage = new StorageUsageDelta();
+    try {
+      parts = uploadEngine.listParts(bucketName, objectName, uploadId);
+      replaced = replaceUsage(usage, objectName, parts.stream().mapToLong(Part::partSize).sum());
+    } catch (Exception e) {
+      throw new RuntimeException("Upload session not found for: " + path, e);
+    }
+    try {
+      usageService.requireQuota(userId, usage.totalBytes());
+    } catch (RuntimeException e) {
+      // The session can never complete; release the storage held by its parts.
+      try {
+        uploadEngine.abort(bucketName, objectName, uploadId);
+      } catch (Exception abortFailure) {
+        e.addSuppressed(abortFailure);
+      }
+      throw e;
+    }
+
+    try {
+      uploadEngine.complete(bucketName, objectName, uploadId, parts.toArray(Part[]::new));
+      usageService.apply(usage);
+      releaseBlob(replaced);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to complete upload session for: " + path, e);
+    } finally {
+      listingCache.invalidate(objectName);
+    }
+  }
+
+  /**
+   * Aborts a resumable upload session and discards its parts.
+   *
+   * @param path Target file path.
+   * @param uploadId Upload id of the session.
+   */
+  public void abortUploadSession(String path, String uploadId) {
+    String objectName = resolveUserObject(path);
+    try {
+      uploadEngine.abort(bucketName, objectName, uploadId);
     } catch (Exception e) {
-      throw new RuntimeException("Failed to upload file: " + originalFilename, e);
+      throw new RuntimeException("Failed to abort upload session for: " + path, e);
     }
   }
 
@@ -112,19 +392,105 @@ public class UserStorageService {
     String objectName = normalizePath(resolveUserPath(fullPath).toString());
 
     try {
-      return minioClient.getObject(
-          GetObjectArgs.builder().bucket(bucketName).object(objectName).build());
+      return openContent(objectName, null, null, null);
+    } catch (Exception e) {
+      throw new RuntimeException("File not found or could not be downloaded: " + fullPath, e);
+    }
+  }
+
+  /**
+   * Downloads a byte range of a file from the user's namespace. The read fails if the object no
+   * longer matches the given entity tag, so a range is never served from a different version than
+   * the one its metadata was taken from.
+   *
+   * @param fullPath Full or relative file path.
+   * @param offset Index of the first byte to read.
+   * @param length Number of bytes to read.
+   * @param etag Entity tag the object is expected to have, or null to skip the check.
+   * @return InputStream of the requested range.
+   */
+  public InputStream downloadUserFile(String fullPath, long offset, long length, String etag) {
+    String objectName = normalizePath(resolveUserPath(fullPath).toString());
+
+    try {
+      return openContent(objectName, offset, length, etag);
     } catch (Exception e) {
       throw new RuntimeException("File not found or could not be downloaded: " + fullPath, e);
     }
   }
 
   /**
-   * Deletes a file or folder (recursively) from the user namespace.
+   * Reads the metadata of a file in the user's namespace without fetching its content. The entity
+   * tag of a deduplicated file is its blob hash.
+   *
+   * @param fullPath Full or relative file path.
+   * @return Size, entity tag, modification time and content type of the file.
+   */
+  public FileMetadataDto statUserFile(String fullPath) {
+    String objectName = normalizePath(resolveUserPath(fullPath).toString());
+
+    try {
+      var stat =
+          minioClient.statObject(
+              StatObjectArgs.builder().bucket(bucketName).object(objectName).build());
+      Instant modified = stat.lastModified() != null ? stat.lastModified().toInstant() : null;
+      long size = ContentDedupStore.logicalSize(stat.userMetadata(), stat.size());
+      // Every pointer is an empty object with the same entity tag; its blob hash identifies it.
+      String hash = ContentDedupStore.blobHash(stat.userMetadata());
+      String etag = hash != null ? hash : stat.etag();
+      return new FileMetadataDto(fullPath, size, etag, modified, stat.contentType());
+    } catch (Exception e) {
+      throw new RuntimeException("File not found: " + fullPath, e);
+    }
+  }
+
+  /**
+   * Returns the storage used by the current user, read from the usage index.
+   *
+   * @return Usage in total and per top-level folder.
+   */
+  public StorageUsageDto getUserUsage() {
+    return usageService.getUsage(authentificationService.getCurrentUserId());
+  }
+
+  /**
+   * Prepares a ZIP archive of a folder in the user namespace. The listing is opened here, on the
+   * calling thread, and consumed lazily while the archive is written.
+   *
+   * @param folderPath Folder path relative to the user's namespace; blank for the whole namespace.
+   * @return Archive ready to be streamed.
+   */
+  public FolderArchive archiveUserFolder(String folderPath) {
+    String userId = authentificationService.getCurrentUserId();
+    Path folder = resolveUserPath(folderPath).normalize();
+    if (!folder.startsWith(userId)) {
+      throw new IllegalArgumentException(
+          "Path must point inside the user's namespace: " + folderPath);
+    }
+
+    boolean isRoot = folder.getNameCount() < 2;
+    String prefix = normalizePath(folder.toString()) + "/";
+    String basePrefix = isRoot ? prefix : normalizePath(folder.getParent().toString()) + "/";
+    String fileName = (isRoot ? "files" : folder.getFileName().toString()) + ".zip";
+
+    Iterator<Item> items = listRecursive(prefix).iterator();
+    if (!items.hasNext()) {
+      throw new RuntimeException("Folder not found: " + folderPath);
+    }
+    return new FolderArchive(
+        fileName, out -> archiveWriter.write(bucketName, basePrefix, items, out));
+  }
+
+  /**
+   * Deletes a file or folder (recursively) from the user namespace. The object listing is consumed
+   * page by page and removed in bulk delete batches, so the full set of names is never held in
+   * memory. Usage and blob references are released for every object that was actually removed,
+   * also when some batches fail.
    *
    * @param fullPath Relative or absolute path of the file/folder to delete.
+   * @return Number of removed objects and any per-batch failures.
    */
-  public void deleteUserPath(String fullPath) {
+  public DeletePathResultDto deleteUserPath(String fullPath) {
     String objectPrefix = normalizePath(resolveUserPath(fullPath).toString());
     boolean isFolder = objectPrefix.endsWith("/") || fullPath.endsWith("/");
 
@@ -132,60 +498,561 @@ public class UserStorageService {
       objectPrefix += "/";
     }
 
+    // Listed objects waiting for their delete batch; removed objects are accounted and dropped.
+    var pending = new ConcurrentHashMap<String, StoredObject>();
+    var usage = new StorageUsageDelta();
+    var removedBlobs = new ArrayList<String>();
     try {
-      Iterable<Result<Item>> results =
-          minioClient.listObjects(
-              ListObjectsArgs.builder()
-                  .bucket(bucketName)
-                  .prefix(objectPrefix)
-                  .recursive(true)
-                  .build());
+      Iterator<String> objectsToDelete =
+          listRecursive(objectPrefix)
+              .peek(item -> pending.put(item.objectName(), storedObject(item)))
+              .map(Item::objectName)
+              .iterator();
 
-      List<String> objectsToDelete =
-          StreamSupport.stream(results.spliterator(), false)
-              .map(result -> getItemNameOrThrow(result, "Failed to resolve object for deletion"))
-              .toList();
-
-      for (String object : objectsToDelete) {
-        minioClient.removeObject(
-            RemoveObjectArgs.builder().bucket(bucketName).object(object).build());
+      StorageBatchRemover.RemovalResult removal;
+      try {
+        removal =
+            batchRemover.removeAll(
+                bucketName,
+                objectsToDelete,
+                name -> {
+                  StoredObject removed = pending.remove(name);
+                  synchronized (usage) {
+                    usage.add(name, -removed.size(), -1);
+                    addBlob(removedBlobs, removed);
+                  }
+                });
+      } finally {
+        usageService.apply(usage);
+        dedupStore.release(removedBlobs);
+      }
+      if (!removal.failures().isEmpty()) {
+        // A batch whose request failed may have been removed in part.
+        usageService.requestReconciliation(authentificationService.getCurrentUserId());
       }
 
-      if (!isFolder && objectsToDelete.isEmpty()) {
+      if (!isFolder && removal.deleted() == 0 && removal.failures().isEmpty()) {
         minioClient.removeObject(
             RemoveObjectArgs.builder().bucket(bucketName).object(objectPrefix).build());
       }
+      return new DeletePathResultDto(fullPath, removal.deleted(), removal.failures());
     } catch (Exception e) {
       throw new RuntimeException("Failed to delete path: " + fullPath, e);
+    } finally {
+      listingCache.invalidate(objectPrefix);
     }
   }
 
   /**
-   * Moves or renames a file within the user namespace.
+   * Moves or renames a file or folder within the user namespace. Objects are copied server-side by
+   * MinIO so no content passes through the application. Folders are copied in parallel and the
+   * copied sources are removed in bulk only after every object was copied. Objects replaced at the
+   * target are accounted and their blobs released.
    *
-   * @param fromPath Original file path.
-   * @param toPath Target file path.
+   * @param fromPath Original file or folder path.
+   * @param toPath Target file or folder path.
    */
   public void moveUserPath(String fromPath, String toPath) {
     String fromObject = normalizePath(resolveUserPath(fromPath).toString());
     String toObject = normalizePath(resolveUserPath(toPath).toString());
 
-    try (InputStream stream =
-        minioClient.getObject(
-            GetObjectArgs.builder().bucket(bucketName).object(fromObject).build())) {
-      minioClient.putObject(
-          PutObjectArgs.builder().bucket(bucketName).object(toObject).stream(stream, -1, 10485760)
-              .contentType("application/octet-stream")
-              .build());
-      minioClient.removeObject(
-          RemoveObjectArgs.builder().bucket(bucketName).object(fromObject).build());
+    try {
+      StoredObject source = fromPath.endsWith("/") ? null : storedObject(fromObject);
+      if (source != null) {
+        var usage = new StorageUsageDelta();
+        var retained = new ArrayList<String>();
+        StoredObject replaced = replaceUsage(usage, toObject, source.size());
+        usage.add(fromObject, -source.size(), -1);
+        objectCopier.copy(bucketName, fromObject, toObject);
+        releaseBlob(replaced);
+        try {
+          minioClient.removeObject(
+              RemoveObjectArgs.builder().bucket(bucketName).object(fromObject).build());
+        } catch (Exception e) {
+          // Source and copy both point to the blob now.
+          addBlob(retained, source);
+          dedupStore.retain(retained);
+          throw e;
+        }
+        usageService.apply(usage);
+      } else {
+        moveFolder(fromObject + "/", toObject + "/");
+      }
     } catch (Exception e) {
+      usageService.requestReconciliation(authentificationService.getCurrentUserId());
       throw new RuntimeException("Failed to move from " + fromPath + " to " + toPath, e);
+    } finally {
+      listingCache.invalidate(fromObject);
+      listingCache.invalidate(toObject);
     }
   }
 
-  private void writeFile(String objectPath, String content) throws Exception {
-    byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+  private void moveFolder(String fromPrefix, String toPrefix) {
+    if (toPrefix.startsWith(fromPrefix)) {
+      throw new IllegalArgumentException("A folder cannot be moved into itself.");
+    }
+
+    // Objects already at the target are overwritten by the copies landing on them.
+    var existingTargets = new HashMap<String, StoredObject>();
+    listRecursive(toPrefix)
+        .forEach(item -> existingTargets.put(item.objectName(), storedObject(item)));
+
+    // Copies and removals are accounted as they happen, so a move that fails half way leaves
+    // usage and blob references matching what was actually written and removed.
+    var usage = new StorageUsageDelta();
+    var retained = new ArrayList<String>();
+    var released = new ArrayList<String>();
+    // Only the objects that were copied are removed; anything written to the source folder after
+    // it was listed stays in place.
+    var copiedSources = new ConcurrentHashMap<String, StoredObject>();
+    try {
+      var copy =
+          objectCopier.copyAll(
+              bucketName,
+              listRecursive(fromPrefix).iterator(),
+              name -> toPrefix + name.substring(fromPrefix.length()),
+              (item, target) -> {
+                StoredObject source = storedObject(item);
+                StoredObject replaced = existingTargets.get(target);
+                synchronized (usage) {
+                  if (replaced == null) {
+                    usage.add(target, source.size(), 1);
+                  } else {
+                    usage.add(target, source.size() - replaced.size(), 0);
+                    addBlob(released, replaced);
+                  }
+                  addBlob(retained, source);
+                }
+                copiedSources.put(item.objectName(), source);
+              });
+      if (!copy.failures().isEmpty()) {
+        throw new IllegalStateException(
+            copy.failures().size()
+                + " objects could not be copied, source folder was left in place: "
+                + copy.failures());
+      }
+      if (copy.copied() == 0) {
+        throw new IllegalArgumentException("Source path not found.");
+      }
+
+      var removal =
+          batchRemover.removeAll(
+              bucketName,
+              copiedSources.keySet().iterator(),
+              name -> {
+                StoredObject source = copiedSources.get(name);
+                synchronized (usage) {
+                  usage.add(name, -source.size(), -1);
+                  addBlob(released, source);
+                }
+              });
+      if (!removal.failures().isEmpty()) {
+        throw new IllegalStateException(
+            "Folder copied but some sources could not be removed: " + removal.failures());
+      }
+    } finally {
+      usageService.apply(usage);
+      dedupStore.retain(retained);
+      dedupStore.release(released);
+    }
+  }
+
+  private Stream<Item> listRecursive(String prefix) {
+    Iterable<Result<Item>> results =
+        minioClient.listObjects(
+            ListObjectsArgs.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .recursive(true)
+                .includeUserMetadata(true)
+                .build());
+    return StreamSupport.stream(results.spliterator(), false)
+        .map(result -> getItemOrThrow(result, "Failed to list objects under " + prefix));
+  }
+
+  private static StoredObject storedObject(Item item) {
+    return new StoredObject(
+        ContentDedupStore.logicalSize(item), ContentDedupStore.blobHash(item.userMetadata()));
+  }
+
+  /** Returns the logical size and blob of an object, or null if it does not exist. */
+  private StoredObject storedObject(String objectName) throws Exception {
+    try {
+      var stat =
+          minioClient.statObject(
+              StatObjectArgs.builder().bucket(bucketName).object(objectName).build());
+      return new StoredObject(
+          ContentDedupStore.logicalSize(stat.userMetadata(), stat.size()),
+          ContentDedupStore.blobHash(stat.userMetadata()));
+    } catch (ErrorResponseException e) {
+      if ("NoSuchKey".equals(e.errorResponse().code())) {
+        return null;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Records an object being written with the given size, replacing any existing object.
+   *
+   * @return The replaced object, or null if there was none.
+   */
+  private StoredObject replaceUsage(StorageUsageDelta usage, String objectName, long size)
+      throws Exception {
+    StoredObject existing = storedObject(objectName);
+    if (existing == null) {
+      usage.add(objectName, size, 1);
+    } else {
+      usage.add(objectName, size - existing.size(), 0);
+    }
+    return existing;
+  }
+
+  /**
+   * Opens the content of an object, following deduplication pointers to their blob. A range on a
+   * pointer fails as the pointer itself is empty, so its metadata is only read in that case and
+   * regular objects are served with a single request. An entity tag that is a blob hash is checked
+   * against the pointer metadata instead of the pointer's own entity tag.
+   */
+  private InputStream openContent(String objectName, Long offset, Long length, String etag)
+      throws Exception {
+    if (ContentDedupStore.isBlobHash(etag)) {
+      var stat =
+          minioClient.statObject(
+              StatObjectArgs.builder().bucket(bucketName).object(objectName).build());
+      if (!etag.equals(ContentDedupStore.blobHash(stat.userMetadata()))) {
+        throw new IllegalStateException("File changed since its metadata was read: " + objectName);
+      }
+      return minioClient.getObject(
+          getArgs(ContentDedupStore.blobObject(etag), offset, length, null));
+    }
+    try {
+      GetObjectResponse response = minioClient.getObject(getArgs(objectName, offset, length, etag));
+      String hash = response.headers().get("x-amz-meta-blob-sha256");
+      if (hash == null) {
+        return response;
+      }
+      response.close();
+      return minioClient.getObject(
+          getArgs(ContentDedupStore.blobObject(hash), offset, length, null));
+    } catch (ErrorResponseException e) {
+      if (offset == null || !"InvalidRange".equals(e.errorResponse().code())) {
+        throw e;
+      }
+      var stat =
+          minioClient.statObject(
+              StatObjectArgs.builder()
+                  .bucket(bucketName)
+                  .object(objectName)
+                  .matchETag(etag)
+                  .build());
+      String hash = ContentDedupStore.blobHash(stat.userMetadata());
+      if (hash == null) {
+        throw e;
+      }
+      return minioClient.getObject(
+          getArgs(ContentDedupStore.blobObject(hash), offset, length, null));
+    }
+  }
+
+  private GetObjectArgs getArgs(String objectName, Long offset, Long length, String etag) {
+    return GetObjectArgs.builder()
+        .bucket(bucketName)
+        .object(objectName)
+        .offset(offset)
+        .length(length)
+        .matchETag(etag)
+        .build();
+  }
+
+  private void releaseBlob(StoredObject replaced) {
+    if (replaced != null && replaced.blobHash() != null) {
+      dedupStore.release(List.of(replaced.blobHash()));
+    }
+  }
+
+  private static void addBlob(List<String> blobs, StoredObject object) {
+    if (object != null) {
+      addBlob(blobs, object.blobHash());
+    }
+  }
+
+  private static void addBlob(List<String> blobs, String hash) {
+    if (hash != null) {
+      blobs.add(hash);
+    }
+  }
+
+  /**
+   * Logical size and deduplicated blob of a stored object.
+   *
+   * @param size size of the content in bytes
+   * @param blobHash hash of the blob the object points to, or null for regular objects
+   */
+  private record StoredObject(long size, String blobHash) {}
+
+  /**
+   * Creates a presigned PUT URL that lets the client upload a file straight to object storage. The
+   * content is staged and becomes the file once {@link #completePresignedUpload(String)} is called.
+   *
+   * @param path Target file path.
+   * @return Presigned URL and its expiry.
+   */
+  public PresignedUrlDto presignUpload(String path) {
+    requirePresignedEnabled();
+    String objectName = resolveUserObject(path);
+    usageService.requireQuota(authentificationService.getCurrentUserId(), 0);
+    try {
+      return presign(path, stagingObject(objectName), Method.PUT, Map.of());
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to presign upload for: " + path, e);
+    }
+  }
+
+  /**
+   * Completes a presigned PUT upload: checks the quota, then moves the staged content to the file.
+   *
+   * @param path Target file path.
+   */
+  public void completePresignedUpload(String path) {
+    requirePresignedEnabled();
+    String objectName = resolveUserObject(path);
+    String staging = stagingObject(objectName);
+    StatObjectResponse stat;
+    try {
+      stat =
+          minioClient.statObject(
+              StatObjectArgs.builder().bucket(bucketName).object(staging).build());
+    } catch (Exception e) {
+      throw new IllegalArgumentException("No uploaded content found for: " + path, e);
+    }
+    promote(path, staging, objectName, stat.size(), stat.contentType());
+  }
+
+  /**
+   * Creates a presigned GET URL that lets the client download a file straight from object storage.
+   *
+   * @param fullPath Full or relative file path.
+   * @return Presigned URL and its expiry.
+   */
+  public PresignedUrlDto presignDownload(String fullPath) {
+    requirePresignedEnabled();
+    String objectName = resolveUserObject(fullPath);
+    var filename = Paths.get(objectName).getFileName().toString();
+    var disposition =
+        ContentDisposition.attachment().filename(filename, StandardCharsets.UTF_8).build();
+    try {
+      StoredObject stored = storedObject(objectName);
+      if (stored != null && stored.blobHash() != null) {
+        objectName = ContentDedupStore.blobObject(stored.blobHash());
+      }
+      return presign(
+          fullPath,
+          objectName,
+          Method.GET,
+          Map.of("response-content-disposition", disposition.toString()));
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to presign download for: " + fullPath, e);
+    }
+  }
+
+  /**
+   * Starts a multipart upload whose parts are sent by the client directly to object storage.
+   *
+   * @param path Target file path.
+   * @param contentType Content type of the final object, or null.
+   * @param partCount Number of parts the client will upload.
+   * @return Upload id and presigned URLs for every part.
+   */
+  public MultipartUploadDto createMultipartUpload(String path, String contentType, int partCount) {
+    requirePresignedEnabled();
+    requireValidPartCount(partCount);
+    String objectName = resolveUserObject(path);
+    usageService.requireQuota(authentificationService.getCurrentUserId(), 0);
+    try {
+      String staging = stagingObject(objectName);
+      String uploadId = uploadEngine.createSession(bucketName, staging, contentType);
+      return presignParts(path, staging, uploadId, partCount);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to start multipart upload for: " + path, e);
+    }
+  }
+
+  /**
+   * Issues fresh presigned part URLs for an existing multipart upload, e.g. after they expired.
+   *
+   * @param path Target file path.
+   * @param uploadId Multipart upload id.
+   * @param partCount Number of parts the client will upload.
+   * @return Upload id and presigned URLs for every part.
+   */
+  public MultipartUploadDto presignUploadParts(String path, String uploadId, int partCount) {
+    requirePresignedEnabled();
+    requireValidPartCount(partCount);
+    String objectName = resolveUserObject(path);
+    try {
+      return presignParts(path, stagingObject(objectName), uploadId, partCount);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to presign upload parts for: " + path, e);
+    }
+  }
+
+  /**
+   * Completes a multipart upload from the parts the client uploaded, then checks the quota and
+   * moves the assembled content to the file.
+   *
+   * @param path Target file path.
+   * @param uploadId Multipart upload id.
+   * @param parts Part numbers and entity tags reported by object storage.
+   */
+  public void completeMultipartUpload(String path, String uploadId, List<UploadedPartDto> parts) {
+    requirePresignedEnabled();
+    String objectName = resolveUserObject(path);
+    Part[] completed =
+        parts.stream()
+            .sorted(Comparator.comparingInt(UploadedPartDto::partNumber))
+            .map(part -> new Part(part.partNumber(), part.etag()))
+            .toArray(Part[]::new);
+    String staging = stagingObject(objectName);
+    StatObjectResponse stat;
+    try {
+      uploadEngine.complete(bucketName, staging, uploadId, completed);
+      stat =
+          minioClient.statObject(
+              StatObjectArgs.builder().bucket(bucketName).object(staging).build());
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to complete multipart upload for: " + path, e);
+    }
+    promote(path, staging, objectName, stat.size(), stat.contentType());
+  }
+
+  /**
+   * Moves staged content to its target file, accounting usage and releasing a replaced blob.
+   * Content over the quota is discarded.
+   */
+  private void promote(
+      String path, String staging, String objectName, long size, String contentType) {
+    String userId = authentificationService.getCurrentUserId();
+    var usage = new StorageUsageDelta();
+    StoredObject replaced;
+    try {
+      replaced = replaceUsage(usage, objectName, size);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to complete upload for: " + path, e);
+    }
+    try {
+      usageService.requireQuota(userId, usage.totalBytes());
+    } catch (RuntimeException e) {
+      removeQuietly(staging);
+      throw e;
+    }
+
+    try {
+      objectCopier.copyWithoutMetadata(bucketName, staging, objectName, size, contentType);
+      usageService.apply(usage);
+      releaseBlob(replaced);
+      removeQuietly(staging);
+    } catch (Exception e) {
+      usageService.requestReconciliation(userId);
+      throw new RuntimeException("Failed to complete upload for: " + path, e);
+    } finally {
+      listingCache.invalidate(objectName);
+    }
+  }
+
+  /**
+   * Returns the staging object presigned uploads to a file are written to. Staging objects live
+   * outside the user namespace, so a presigned URL can never overwrite a file or set its metadata.
+   */
+  private String stagingObject(String objectName) {
+    String userId = objectName.substring(0, objectName.indexOf('/'));
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(objectName.getBytes(StandardCharsets.UTF_8));
+      return STAGING_PREFIX + userId + "/" + HexFormat.of().formatHex(digest);
+    } catch (Exception e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private void removeQuietly(String objectName) {
+    try {
+      minioClient.removeObject(
+          RemoveObjectArgs.builder().bucket(bucketName).object(objectName).build());
+    } catch (Exception e) {
+      // Left for the staging sweep.
+    }
+  }
+
+  /**
+   * Aborts a multipart upload and discards the parts uploaded so far.
+   *
+   * @param path Target file path.
+   * @param uploadId Multipart upload id.
+   */
+  public void abortMultipartUpload(String path, String uploadId) {
+    requirePresignedEnabled();
+    String objectName = resolveUserObject(path);
+    try {
+      uploadEngine.abort(bucketName, stagingObject(objectName), uploadId);
+    } catch (Exception e) {
+      throw new RuntimeException("Failed to abort multipart upload for: " + path, e);
+    }
+  }
+
+  private MultipartUploadDto presignParts(
+      String path, String objectName, String uploadId, int partCount) throws Exception {
+    var parts = new ArrayList<PresignedPartUrlDto>(partCount);
+    Instant expiresAt = null;
+    for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+      var presigned =
+          presign(
+              path,
+              objectName,
+              Method.PUT,
+              Map.of("uploadId", uploadId, "partNumber", String.valueOf(partNumber)));
+      parts.add(new PresignedPartUrlDto(partNumber, presigned.url()));
+      expiresAt = presigned.expiresAt();
+    }
+    return new MultipartUploadDto(path, uploadId, expiresAt, parts);
+  }
+
+  private PresignedUrlDto presign(
+      String path, String objectName, Method method, Map<String, String> queryParams)
+      throws Exception {
+    int expirySeconds = (int) storageConfig.getPresignedExpiry().toSeconds();
+    Instant expiresAt = Instant.now().plusSeconds(expirySeconds);
+    String url =
+        presignClient.getPresignedObjectUrl(
+            GetPresignedObjectUrlArgs.builder()
+                .method(method)
+                .bucket(bucketName)
+                .object(objectName)
+                .expiry(expirySeconds)
+                .extraQueryParams(queryParams)
+                .build());
+    return new PresignedUrlDto(path, method.name(), url, expiresAt);
+  }
+
+  private void requirePresignedEnabled() {
+    if (!storageConfig.isPresignedEnabled()) {
+      throw new OperationRestrictionException("Presigned URL mode is disabled.");
+    }
+  }
+
+  private static void requireValidPartCount(int partCount) {
+    if (partCount < 1 || partCount > MAX_MULTIPART_PARTS) {
+      throw new IllegalArgumentException(
+          "Part count must be between 1 and " + MAX_MULTIPART_PARTS + ".");
+    }
+  }
+
+  private void writeFile(String objectPath, byte[] bytes) throws Exception {
+    if (dedupStore.isEnabled()) {
+      dedupStore.write(
+          bucketName, objectPath, () -> new ByteArrayInputStream(bytes), bytes.length, null);
+      return;
+    }
     try (InputStream stream = new ByteArrayInputStream(bytes)) {
       minioClient.putObject(
           PutObjectArgs.builder().bucket(bucketName).object(objectPath).stream(
@@ -202,10 +1069,18 @@ public class UserStorageService {
    */
   public void putTextFile(String path, String content) {
     String objectName = normalizePath(resolveUserPath(path).toString());
+    byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+    usageService.requireQuota(authentificationService.getCurrentUserId(), bytes.length);
     try {
-      writeFile(objectName, content);
+      var usage = new StorageUsageDelta();
+      StoredObject replaced = replaceUsage(usage, objectName, bytes.length);
+      writeFile(objectName, bytes);
+      usageService.apply(usage);
+      releaseBlob(replaced);
     } catch (Exception e) {
       throw new RuntimeException("Failed to create text file: " + path, e);
+    } finally {
+      listingCache.invalidate(objectName);
     }
   }
 
@@ -224,37 +1099,43 @@ public class UserStorageService {
         : root.resolve(inputPath);
   }
 
+  /**
+   * Resolves a path to an object name and rejects anything that does not point strictly inside the
+   * current user's namespace, since presigned URLs bypass every other check.
+   */
+  private String resolveUserObject(String path) {
+    String userId = authentificationService.getCurrentUserId();
+    Path resolved = resolveUserPath(path).normalize();
+    if (!resolved.startsWith(userId) || resolved.getNameCount() < 2) {
+      throw new IllegalArgumentException("Path must point inside the user's namespace: " + path);
+    }
+    return normalizePath(resolved.toString());
+  }
+
   private String normalizePath(String path) {
     return path.replace("\\", "/");
   }
 
-  private String getItemNameOrThrow(Result<Item> result, String errorMsg) {
+  private Item getItemOrThrow(Result<Item> result, String errorMsg) {
     try {
-      return result.get().objectName();
+      return result.get();
     } catch (Exception e) {
       throw new RuntimeException(errorMsg, e);
     }
   }
 
-  private FileItemDto toFileItemDto(Result<Item> result, String prefix) {
-    try {
-      Item item = result.get();
-      String objectName = item.objectName();
-
-      if (!objectName.startsWith(prefix)) return null;
+  private FileItemDto toFileItemDto(Item item, String prefix, String userRoot) {
+    String objectName = item.objectName();
 
-      String relativeName = objectName.substring(prefix.length());
-      String userId = authentificationService.getCurrentUserId();
-      String relativeFullPath = objectName.substring((userId + "/").length());
-      long size = item.size();
-      Instant modified = item.lastModified() != null ? item.lastModified().toInstant() : null;
+    if (!objectName.startsWith(prefix)) return null;
 
-      FileType type = item.isDir() ? FileType.FOLDER : FileType.FILE;
+    String relativeName = objectName.substring(prefix.length());
+    String relativeFullPath = objectName.substring(userRoot.length());
+    long size = ContentDedupStore.logicalSize(item);
+    Instant modified = item.lastModified() != null ? item.lastModified().toInstant() : null;
 
-      return new FileItemDto(relativeName, type, size, modified, relativeFullPath);
+    FileType type = item.isDir() ? FileType.FOLDER : FileType.FILE;
 
-    } catch (Exception e) {
-      throw new RuntimeException("Failed to convert item to FileItemDto", e);
-    }
+    return new FileItemDto(relativeName, type, size, modified, relativeFullPath);
   }
 }
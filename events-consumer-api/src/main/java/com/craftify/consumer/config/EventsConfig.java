@@ -0,0 +1,107 @@
+package com.craftify.consumer.config;
+
+import com.craftify.consumer.model.UnknownEventPolicy;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Options for consuming events, loaded from properties prefixed with {@code events}. Also provides
+ * the bounded executor events are processed on.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "events")
+public class EventsConfig {
+
+  /** What happens to events whose type no handler supports. */
+  private UnknownEventPolicy unknownTypes = UnknownEventPolicy.DEAD_LETTER;
+
+  /** Topic unsupported events are published to under the dead-letter policy. */
+  private String deadLetterTopic = "event-topic.DLT";
+
+  /**
+   * Threads processing events, shared by all listener containers. Bounds the number of concurrent
+   * requests to the Kubernetes API server.
+   */
+  private int launchThreads = 8;
+
+  /** How long a batch waits for its events; must stay well below the consumer poll interval. */
+  private Duration launchTimeout = Duration.ofMinutes(1);
+
+  /** Pause before events that failed are fetched again. */
+  private Duration retryBackoff = Duration.ofSeconds(1);
+
+  /** Attempts to process an event, including the first, before it is dead-lettered. */
+  private int maxAttempts = 5;
+
+  public UnknownEventPolicy getUnknownTypes() {
+    return unknownTypes;
+  }
+
+  public void setUnknownTypes(UnknownEventPolicy unknownTypes) {
+    this.unknownTypes = unknownTypes;
+  }
+
+  public String getDeadLetterTopic() {
+    return deadLetterTopic;
+  }
+
+  public void setDeadLetterTopic(String deadLetterTopic) {
+    this.deadLetterTopic = deadLetterTopic;
+  }
+
+  public int getLaunchThreads() {
+    return launchThreads;
+  }
+
+  public void setLaunchThreads(int launchThreads) {
+    this.launchThreads = launchThreads;
+  }
+
+  public Duration getLaunchTimeout() {
+    return launchTimeout;
+  }
+
+  public void setLaunchTimeout(Duration launchTimeout) {
+    this.launchTimeout = launchTimeout;
+  }
+
+  public Duration getRetryBackoff() {
+    return retryBackoff;
+  }
+
+  public void setRetryBackoff(Duration retryBackoff) {
+    this.retryBackoff = retryBackoff;
+  }
+
+  public int getMaxAttempts() {
+    return maxAttempts;
+  }
+
+  public void setMaxAttempts(int maxAttempts) {
+    this.maxAttempts = maxAttempts;
+  }
+
+  /**
+   * Creates the executor events are processed on. The pool is shut down together with the Spring
+   * context.
+   *
+   * @return a fixed-size {@link ExecutorService}
+   */
+  @Bean(destroyMethod = "shutdown")
+  public ExecutorService eventExecutor() {
+    var counter = new AtomicInteger();
+    ThreadFactory threadFactory =
+        runnable -> {
+          var thread = new Thread(runnable, "event-" + counter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        };
+    return Executors.newFixedThreadPool(Math.max(1, launchThreads), threadFactory);
+  }
+}
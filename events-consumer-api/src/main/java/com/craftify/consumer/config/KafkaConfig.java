@@ -1,5 +1,6 @@
 package com.craftify.consumer.config;
 
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
@@ -9,15 +10,27 @@ import org.springframework.kafka.listener.ContainerProperties;
 @Configuration
 public class KafkaConfig {
 
+  /**
+   * Listener container factory for batch listeners that commit offsets themselves. Runs {@code
+   * spring.kafka.listener.concurrency} consumers, each owning a share of the topic partitions.
+   *
+   * @return Listener container factory.
+   */
   @Bean
   public ConcurrentKafkaListenerContainerFactory<String, String> kafkaManualAckListenerFactory(
-      ConsumerFactory<String, String> consumerFactory) {
+      ConsumerFactory<String, String> consumerFactory, KafkaProperties kafkaProperties) {
 
     ConcurrentKafkaListenerContainerFactory<String, String> factory =
         new ConcurrentKafkaListenerContainerFactory<>();
 
     factory.setConsumerFactory(consumerFactory);
-    factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+    factory.setBatchListener(true);
+    Integer concurrency = kafkaProperties.getListener().getConcurrency();
+    if (concurrency != null) {
+      factory.setConcurrency(concurrency);
+    }
+    // The listener commits per partition up to the last contiguous processed event.
+    factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
     return factory;
   }
 }
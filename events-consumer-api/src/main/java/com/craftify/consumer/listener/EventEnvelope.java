@@ -0,0 +1,93 @@
+package com.craftify.consumer.listener;
+
+import com.craftify.consumer.model.EventHeaders;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+
+/**
+ * Reads fields of an event without building a JSON tree. The type comes from the {@link
+ * EventHeaders#TYPE} header when the producer set it; otherwise, and for the payload, a streaming
+ * parser walks the top level of the event, skips every other value and stops at the field it needs.
+ */
+final class EventEnvelope {
+
+  private EventEnvelope() {}
+
+  /**
+   * Returns the type of an event.
+   *
+   * @param jsonFactory Factory creating the parser.
+   * @param record Kafka record holding the event.
+   * @return Event type, or null if the event has none.
+   * @throws IOException if the type must be parsed and the event is not well-formed JSON.
+   */
+  static String type(JsonFactory jsonFactory, ConsumerRecord<String, String> record)
+      throws IOException {
+    Header header = record.headers().lastHeader(EventHeaders.TYPE);
+    if (header != null) {
+      return new String(header.value(), StandardCharsets.UTF_8);
+    }
+    try (JsonParser parser = seek(jsonFactory, record.value(), "type")) {
+      return parser != null && parser.currentToken() == JsonToken.VALUE_STRING
+          ? parser.getText()
+          : null;
+    }
+  }
+
+  /**
+   * Returns the payload of an event: the text of a string payload, or the raw JSON of any other
+   * value, copied from the event without re-serializing it.
+   *
+   * @param jsonFactory Factory creating the parser.
+   * @param json Event JSON.
+   * @return Payload, or an empty string if the event has none.
+   * @throws IOException if the event is not well-formed JSON up to the payload.
+   */
+  static String payload(JsonFactory jsonFactory, String json) throws IOException {
+    try (JsonParser parser = seek(jsonFactory, json, "payload")) {
+      if (parser == null) {
+        return "";
+      }
+      JsonToken token = parser.currentToken();
+      if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+        int start = (int) parser.currentTokenLocation().getCharOffset();
+        parser.skipChildren();
+        int end = (int) parser.currentLocation().getCharOffset();
+        return json.substring(start, end);
+      }
+      return parser.getText();
+    }
+  }
+
+  /**
+   * Positions a parser on the value of a top-level field.
+   *
+   * @return Parser positioned on the value, or null if the field is absent; the caller closes it.
+   */
+  private static JsonParser seek(JsonFactory jsonFactory, String json, String field)
+      throws IOException {
+    JsonParser parser = jsonFactory.createParser(json);
+    try {
+      if (parser.nextToken() == JsonToken.START_OBJECT) {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+          String name = parser.currentName();
+          parser.nextToken();
+          if (field.equals(name)) {
+            return parser;
+          }
+          parser.skipChildren();
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      parser.close();
+      throw e;
+    }
+    parser.close();
+    return null;
+  }
+}
@@ -1,50 +1,274 @@
 package com.craftify.consumer.listener;
 
-import com.craftify.consumer.service.EventTypeRegistry;
+import com.craftify.consumer.config.EventsConfig;
 import com.craftify.consumer.service.JobLauncherService;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.listener.ConsumerSeekAware;
 import org.springframework.stereotype.Service;
 
+/**
+ * Launches a job for every supported event. Each polled batch is split into chains of events with
+ * the same partition and key, which are dispatched to the bounded event executor: events of one
+ * chain run one after another in offset order, so the events of a user keep their order, while
+ * chains run concurrently. Events without a key form a chain each. Events of unsupported types are
+ * handed to {@link UnsupportedEventFilter} on the same executor.
+ *
+ * <p>Once the batch is done, offsets are committed per partition up to the last event that
+ * completed without a gap before it. Partitions with a failed or timed out event are rewound to it,
+ * so that event and every later one of its partition are fetched again after a pause; a failed
+ * event stops its chain, so later events with its key wait for it. Events that completed after the
+ * gap are remembered and skipped when fetched again. An event that fails {@code
+ * events.max-attempts} times is published to the dead-letter topic and counts as processed, so it
+ * no longer holds up its partition. Delivery is at least once: an event may run again after a
+ * rebalance or a restart.
+ */
 @Service
-public class KafkaListenerService {
+public class KafkaListenerService implements ConsumerSeekAware {
+
+  /** States of the events of a batch; every event starts pending. */
+  private static final int PENDING = 0;
+
+  private static final int STARTED = 1;
+  private static final int FAILED = 2;
+  private static final int DONE = 3;
 
   private static final Logger logger = LoggerFactory.getLogger(KafkaListenerService.class);
 
-  private final ObjectMapper objectMapper = new ObjectMapper();
-  private final EventTypeRegistry eventTypeRegistry;
+  private final JsonFactory jsonFactory = new JsonFactory();
+  private final UnsupportedEventFilter eventFilter;
   private final JobLauncherService jobLauncherService;
+  private final ExecutorService executor;
+  private final EventsConfig config;
+  private final int maxAttempts;
+
+  /** Events that completed after a gap in their partition and are not committed yet. */
+  private final Set<EventPosition> completed = ConcurrentHashMap.newKeySet();
+
+  /** Failed attempts of events that have not completed yet. */
+  private final Map<EventPosition, Integer> failures = new ConcurrentHashMap<>();
 
   public KafkaListenerService(
-      EventTypeRegistry eventTypeRegistry, JobLauncherService jobLauncherService) {
-    this.eventTypeRegistry = eventTypeRegistry;
+      UnsupportedEventFilter eventFilter,
+      JobLauncherService jobLauncherService,
+      @Qualifier("eventExecutor") ExecutorService executor,
+      EventsConfig config) {
+    this.eventFilter = eventFilter;
     this.jobLauncherService = jobLauncherService;
+    this.executor = executor;
+    this.config = config;
+    this.maxAttempts = Math.max(1, config.getMaxAttempts());
   }
 
-  @KafkaListener(topics = "event-topic", containerFactory = "kafkaManualAckListenerFactory")
-  public void listen(ConsumerRecord<String, String> record, Acknowledgment ack) {
-    try {
-      JsonNode root = objectMapper.readTree(record.value());
-      String type = root.path("type").asText();
-      JsonNode payloadNode = root.path("payload");
-      String payload = payloadNode.isTextual() ? payloadNode.asText() : payloadNode.toString();
+  @KafkaListener(
+      topics = "${events.topic:event-topic}",
+      containerFactory = "kafkaManualAckListenerFactory")
+  public void listen(List<ConsumerRecord<String, String>> records, Consumer<?, ?> consumer) {
+    var states = new AtomicIntegerArray(records.size());
+    Map<Object, List<Integer>> chains = new LinkedHashMap<>();
+    for (int i = 0; i < records.size(); i++) {
+      ConsumerRecord<String, String> record = records.get(i);
+      if (completed.contains(EventPosition.of(record))) {
+        states.set(i, DONE);
+        continue;
+      }
+      Object chain =
+          record.key() != null
+              ? new ChainKey(new TopicPartition(record.topic(), record.partition()), record.key())
+              : i;
+      chains.computeIfAbsent(chain, key -> new ArrayList<>()).add(i);
+    }
 
-      logger.info("Received event type: {}", type);
+    var futures = new ArrayList<Future<?>>(chains.size());
+    for (List<Integer> chain : chains.values()) {
+      futures.add(executor.submit(() -> runChain(records, chain, states)));
+    }
+    long deadline = System.nanoTime() + config.getLaunchTimeout().toNanos();
+    for (Future<?> future : futures) {
+      await(future, deadline);
+    }
 
-      if (eventTypeRegistry.isValid(type)) {
-        jobLauncherService.launchJob(type, payload);
-        ack.acknowledge();
+    Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+    Map<TopicPartition, Long> rewinds = new LinkedHashMap<>();
+    for (int i = 0; i < records.size(); i++) {
+      ConsumerRecord<String, String> record = records.get(i);
+      if (states.get(i) == STARTED) {
+        logger.error(
+            "Timed out processing event {}-{}@{}",
+            record.topic(),
+            record.partition(),
+            record.offset());
+        if (failedFinally(record)) {
+          states.set(i, DONE);
+        }
+      }
+      var partition = new TopicPartition(record.topic(), record.partition());
+      boolean done = states.get(i) == DONE;
+      if (rewinds.containsKey(partition)) {
+        if (done) {
+          completed.add(EventPosition.of(record));
+        }
+      } else if (done) {
+        commits.put(partition, new OffsetAndMetadata(record.offset() + 1));
       } else {
-        logger.warn("Unknown event type: {} - skipping ack", type);
+        rewinds.put(partition, record.offset());
+      }
+    }
+
+    if (!commits.isEmpty()) {
+      consumer.commitSync(commits);
+      commits.forEach((partition, offset) -> forget(partition, offset.offset()));
+    }
+    if (!rewinds.isEmpty()) {
+      rewinds.forEach(consumer::seek);
+      logger.warn("Retrying events from {}", rewinds);
+      pause();
+    }
+  }
+
+  @Override
+  public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+    // The next owner of a partition starts again from its committed offset.
+    completed.removeIf(position -> partitions.contains(position.partition()));
+    failures.keySet().removeIf(position -> partitions.contains(position.partition()));
+  }
+
+  /**
+   * Processes the events of a chain in order, stopping at the first event that fails without having
+   * used up its attempts.
+   */
+  private void runChain(
+      List<ConsumerRecord<String, String>> records,
+      List<Integer> chain,
+      AtomicIntegerArray states) {
+    for (int i : chain) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      ConsumerRecord<String, String> record = records.get(i);
+      states.set(i, STARTED);
+      try {
+        process(record);
+      } catch (Exception e) {
+        logger.error(
+            "Error processing event {}-{}@{}",
+            record.topic(),
+            record.partition(),
+            record.offset(),
+            e);
+        if (!failedFinally(record)) {
+          states.set(i, FAILED);
+          return;
+        }
       }
+      states.set(i, DONE);
+    }
+  }
+
+  private void process(ConsumerRecord<String, String> record) throws Exception {
+    String type = eventFilter.supportedType(record);
+    if (type == null) {
+      return;
+    }
+    String payload = EventEnvelope.payload(jsonFactory, record.value());
+
+    logger.info("Received event type: {}", type);
+    jobLauncherService.launchJob(type, payload);
+  }
+
+  /**
+   * Counts a failed attempt of an event and dead-letters the event once it used up its attempts.
+   *
+   * @return Whether the event was dead-lettered and counts as processed.
+   */
+  private boolean failedFinally(ConsumerRecord<String, String> record) {
+    var position = EventPosition.of(record);
+    if (failures.merge(position, 1, Integer::sum) < maxAttempts) {
+      return false;
+    }
+    try {
+      eventFilter.deadLetter(record);
+    } catch (RuntimeException e) {
+      logger.error(
+          "Failed to dead-letter event {}-{}@{}",
+          record.topic(),
+          record.partition(),
+          record.offset(),
+          e);
+      return false;
+    }
+    failures.remove(position);
+    logger.error(
+        "Dead-lettered event {}-{}@{} after {} attempts",
+        record.topic(),
+        record.partition(),
+        record.offset(),
+        maxAttempts);
+    return true;
+  }
+
+  /** Waits for a chain until the batch deadline, cancelling it once the deadline has passed. */
+  private void await(Future<?> future, long deadline) {
+    try {
+      future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (ExecutionException e) {
+      logger.error("Error processing events", e.getCause());
+    } catch (TimeoutException e) {
+      future.cancel(true);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+    }
+  }
+
+  /** Drops what is remembered about events of a partition before its committed offset. */
+  private void forget(TopicPartition partition, long committed) {
+    completed.removeIf(
+        position -> position.partition().equals(partition) && position.offset() < committed);
+    failures
+        .keySet()
+        .removeIf(
+            position -> position.partition().equals(partition) && position.offset() < committed);
+  }
+
+  private void pause() {
+    try {
+      Thread.sleep(config.getRetryBackoff().toMillis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Events of the same partition and key, processed in order. */
+  private record ChainKey(TopicPartition partition, String key) {}
+
+  /** Position of an event in its partition. */
+  private record EventPosition(TopicPartition partition, long offset) {
 
-    } catch (Exception e) {
-      logger.error("Error processing Kafka message", e);
+    static EventPosition of(ConsumerRecord<String, String> record) {
+      return new EventPosition(
+          new TopicPartition(record.topic(), record.partition()), record.offset());
     }
   }
 }
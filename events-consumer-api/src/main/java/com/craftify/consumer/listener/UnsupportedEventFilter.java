@@ -0,0 +1,91 @@
+package com.craftify.consumer.listener;
+
+import com.craftify.consumer.config.EventsConfig;
+import com.craftify.consumer.model.UnknownEventPolicy;
+import com.craftify.consumer.service.EventTypeRegistry;
+import com.fasterxml.jackson.core.JsonFactory;
+import java.util.concurrent.ExecutionException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Discards events whose type no handler supports before a job is launched for them. The type is
+ * read from the event headers, falling back to a streaming parse of the event for events produced
+ * without headers, and handed back to the listener so it is resolved only once. Discarded events
+ * count as processed; under the dead-letter policy they are first published to the dead-letter
+ * topic with their key and headers. The listener dead-letters events that keep failing the same
+ * way.
+ */
+@Component
+public class UnsupportedEventFilter {
+
+  private static final Logger logger = LoggerFactory.getLogger(UnsupportedEventFilter.class);
+
+  private final EventTypeRegistry eventTypeRegistry;
+  private final KafkaTemplate<String, String> kafkaTemplate;
+  private final JsonFactory jsonFactory = new JsonFactory();
+  private final EventsConfig config;
+
+  public UnsupportedEventFilter(
+      EventTypeRegistry eventTypeRegistry,
+      KafkaTemplate<String, String> kafkaTemplate,
+      EventsConfig config) {
+    this.eventTypeRegistry = eventTypeRegistry;
+    this.kafkaTemplate = kafkaTemplate;
+    this.config = config;
+  }
+
+  /**
+   * Resolves the type of an event and discards the event if no handler supports it.
+   *
+   * @param record Kafka record holding the event.
+   * @return The type of the event, or null if the event was discarded.
+   * @throws RuntimeException if the event could not be dead-lettered.
+   */
+  public String supportedType(ConsumerRecord<String, String> record) {
+    String type;
+    try {
+      type = EventEnvelope.type(jsonFactory, record);
+    } catch (Exception e) {
+      logger.warn(
+          "Malformed event at {}-{}@{}", record.topic(), record.partition(), record.offset());
+      type = null;
+    }
+    if (eventTypeRegistry.isValid(type)) {
+      return type;
+    }
+
+    if (config.getUnknownTypes() == UnknownEventPolicy.DEAD_LETTER) {
+      deadLetter(record);
+      logger.warn("Dead-lettered event of unsupported type: {}", type);
+    } else {
+      logger.warn("Dropped event of unsupported type: {}", type);
+    }
+    return null;
+  }
+
+  /**
+   * Publishes an event to the dead-letter topic with its key and headers and waits for the broker
+   * to acknowledge it.
+   *
+   * @param record Kafka record holding the event.
+   * @throws RuntimeException if the event could not be published.
+   */
+  public void deadLetter(ConsumerRecord<String, String> record) {
+    var deadLetter =
+        new ProducerRecord<>(
+            config.getDeadLetterTopic(), null, record.key(), record.value(), record.headers());
+    try {
+      kafkaTemplate.send(deadLetter).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while dead-lettering event", e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException("Failed to dead-letter event: " + e.getCause().getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.craftify.consumer.model;
+
+/** Names of the Kafka headers the events producer sets on every event. */
+public final class EventHeaders {
+
+  /** Event type. */
+  public static final String TYPE = "event-type";
+
+  /** Id of the user the event belongs to. */
+  public static final String USER_ID = "event-user-id";
+
+  /** Version of the event schema. */
+  public static final String SCHEMA_VERSION = "event-schema-version";
+
+  private EventHeaders() {}
+}
@@ -0,0 +1,9 @@
+package com.craftify.consumer.model;
+
+/** What happens to events whose type no handler supports. */
+public enum UnknownEventPolicy {
+  /** Acknowledge and discard the event. */
+  DROP,
+  /** Publish the event to the dead-letter topic, then acknowledge it. */
+  DEAD_LETTER
+}
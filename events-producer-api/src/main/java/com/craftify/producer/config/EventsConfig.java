@@ -0,0 +1,67 @@
+package com.craftify.producer.config;
+
+import com.craftify.producer.model.PartitionKey;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Options for producing events, loaded from properties prefixed with {@code events}. */
+@Configuration
+@ConfigurationProperties(prefix = "events")
+public class EventsConfig {
+
+  /** Topic events are produced to. */
+  private String topic = "event-topic";
+
+  /** Event fields the record key is derived from. */
+  private PartitionKey partitionKey = PartitionKey.USER;
+
+  /** Schema version announced in the headers of produced events. */
+  private String schemaVersion = "1";
+
+  /** How long a request waits for the broker to acknowledge its events. */
+  private Duration sendTimeout = Duration.ofSeconds(30);
+
+  /** Maximum number of events accepted in one batch request. */
+  private int maxBatchEvents = 10000;
+
+  public String getTopic() {
+    return topic;
+  }
+
+  public void setTopic(String topic) {
+    this.topic = topic;
+  }
+
+  public PartitionKey getPartitionKey() {
+    return partitionKey;
+  }
+
+  public void setPartitionKey(PartitionKey partitionKey) {
+    this.partitionKey = partitionKey;
+  }
+
+  public String getSchemaVersion() {
+    return schemaVersion;
+  }
+
+  public void setSchemaVersion(String schemaVersion) {
+    this.schemaVersion = schemaVersion;
+  }
+
+  public Duration getSendTimeout() {
+    return sendTimeout;
+  }
+
+  public void setSendTimeout(Duration sendTimeout) {
+    this.sendTimeout = sendTimeout;
+  }
+
+  public int getMaxBatchEvents() {
+    return maxBatchEvents;
+  }
+
+  public void setMaxBatchEvents(int maxBatchEvents) {
+    this.maxBatchEvents = maxBatchEvents;
+  }
+}
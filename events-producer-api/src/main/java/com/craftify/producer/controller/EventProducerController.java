@@ -1,24 +1,53 @@
 package com.craftify.producer.controller;
 
+import com.craftify.producer.config.EventsConfig;
+import com.craftify.producer.dto.EventAckDto;
+import com.craftify.producer.dto.EventBatchResultDto;
+import com.craftify.producer.model.Event;
+import com.craftify.producer.model.EventMetadata;
 import com.craftify.producer.service.KafkaProducerService;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.ExampleObject;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 @RestController
 public class EventProducerController {
+
+  private static final String NDJSON = "application/x-ndjson";
+
   private final KafkaProducerService kafkaProducerService;
+  private final JsonFactory jsonFactory;
+  private final EventsConfig config;
 
-  public EventProducerController(KafkaProducerService kafkaProducerService) {
+  public EventProducerController(
+      KafkaProducerService kafkaProducerService, ObjectMapper objectMapper, EventsConfig config) {
     this.kafkaProducerService = kafkaProducerService;
+    this.jsonFactory = objectMapper.getFactory();
+    this.config = config;
   }
 
   @PostMapping
-  @Operation(summary = "Produce event", description = "Sends an event JSON to Kafka")
-  public ResponseEntity<String> produceEvent(
+  @Operation(
+      summary = "Produce event",
+      description =
+          "Sends an event JSON to Kafka and returns its partition and offset once the broker"
+              + " acknowledged it. Responds with 400 if the event is not a JSON object and with"
+              + " 502 if the broker did not write it.")
+  public ResponseEntity<EventAckDto> produceEvent(
       @io.swagger.v3.oas.annotations.parameters.RequestBody(
               description = "Example event JSON",
               required = true,
@@ -28,10 +57,132 @@ public class EventProducerController {
                       examples =
                           @ExampleObject(
                               value =
-                                  "{\"type\":\"EVENT_A\",\"payload\":{\"message\":\"Hello world!\"}}")))
+                                  "{\"type\":\"EVENT_A\",\"payload\":{\"message\":\"Hello"
+                                      + " world!\"}}")))
           @org.springframework.web.bind.annotation.RequestBody
           String eventJson) {
-    kafkaProducerService.sendMessage("event-topic", eventJson);
-    return ResponseEntity.ok("Event sent to Kafka");
+    EventAckDto ack = kafkaProducerService.sendMessage(parseEvent(0, eventJson));
+    return ResponseEntity.status(ack.succeeded() ? HttpStatus.OK : HttpStatus.BAD_GATEWAY)
+        .body(ack);
+  }
+
+  @PostMapping(
+      path = "/batch",
+      consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+  @Operation(
+      summary = "Produce events",
+      description =
+          "Sends a JSON array or newline-delimited JSON of events to Kafka and returns the"
+              + " partition and offset of every event. Responds with 400 without sending any event"
+              + " if one is not a JSON object, and with 502 if any event was not written; its"
+              + " result carries the error.")
+  public ResponseEntity<EventBatchResultDto> produceEvents(
+      @io.swagger.v3.oas.annotations.parameters.RequestBody(
+              description = "Example event batch",
+              required = true,
+              content = {
+                @Content(
+                    mediaType = "application/json",
+                    examples =
+                        @ExampleObject(
+                            value =
+                                "[{\"type\":\"EVENT_A\",\"payload\":{\"message\":\"Hello\"}},"
+                                    + "{\"type\":\"EVENT_A\",\"payload\":{\"message\":\"World\"}}]")),
+                @Content(
+                    mediaType = NDJSON,
+                    examples =
+                        @ExampleObject(
+                            value =
+                                "{\"type\":\"EVENT_A\",\"payload\":{\"message\":\"Hello\"}}\n"
+                                    + "{\"type\":\"EVENT_A\",\"payload\":{\"message\":\"World\"}}"))
+              })
+          @org.springframework.web.bind.annotation.RequestBody
+          String body,
+      @RequestHeader("Content-Type") MediaType contentType) {
+    boolean ndjson = NDJSON.equals(contentType.getType() + "/" + contentType.getSubtype());
+    List<Event> events = ndjson ? parseLines(body) : parseArray(body);
+    if (events.isEmpty()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Batch holds no events");
+    }
+
+    EventBatchResultDto result = kafkaProducerService.sendMessages(events);
+    return ResponseEntity.status(result.failed() == 0 ? HttpStatus.OK : HttpStatus.BAD_GATEWAY)
+        .body(result);
+  }
+
+  /**
+   * Validates an event as a well-formed JSON object and reads its routing fields in the same pass,
+   * so a client error is answered with 400 instead of being reported as a failed write.
+   */
+  private Event parseEvent(int index, String json) {
+    try (JsonParser parser = jsonFactory.createParser(json)) {
+      if (parser.nextToken() == JsonToken.START_OBJECT) {
+        EventMetadata metadata = EventMetadata.read(parser);
+        if (parser.nextToken() == null) {
+          return new Event(json, metadata);
+        }
+      }
+    } catch (IOException e) {
+      throw new ResponseStatusException(
+          HttpStatus.BAD_REQUEST, "Event " + index + " is malformed JSON", e);
+    }
+    throw new ResponseStatusException(
+        HttpStatus.BAD_REQUEST, "Event " + index + " is not a JSON object");
+  }
+
+  private List<Event> parseLines(String body) {
+    var lines = new ArrayList<String>();
+    for (String line : body.split("\n")) {
+      if (!line.isBlank()) {
+        lines.add(line.strip());
+      }
+    }
+    if (lines.size() > config.getMaxBatchEvents()) {
+      throw tooManyEvents();
+    }
+    var events = new ArrayList<Event>(lines.size());
+    for (String line : lines) {
+      events.add(parseEvent(events.size(), line));
+    }
+    return events;
+  }
+
+  /**
+   * Splits a JSON array of events with a streaming parser, validating each element and reading its
+   * routing fields on the way, and copies the raw text of each element instead of building a tree.
+   */
+  private List<Event> parseArray(String body) {
+    try (JsonParser parser = jsonFactory.createParser(body)) {
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new ResponseStatusException(
+            HttpStatus.BAD_REQUEST, "Expected a JSON array of events");
+      }
+      var events = new ArrayList<Event>();
+      while (parser.nextToken() != JsonToken.END_ARRAY) {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+          throw new ResponseStatusException(
+              HttpStatus.BAD_REQUEST, "Event " + events.size() + " is not a JSON object");
+        }
+        if (events.size() == config.getMaxBatchEvents()) {
+          throw tooManyEvents();
+        }
+        int start = (int) parser.currentTokenLocation().getCharOffset();
+        EventMetadata metadata = EventMetadata.read(parser);
+        int end = (int) parser.currentLocation().getCharOffset();
+        events.add(new Event(body.substring(start, end), metadata));
+      }
+      if (parser.nextToken() != null) {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed JSON");
+      }
+      return events;
+    } catch (IOException e) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed JSON", e);
+    }
+  }
+
+  private ResponseStatusException tooManyEvents() {
+    return new ResponseStatusException(
+        HttpStatus.PAYLOAD_TOO_LARGE,
+        "Batch holds more than " + config.getMaxBatchEvents() + " events");
   }
 }
@@ -0,0 +1,16 @@
+package com.craftify.producer.dto;
+
+/**
+ * Broker acknowledgement of one produced event.
+ *
+ * @param index position of the event in its request
+ * @param partition partition the event was written to, or null if it failed
+ * @param offset offset of the event in its partition, or null if it failed
+ * @param error reason the event was not written, or null if it succeeded
+ */
+public record EventAckDto(int index, Integer partition, Long offset, String error) {
+
+  public boolean succeeded() {
+    return error == null;
+  }
+}
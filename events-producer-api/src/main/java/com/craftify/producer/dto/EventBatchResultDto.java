@@ -0,0 +1,12 @@
+package com.craftify.producer.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a batch of produced events.
+ *
+ * @param accepted number of events acknowledged by the broker
+ * @param failed number of events that were not written
+ * @param results acknowledgement of every event, in request order
+ */
+public record EventBatchResultDto(int accepted, int failed, List<EventAckDto> results) {}
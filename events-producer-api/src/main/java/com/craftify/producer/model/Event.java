@@ -0,0 +1,9 @@
+package com.craftify.producer.model;
+
+/**
+ * Event to produce, validated as a JSON object.
+ *
+ * @param json event JSON, sent as is
+ * @param metadata routing fields read while validating it
+ */
+public record Event(String json, EventMetadata metadata) {}
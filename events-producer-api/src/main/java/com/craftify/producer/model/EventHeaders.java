@@ -0,0 +1,16 @@
+package com.craftify.producer.model;
+
+/** Names of the Kafka headers set on every produced event, so consumers route without parsing. */
+public final class EventHeaders {
+
+  /** Event type. */
+  public static final String TYPE = "event-type";
+
+  /** Id of the user the event belongs to. */
+  public static final String USER_ID = "event-user-id";
+
+  /** Version of the event schema. */
+  public static final String SCHEMA_VERSION = "event-schema-version";
+
+  private EventHeaders() {}
+}
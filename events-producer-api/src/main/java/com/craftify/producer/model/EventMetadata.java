@@ -0,0 +1,40 @@
+package com.craftify.producer.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
+
+/**
+ * Routing fields of an event, read while the event is validated so it is tokenized only once.
+ *
+ * @param type event type, or null if absent
+ * @param userId id of the user the event belongs to, or null if absent
+ */
+public record EventMetadata(String type, String userId) {
+
+  /**
+   * Reads a JSON object to its end, keeping its top-level {@code type} and {@code userId} fields
+   * and skipping every other value.
+   *
+   * @param parser Parser positioned on the {@link JsonToken#START_OBJECT} of the event; left on its
+   *     {@link JsonToken#END_OBJECT}.
+   * @return Routing fields of the event.
+   * @throws IOException if the object is not well-formed JSON.
+   */
+  public static EventMetadata read(JsonParser parser) throws IOException {
+    String type = null;
+    String userId = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.currentName();
+      JsonToken value = parser.nextToken();
+      if ("type".equals(field) && value == JsonToken.VALUE_STRING) {
+        type = parser.getText();
+      } else if ("userId".equals(field) && value == JsonToken.VALUE_STRING) {
+        userId = parser.getText();
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return new EventMetadata(type, userId);
+  }
+}
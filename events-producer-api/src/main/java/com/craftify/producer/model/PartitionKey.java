@@ -0,0 +1,13 @@
+package com.craftify.producer.model;
+
+/** Event fields the Kafka record key is derived from; events with equal keys keep their order. */
+public enum PartitionKey {
+  /** No key; events are spread over partitions. */
+  NONE,
+  /** The user id; events of one user are ordered. */
+  USER,
+  /** The event type; events of one type are ordered. */
+  TYPE,
+  /** The user id and event type; events of one type and user are ordered. */
+  USER_TYPE
+}
@@ -1,18 +1,151 @@
 package com.craftify.producer.service;
 
+import com.craftify.producer.config.EventsConfig;
+import com.craftify.producer.dto.EventAckDto;
+import com.craftify.producer.dto.EventBatchResultDto;
+import com.craftify.producer.model.Event;
+import com.craftify.producer.model.EventHeaders;
+import com.craftify.producer.model.EventMetadata;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+/**
+ * Produces events to Kafka and reports what the broker acknowledged. Events of a batch are handed
+ * to the producer back to back, so the client groups them into as few requests as its linger and
+ * batch size settings allow, and only then are the acknowledgements awaited together.
+ *
+ * <p>Handing an event to the producer blocks while partition metadata is missing or its buffer is
+ * full, for at most the {@code max.block.ms} of the client. The send timeout covers this time too:
+ * events not handed over before it has passed fail without being sent, so a batch takes at most the
+ * send timeout plus one {@code max.block.ms}.
+ *
+ * <p>Each event is keyed by its user and/or type as configured, so related events land on the same
+ * partition and stay ordered, and carries its type, user id and schema version as headers.
+ */
 @Service
 public class KafkaProducerService {
 
+  private static final Logger logger = LoggerFactory.getLogger(KafkaProducerService.class);
+
   private final KafkaTemplate<String, String> kafkaTemplate;
+  private final EventsConfig config;
 
-  public KafkaProducerService(KafkaTemplate<String, String> kafkaTemplate) {
+  public KafkaProducerService(KafkaTemplate<String, String> kafkaTemplate, EventsConfig config) {
     this.kafkaTemplate = kafkaTemplate;
+    this.config = config;
+  }
+
+  /**
+   * Sends one event and waits for the broker to acknowledge it.
+   *
+   * @param event Event, with the routing fields read while validating it.
+   * @return Acknowledgement of the event.
+   */
+  public EventAckDto sendMessage(Event event) {
+    return sendMessages(List.of(event)).results().get(0);
+  }
+
+  /**
+   * Sends events in order and waits until the broker acknowledged or rejected each of them, or the
+   * send timeout, counted from the call, has passed.
+   *
+   * @param events Events, with the routing fields read while validating them.
+   * @return Acknowledgement of every event, in the given order.
+   */
+  public EventBatchResultDto sendMessages(List<Event> events) {
+    long deadline = System.nanoTime() + config.getSendTimeout().toNanos();
+    var futures = new ArrayList<CompletableFuture<SendResult<String, String>>>(events.size());
+    for (Event event : events) {
+      if (System.nanoTime() - deadline >= 0) {
+        futures.add(
+            CompletableFuture.failedFuture(
+                new TimeoutException("Timed out before the event could be sent")));
+        continue;
+      }
+      try {
+        futures.add(kafkaTemplate.send(toRecord(event)));
+      } catch (RuntimeException e) {
+        futures.add(CompletableFuture.failedFuture(e));
+      }
+    }
+
+    try {
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+          .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException("Interrupted while waiting for acknowledgements", e);
+    } catch (ExecutionException | TimeoutException e) {
+      // Individual outcomes are collected below.
+    }
+
+    var results = new ArrayList<EventAckDto>(futures.size());
+    int failed = 0;
+    for (int i = 0; i < futures.size(); i++) {
+      EventAckDto ack = toAck(i, futures.get(i));
+      if (!ack.succeeded()) {
+        failed++;
+      }
+      results.add(ack);
+    }
+    if (failed > 0) {
+      logger.warn("{} of {} events were not acknowledged", failed, futures.size());
+    }
+    return new EventBatchResultDto(futures.size() - failed, failed, results);
+  }
+
+  private ProducerRecord<String, String> toRecord(Event event) {
+    EventMetadata metadata = event.metadata();
+    var record =
+        new ProducerRecord<String, String>(config.getTopic(), null, key(metadata), event.json());
+    addHeader(record, EventHeaders.TYPE, metadata.type());
+    addHeader(record, EventHeaders.USER_ID, metadata.userId());
+    addHeader(record, EventHeaders.SCHEMA_VERSION, config.getSchemaVersion());
+    return record;
+  }
+
+  private String key(EventMetadata metadata) {
+    return switch (config.getPartitionKey()) {
+      case NONE -> null;
+      case USER -> metadata.userId();
+      case TYPE -> metadata.type();
+      case USER_TYPE ->
+          metadata.userId() != null && metadata.type() != null
+              ? metadata.userId() + ":" + metadata.type()
+              : metadata.userId();
+    };
+  }
+
+  private static void addHeader(ProducerRecord<String, String> record, String name, String value) {
+    if (value != null) {
+      record.headers().add(name, value.getBytes(StandardCharsets.UTF_8));
+    }
   }
 
-  public void sendMessage(String topic, String message) {
-    kafkaTemplate.send(topic, message);
+  private static EventAckDto toAck(
+      int index, CompletableFuture<SendResult<String, String>> future) {
+    if (!future.isDone()) {
+      return new EventAckDto(index, null, null, "Timed out waiting for acknowledgement");
+    }
+    try {
+      RecordMetadata metadata = future.join().getRecordMetadata();
+      return new EventAckDto(index, metadata.partition(), metadata.offset(), null);
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause() != null ? e.getCause() : e;
+      return new EventAckDto(index, null, null, cause.getMessage());
+    }
   }
 }
@@ -46,15 +46,18 @@ export async function createDataStores(authFetch, dataStore) {
 }
 
 /**
- * List records in a data store (paginated)
+ * List one page of records in a data store, newest first
  * @param {Function} authFetch
  * @param {string} dataStoreId
- * @param {number} page
+ * @param {string|null} continuationToken token returned with the previous page, or null for the first page
  * @param {number} size
+ * @returns {Promise<{items: Array, nextContinuationToken: string|null}>}
  */
-export async function listDataStoresRecords(authFetch, dataStoreId, page = 0, size = 10) {
+export async function listDataStoresRecords(authFetch, dataStoreId, continuationToken = null, size = 10) {
     const url = new URL(`${DATA_STORE_API_URL}/${dataStoreId}/records`);
-    url.searchParams.append("page", page);
+    if (continuationToken) {
+        url.searchParams.append("continuationToken", continuationToken);
+    }
     url.searchParams.append("size", size);
 
     const res = await authFetch(url, {
@@ -69,6 +72,105 @@ export async function listDataStoresRecords(authFetch, dataStoreId, page = 0, si
     return res.json();
 }
 
+/**
+ * Query records in a data store on the server
+ * @param {Function} authFetch
+ * @param {string} dataStoreId
+ * @param {Object} query
+ * @param {Array<{field: string, op: string, value: *}>} [query.filters] predicates on name, createdAt, updatedAt or record.* fields
+ * @param {Array<{field: string, direction: string}>} [query.sort] sort keys, newest first by default
+ * @param {Array<string>} [query.fields] record.* paths to return, all fields by default
+ * @param {string|null} [query.continuationToken] token of the previous page of the same query, null for the first page
+ * @param {number} [query.size]
+ * @returns {Promise<{items: Array, nextContinuationToken: string|null}>}
+ */
+export async function queryDataStoreRecords(authFetch, dataStoreId, { filters = [], sort = [], fields = [], continuationToken = null, size = 10 } = {}) {
+    const url = new URL(`${DATA_STORE_API_URL}/${dataStoreId}/records/query`);
+
+    const res = await authFetch(url, {
+        method: "POST",
+        headers: { "Content-Type": "application/json" },
+        body: JSON.stringify({ filters, sort, fields, continuationToken, size }),
+    });
+
+    if (!res.ok) {
+        const err = await res.text();
+        throw new Error(err || "Failed to query data store records");
+    }
+
+    return res.json();
+}
+
+/**
+ * Search records in a data store by words in their name or field values
+ * @param {Function} authFetch
+ * @param {string} dataStoreId
+ * @param {string} text words to find; each matches by prefix
+ * @param {number} page
+ * @param {number} size
+ * @returns {Promise<{items: Array, page: number, size: number, hasNext: boolean}>}
+ */
+export async function searchDataStoreRecords(authFetch, dataStoreId, text, page = 0, size = 10) {
+    const url = new URL(`${DATA_STORE_API_URL}/${dataStoreId}/records/search`);
+    url.searchParams.append("q", text);
+    url.searchParams.append("page", page);
+    url.searchParams.append("size", size);
+
+    const res = await authFetch(url, {
+        method: "GET",
+        headers: { "Content-Type": "application/json" },
+    });
+
+    if (!res.ok) {
+        const err = await res.text();
+        throw new Error(err || "Failed to search data store records");
+    }
+
+    return res.json();
+}
+
+/**
+ * List the record paths indexed for a data store
+ * @param {Function} authFetch
+ * @param {string} dataStoreId
+ * @returns {Promise<Array<string>>}
+ */
+export async function listDataStoreIndexes(authFetch, dataStoreId) {
+    const url = new URL(`${DATA_STORE_API_URL}/${dataStoreId}/indexes`);
+
+    const res = await authFetch(url, {
+        method: "GET",
+        headers: { "Content-Type": "application/json" },
+    });
+
+    if (!res.ok) {
+        throw new Error("Failed to fetch data store indexes");
+    }
+
+    return res.json();
+}
+
+/**
+ * Declare or remove an index on a record path such as record.customer.id
+ * @param {Function} authFetch
+ * @param {string} dataStoreId
+ * @param {string} path
+ * @param {boolean} indexed whether the path should be indexed
+ */
+export async function setDataStoreIndex(authFetch, dataStoreId, path, indexed) {
+    const url = new URL(`${DATA_STORE_API_URL}/${dataStoreId}/indexes/${encodeURIComponent(path)}`);
+
+    const res = await authFetch(url, {
+        method: indexed ? "PUT" : "DELETE",
+        headers: { "Content-Type": "application/json" },
+    });
+
+    if (!res.ok) {
+        const err = await res.text();
+        throw new Error(err || "Failed to update data store index");
+    }
+}
+
 /**
  * Get a single data record by ID
  * @param {Function} authFetch
@@ -91,22 +193,59 @@ export async function getDataRecordById(authFetch, dataStoreId, recordId) {
 }
 
 /**
- * Update an existing data record
+ * Build a JSON merge patch turning one record into another; removed fields become null
+ * @param {Object} original
+ * @param {Object} updated
+ * @returns {Object}
+ */
+export function createMergePatch(original, updated) {
+    const isObject = (value) => value !== null && typeof value === "object" && !Array.isArray(value);
+    const patch = {};
+    for (const key of Object.keys(original ?? {})) {
+        if (!(key in updated)) {
+            patch[key] = null;
+        }
+    }
+    for (const [key, value] of Object.entries(updated ?? {})) {
+        const previous = original?.[key];
+        if (isObject(value) && isObject(previous)) {
+            const nested = createMergePatch(previous, value);
+            if (Object.keys(nested).length > 0) {
+                patch[key] = nested;
+            }
+        } else if (JSON.stringify(value) !== JSON.stringify(previous)) {
+            patch[key] = value;
+        }
+    }
+    return patch;
+}
+
+/**
+ * Partially update an existing data record with a JSON merge patch
  * @param {Function} authFetch
  * @param {string} dataStoreId
  * @param {string} recordId
- * @param {Object} updatedData
+ * @param {Object} patch merge patch of the record fields, see createMergePatch
+ * @param {number|null} version version the record must still have, or null to update unconditionally
+ * @returns {Promise<Object>} the updated record with its new version
  */
-export async function updateDataRecord(authFetch, dataStoreId, recordId, updatedData) {
+export async function updateDataRecord(authFetch, dataStoreId, recordId, patch, version = null) {
     const url = new URL(`${DATA_STORE_API_URL}/${dataStoreId}/records/${recordId}`);
+    const headers = { "Content-Type": "application/merge-patch+json" };
+    if (version !== null && version !== undefined) {
+        headers["If-Match"] = `"${version}"`;
+    }
 
     const res = await authFetch(url, {
-        method: "PUT",
-        headers: { "Content-Type": "application/json" },
-        body: JSON.stringify({ recordData: updatedData }),
+        method: "PATCH",
+        headers,
+        body: JSON.stringify(patch),
     });
 
     if (!res.ok) {
+        if (res.status === 412) {
+            throw new Error("The record was changed by someone else. Reload it and try again.");
+        }
         const err = await res.text();
         throw new Error(err || "Failed to update data record");
     }
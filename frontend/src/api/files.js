@@ -1,9 +1,19 @@
 const API_HOST = import.meta.env.VITE_API_HOST || "http://localhost:8080";
 const API_URL = `${API_HOST}/files`;
 
-export const listFiles = async (authFetch, folder = "") => {
+/**
+ * List one page of a folder
+ * @param {Function} authFetch
+ * @param {string} folder
+ * @param {string|null} continuationToken token returned with the previous page, or null for the first page
+ * @returns {Promise<{items: Array, nextContinuationToken: string|null}>}
+ */
+export const listFiles = async (authFetch, folder = "", continuationToken = null) => {
+    const tokenParam = continuationToken
+        ? `&continuationToken=${encodeURIComponent(continuationToken)}`
+        : "";
     const res = await authFetch(
-        `${API_URL}/list?folder=${encodeURIComponent(folder)}`
+        `${API_URL}/list?folder=${encodeURIComponent(folder)}${tokenParam}`
     );
     if (!res.ok) throw new Error("Failed to fetch file list");
     return res.json();
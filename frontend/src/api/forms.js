@@ -70,10 +70,14 @@ export async function submitForm(authFetch, formId, formData) {
         body: JSON.stringify(formData)
     });
 
+    if (res.status === 503) {
+        throw new Error("Too many submissions right now, please try again in a moment");
+    }
     if (!res.ok) {
         const errorText = await res.json();
         throw new Error(errorText || "Failed to submit form");
     }
+    return res.json();
 }
 
 /**
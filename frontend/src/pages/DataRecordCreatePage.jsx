@@ -30,7 +30,7 @@ export function DataRecordCreatePage() {
         try {
             const result = await getDataRecordById(authFetch, dataStoreId, dataRecordId);
             setRecordName(result.name);
-            setData(result?.recordData ?? {});
+            setData(result?.record ?? {});
         } catch (err) {
             setError(err.message || "Failed to load data record");
             setShowErrorModal(true);
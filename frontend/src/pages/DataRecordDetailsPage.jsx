@@ -3,7 +3,7 @@ import { useNavigate, useParams } from "react-router-dom";
 import { Modal } from "../components/common/Modal";
 import { Loader } from "../components/common/Loader";
 import { useAuthFetch } from "../hooks/useAuthFetch";
-import { getDataRecordById, updateDataRecord } from "../api/dataStores";
+import { createMergePatch, getDataRecordById, updateDataRecord } from "../api/dataStores";
 import Editor from "@monaco-editor/react";
 
 export function DataRecordDetailsPage() {
@@ -29,7 +29,7 @@ export function DataRecordDetailsPage() {
             const result = await getDataRecordById(authFetch, dataStoreId, dataRecordId);
             setRecord(result);
             setRecordName(result?.name ?? "Untitled Record");
-            setData(result?.recordData ?? {});
+            setData(result?.record ?? {});
         } catch (err) {
             setFetchError(err.message || "Failed to load data record");
             setShowModal(true);
@@ -51,7 +51,15 @@ export function DataRecordDetailsPage() {
 
     const handleSave = async () => {
         try {
-            await updateDataRecord(authFetch, dataStoreId, dataRecordId, data);
+            const updated = await updateDataRecord(
+                authFetch,
+                dataStoreId,
+                dataRecordId,
+                createMergePatch(record?.record ?? {}, data),
+                record?.version
+            );
+            setRecord(updated);
+            setData(updated.record ?? {});
         } catch (err) {
             setSaveError(err.message || "Failed to update data record");
             setShowModal(true);
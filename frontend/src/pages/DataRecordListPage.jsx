@@ -11,9 +11,8 @@ const INITIAL_PAGE_SIZE = 5;
 export function DataRecordListPage() {
     const { dataStoreId } = useParams();
     const authFetch = useAuthFetch();
-    const [page, setPage] = useState(0);
     const [dataRecords, setDataRecords] = useState([]);
-    const [totalElements, setTotalElements] = useState(0);
+    const [nextToken, setNextToken] = useState(null);
     const [loading, setLoading] = useState(false);
     const [error, setError] = useState(null);
     const [showErrorModal, setShowErrorModal] = useState(false);
@@ -21,19 +20,21 @@ export function DataRecordListPage() {
     const popoverRef = useRef();
     const navigate = useNavigate();
 
-    const fetchDataStores = useCallback(async () => {
+    const fetchPage = useCallback(async (continuationToken) => {
         setLoading(true);
         setError(null);
         try {
-            const data = await listDataStoresRecords(authFetch, dataStoreId, 0, (page + 1) * INITIAL_PAGE_SIZE);
-            setDataRecords(data.content);
-            setTotalElements(data.totalElements);
+            const data = await listDataStoresRecords(authFetch, dataStoreId, continuationToken, INITIAL_PAGE_SIZE);
+            setDataRecords(prev => continuationToken ? [...prev, ...data.items] : data.items);
+            setNextToken(data.nextContinuationToken);
         } catch (err) {
             setError(err.message || "Failed to load data store records");
             setShowErrorModal(true);
         }
         setLoading(false);
-    }, [authFetch, page, dataStoreId]);
+    }, [authFetch, dataStoreId]);
+
+    const fetchDataStores = useCallback(() => fetchPage(null), [fetchPage]);
 
     useEffect(() => {
         fetchDataStores();
@@ -51,7 +52,7 @@ export function DataRecordListPage() {
         return () => document.removeEventListener("mousedown", handleClickOutside);
     }, [showSettings]);
 
-    const handleShowMore = () => setPage(prev => prev + 1);
+    const handleShowMore = () => fetchPage(nextToken);
 
     return (
         <div className="w-full max-w-7xl mx-auto py-8 px-4">
@@ -113,7 +114,7 @@ export function DataRecordListPage() {
                 />
             )}
 
-            {dataRecords.length < totalElements && !loading && (
+            {nextToken && !loading && (
                 <div className="flex justify-center mt-6">
                     <button
                         className="px-4 py-2 bg-gray-800 text-gray-300 rounded hover:bg-gray-700 transition"
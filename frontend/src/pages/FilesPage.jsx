@@ -16,6 +16,8 @@ export const FilesPage = () => {
 
     const [loading, setLoading] = useState(true);
     const [files, setFiles] = useState([]);
+    const [nextToken, setNextToken] = useState(null);
+    const [loadingMore, setLoadingMore] = useState(false);
     const [currentFolder, setCurrentFolder] = useState('');
     const [, setFolderStack] = useState([]);
     const [selectedItem, setSelectedItem] = useState(null);
@@ -37,7 +39,8 @@ export const FilesPage = () => {
         setLoading(true);
         try {
             const data = await listFiles(authFetch, folder);
-            setFiles(data);
+            setFiles(data.items);
+            setNextToken(data.nextContinuationToken);
         } catch {
             showError('Unable to load files. Please try again or refresh the page.');
         } finally {
@@ -45,6 +48,19 @@ export const FilesPage = () => {
         }
     };
 
+    const handleShowMore = async () => {
+        setLoadingMore(true);
+        try {
+            const data = await listFiles(authFetch, currentFolder, nextToken);
+            setFiles((prev) => [...prev, ...data.items]);
+            setNextToken(data.nextContinuationToken);
+        } catch {
+            showError('Unable to load more files. Please try again.');
+        } finally {
+            setLoadingMore(false);
+        }
+    };
+
     const showError = (message) => {
         setErrorMessage(message);
         setShowErrorModal(true);
@@ -254,6 +270,18 @@ export const FilesPage = () => {
                     })}
                     </tbody>
                 </table>
+
+                {nextToken && (
+                    <div className="flex justify-center mt-6">
+                        <button
+                            className="px-4 py-2 bg-gray-800 text-gray-300 rounded hover:bg-gray-700 transition"
+                            onClick={handleShowMore}
+                            disabled={loadingMore}
+                        >
+                            {loadingMore ? 'Loading...' : 'Show more'}
+                        </button>
+                    </div>
+                )}
             </main>
 
             {/* Modals */}